@@ -0,0 +1,123 @@
+package com.learnwiremock.benchmark;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.service.MoviesRestClient;
+import com.learnwiremock.service.MoviesWebClientFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+/**
+ * Cost of fetching a catalogue of {@code movies} movies with and without response compression. WireMock serves a
+ * pre-gzipped body to clients which accept gzip, so the server does no compression work during the measurement and
+ * the time difference is the client's decompression against the transfer saved.
+ *
+ * <p>The {@code wireBytes} counter totals the response body bytes transferred in each iteration, compare it across
+ * the {@code compress} parameter. Loopback transfers are nearly free, so the time saved on a real network is larger
+ * than measured here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MovieCompressionBenchmark {
+
+  @Param({"false", "true"})
+  public boolean compress;
+
+  @Param({"100", "5000"})
+  public int movies;
+
+  private WireMockServer wireMockServer;
+  private MoviesWebClientFactory webClientFactory;
+  private MoviesRestClient moviesRestClient;
+  private long wireBytesPerCall;
+
+  /** Response body bytes transferred, summed over each iteration */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class WireBytes {
+
+    public long wireBytes;
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    final byte[] body = catalogue(movies);
+    final byte[] gzippedBody = gzip(body);
+    wireBytesPerCall = compress ? gzippedBody.length : body.length;
+
+    wireMockServer = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort().gzipDisabled(true));
+    wireMockServer.start();
+    wireMockServer.stubFor(get(urlPathEqualTo("/" + MoviesAppConstants.V1_GET_ALL_MOVIES))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBody(body)));
+    wireMockServer.stubFor(get(urlPathEqualTo("/" + MoviesAppConstants.V1_GET_ALL_MOVIES))
+        .atPriority(1)
+        .withHeader(HttpHeaders.ACCEPT_ENCODING, containing("gzip"))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withHeader(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .withBody(gzippedBody)));
+
+    webClientFactory = MoviesWebClientFactory.builder().compress(compress).build();
+    moviesRestClient = webClientFactory.createRestClient(String.format("http://localhost:%s/", wireMockServer.port()));
+  }
+
+  @TearDown
+  public void tearDown() {
+    webClientFactory.close();
+    wireMockServer.stop();
+  }
+
+  private static byte[] catalogue(int size) throws IOException {
+    final List<Movie> catalogue = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      catalogue.add(new Movie("Christian Bale, Katie Holmes , Liam Neeson", (long) i, "Batman Begins " + i,
+          LocalDate.of(2005, 6, 15).plusDays(i % 365), 2005 + i % 20));
+    }
+    return new ObjectMapper().findAndRegisterModules().writeValueAsBytes(catalogue);
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(bytes);
+    }
+    return compressed.toByteArray();
+  }
+
+  @Benchmark
+  public List<Movie> getAllMovies(WireBytes counters) {
+    counters.wireBytes += wireBytesPerCall;
+    return moviesRestClient.getAllMovies();
+  }
+}
@@ -0,0 +1,87 @@
+package com.learnwiremock.benchmark;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.serverError;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.service.MoviesRestClientOptions;
+import com.learnwiremock.service.MoviesWebClientFactory;
+import com.learnwiremock.service.ReactiveMoviesRestClient;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cost of a failed call answered by a 500 with a 16KB body, run with {@code -prof gc} and compare
+ * {@code gc.alloc.rate.norm} across the parameters. A capture limit beyond the body size with stack traces is the
+ * closest to the error path before it was reworked, which also formatted its log message whether or not it was logged.
+ *
+ * <p>Error logging is switched off so that the numbers show the cost of building errors rather than console output,
+ * which is also the case where eagerly formatted messages were pure waste.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MovieErrorPathBenchmark {
+
+  static {
+    System.setProperty("org.slf4j.simpleLogger.log.com.learnwiremock.service.MovieErrorHandler", "off");
+  }
+
+  private static final int ERROR_BODY_SIZE = 16 * 1024;
+
+  @Param({"false", "true"})
+  public boolean stacklessErrors;
+
+  @Param({"1048576", "1024", "0"})
+  public int errorBodyCaptureLimit;
+
+  private WireMockServer wireMockServer;
+  private MoviesWebClientFactory webClientFactory;
+  private ReactiveMoviesRestClient reactiveClient;
+
+  @Setup
+  public void setUp() {
+    wireMockServer = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort());
+    wireMockServer.start();
+    final char[] errorBody = new char[ERROR_BODY_SIZE];
+    Arrays.fill(errorBody, 'x');
+    wireMockServer.stubFor(get(urlPathMatching("/movieservice/v1/movie/\\d+"))
+        .willReturn(serverError().withBody(new String(errorBody))));
+
+    webClientFactory = MoviesWebClientFactory.builder().build();
+    reactiveClient = new ReactiveMoviesRestClient(
+        webClientFactory.createWebClient(String.format("http://localhost:%s/", wireMockServer.port())),
+        MoviesRestClientOptions.builder()
+            .coalesceReads(false)
+            .stacklessErrors(stacklessErrors)
+            .errorBodyCaptureLimit(errorBodyCaptureLimit)
+            .build());
+  }
+
+  @TearDown
+  public void tearDown() {
+    webClientFactory.close();
+    wireMockServer.stop();
+  }
+
+  @Benchmark
+  public Object failedGetMovieById() {
+    return reactiveClient.getMovieById(1L)
+        .cast(Object.class)
+        .onErrorResume(MovieErrorResponse.class, Mono::just)
+        .block();
+  }
+}
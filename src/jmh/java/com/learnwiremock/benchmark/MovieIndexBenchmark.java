@@ -0,0 +1,67 @@
+package com.learnwiremock.benchmark;
+
+import com.learnwiremock.catalog.MovieCatalog;
+import com.learnwiremock.catalog.MovieNameIndex;
+import com.learnwiremock.catalog.MovieYearIndex;
+import com.learnwiremock.dto.Movie;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Local by-name and by-year lookups in a catalogue of {@code movies} movies, against scanning every name. A lookup
+ * through the service costs at least a round trip, so these only have to stay well below a millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MovieIndexBenchmark {
+
+  @Param({"100000"})
+  public int movies;
+
+  private MovieCatalog catalog;
+  private MovieNameIndex nameIndex;
+  private MovieYearIndex yearIndex;
+
+  @Setup
+  public void setUp() {
+    final MovieCatalog.Builder builder = MovieCatalog.builder();
+    for (int i = 0; i < movies; i++) {
+      final LocalDate releaseDate = LocalDate.of(1920, 1, 1).plusDays(i % 36_500);
+      builder.add(new Movie("Christian Bale", (long) i, "Batman Begins " + i, releaseDate, releaseDate.getYear()));
+    }
+    builder.add(new Movie("Christian Bale", (long) movies, "The Dark Knight Rises", null, 2012));
+    catalog = builder.build();
+    nameIndex = MovieNameIndex.of(catalog);
+    yearIndex = MovieYearIndex.of(catalog);
+  }
+
+  @Benchmark
+  public int[] indexedName() {
+    return nameIndex.rowsContaining("Knight");
+  }
+
+  @Benchmark
+  public int scannedName() {
+    int found = 0;
+    for (int row = 0; row < catalog.size(); row++) {
+      if (catalog.nameAt(row).contains("Knight")) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  @Benchmark
+  public int[] indexedYear() {
+    return yearIndex.rowsOf(2012);
+  }
+}
@@ -0,0 +1,159 @@
+package com.learnwiremock.benchmark;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.delete;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.dto.MovieBatchResult;
+import com.learnwiremock.service.MoviesRestClient;
+import com.learnwiremock.service.MoviesWebClientFactory;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+/**
+ * Benchmarks every {@link MoviesRestClient} operation against an in-process WireMock server serving the test
+ * {@code __files} bodies. Subclasses choose the number of benchmark threads.
+ *
+ * <p>WireMock shares the JVM, so the {@code gc} profiler's allocation rate includes the server side of each call;
+ * compare runs against each other rather than reading it as the client's allocation alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public abstract class MoviesRestClientBenchmark {
+
+  /** Where the {@code __files} directory lives, passed in by the jmh gradle task */
+  private static final String FILES_ROOT = System.getProperty("movies.benchmark.files", "src/test/resources");
+
+  private static final String MOVIE_BY_ID_URL = "/movieservice/v1/movie/\\d+";
+
+  /** The number of distinct ids and names requested, so that concurrent lookups rarely coalesce */
+  private static final int DISTINCT_KEYS = 1024;
+
+  /** The number of movies created per bulk call, divide its throughput by this to compare it with createMovie */
+  private static final int BULK_SIZE = 32;
+
+  private WireMockServer wireMockServer;
+  private MoviesWebClientFactory webClientFactory;
+  private MoviesRestClient moviesRestClient;
+  private Movie movie;
+  private List<Movie> bulkMovies;
+
+  @Setup
+  public void setUp() {
+    wireMockServer = new WireMockServer(WireMockConfiguration.wireMockConfig()
+        .dynamicPort()
+        .usingFilesUnderDirectory(FILES_ROOT)
+        .extensions(new ResponseTemplateTransformer(true)));
+    wireMockServer.start();
+    stubMoviesService();
+
+    webClientFactory = MoviesWebClientFactory.builder().build();
+    moviesRestClient = webClientFactory.createRestClient(String.format("http://localhost:%s/", wireMockServer.port()));
+    movie = new Movie("Christian Bale, Katie Holmes , Liam Neeson", "Batman Begins", LocalDate.of(2005, 6, 15), 2005);
+    bulkMovies = Collections.nCopies(BULK_SIZE, movie);
+  }
+
+  @TearDown
+  public void tearDown() {
+    webClientFactory.close();
+    wireMockServer.stop();
+  }
+
+  private void stubMoviesService() {
+    wireMockServer.stubFor(get(urlPathEqualTo("/" + MoviesAppConstants.V1_GET_ALL_MOVIES))
+        .willReturn(jsonResponse("get-all-movies.json")));
+    wireMockServer.stubFor(get(urlPathMatching(MOVIE_BY_ID_URL))
+        .willReturn(jsonResponse("get-movie-by-id-template-parameterized.json")
+            .withTransformerParameter("name", "Batman Begins")
+            .withTransformerParameter("cast", "Christian Bale, Katie Holmes , Liam Neeson")
+            .withTransformerParameter("release_date", "2005-06-15")
+            .withTransformerParameter("year", 2005)));
+    wireMockServer.stubFor(get(urlPathEqualTo("/" + MoviesAppConstants.V1_GET_MOVIE_BY_NAME))
+        .willReturn(jsonResponse("get-movies-by-name-template-randomized.json")));
+    wireMockServer.stubFor(get(urlPathEqualTo("/" + MoviesAppConstants.V1_GET_MOVIE_BY_YEAR))
+        .willReturn(jsonResponse("get-movies-by-year-template.json")
+            .withTransformerParameter("release_date", "2005-06-15")));
+    wireMockServer.stubFor(post(urlPathEqualTo("/" + MoviesAppConstants.V1_POST_MOVIE))
+        .willReturn(jsonResponse("post-movie-template.json").withStatus(HttpStatus.CREATED.value())));
+    wireMockServer.stubFor(put(urlPathMatching(MOVIE_BY_ID_URL))
+        .willReturn(jsonResponse("put-movie-template.json").withTransformerParameter("cast", "Michael Caine")));
+    wireMockServer.stubFor(delete(urlPathMatching(MOVIE_BY_ID_URL))
+        .willReturn(aResponse().withStatus(HttpStatus.OK.value()).withBodyFile("delete-movie-template.json")));
+  }
+
+  private static ResponseDefinitionBuilder jsonResponse(String bodyFile) {
+    return aResponse()
+        .withStatus(HttpStatus.OK.value())
+        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .withBodyFile(bodyFile);
+  }
+
+  private static int randomKey() {
+    return ThreadLocalRandom.current().nextInt(DISTINCT_KEYS);
+  }
+
+  @Benchmark
+  public List<Movie> getAllMovies() {
+    return moviesRestClient.getAllMovies();
+  }
+
+  @Benchmark
+  public Movie getMovieById() {
+    return moviesRestClient.getMovieById((long) randomKey() + 1);
+  }
+
+  @Benchmark
+  public List<Movie> getMoviesByName() {
+    return moviesRestClient.getMoviesByName("Batman " + randomKey());
+  }
+
+  @Benchmark
+  public List<Movie> getMoviesByYear() {
+    return moviesRestClient.getMoviesByYear(MoviesAppConstants.YEAR_OF_FIRST_MOVIE_EVER_MADE + randomKey() % 128);
+  }
+
+  @Benchmark
+  public Movie createMovie() {
+    return moviesRestClient.createMovie(movie);
+  }
+
+  @Benchmark
+  public List<MovieBatchResult<Movie>> createMoviesBulk() {
+    return moviesRestClient.createMovies(bulkMovies);
+  }
+
+  @Benchmark
+  public Movie updateMovie() {
+    return moviesRestClient.updateMovie((long) randomKey() + 1, movie);
+  }
+
+  @Benchmark
+  public String deleteMovie() {
+    return moviesRestClient.deleteMovie((long) randomKey() + 1);
+  }
+}
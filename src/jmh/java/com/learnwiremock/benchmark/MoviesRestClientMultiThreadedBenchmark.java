@@ -0,0 +1,8 @@
+package com.learnwiremock.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/** Eight callers sharing one client and its connection pool. */
+@Threads(8)
+public class MoviesRestClientMultiThreadedBenchmark extends MoviesRestClientBenchmark {
+}
@@ -0,0 +1,8 @@
+package com.learnwiremock.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/** One caller at a time, measuring the latency of an uncontended client. */
+@Threads(1)
+public class MoviesRestClientSingleThreadedBenchmark extends MoviesRestClientBenchmark {
+}
@@ -0,0 +1,83 @@
+package com.learnwiremock.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnwiremock.codec.MovieJson;
+import com.learnwiremock.codec.MovieSmile;
+import com.learnwiremock.dto.Movie;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+/**
+ * Decode throughput of {@code get-all-movies.json} shaped arrays through {@link MovieArrayDecoder}, with the mapper
+ * WebFlux builds by default against {@link MovieJson} and {@link MovieSmile}, for JSON and Smile bodies. The body is
+ * split into 8KB chunks like a network read would, and its size is printed during setup. Lives in the service
+ * package to reach the package-private decoder, run it with {@code -PjmhIncludes=MovieDecodeBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MovieDecodeBenchmark {
+
+  private static final int CHUNK_SIZE = 8 * 1024;
+
+  @Param({"default", "tuned"})
+  public String objectMapper;
+
+  @Param({"json", "smile"})
+  public String format;
+
+  @Param({"10", "1000"})
+  public int movies;
+
+  private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+  private MovieArrayDecoder decoder;
+  private List<byte[]> chunks;
+
+  @Setup
+  public void setUp() throws IOException {
+    final boolean smile = "smile".equals(format);
+    final ObjectMapper mapper;
+    if ("tuned".equals(objectMapper)) {
+      mapper = smile ? MovieSmile.newObjectMapper() : MovieJson.newObjectMapper();
+    } else {
+      mapper = smile ? Jackson2ObjectMapperBuilder.smile().build() : Jackson2ObjectMapperBuilder.json().build();
+    }
+    decoder = new MovieArrayDecoder(mapper);
+
+    final List<Movie> catalogue = new ArrayList<>(movies);
+    for (int i = 0; i < movies; i++) {
+      catalogue.add(new Movie("Christian Bale, Katie Holmes , Liam Neeson", (long) i, "Batman Begins " + i,
+          LocalDate.of(2005, 6, 15).plusDays(i % 365), 2005 + i % 20));
+    }
+    final byte[] body = mapper.writeValueAsBytes(catalogue);
+    System.out.printf("%n%d movies are %d bytes of %s%n", movies, body.length, format);
+    chunks = new ArrayList<>();
+    for (int from = 0; from < body.length; from += CHUNK_SIZE) {
+      chunks.add(Arrays.copyOfRange(body, from, Math.min(body.length, from + CHUNK_SIZE)));
+    }
+  }
+
+  @Benchmark
+  public List<Movie> decode() {
+    // the decoder consumes the buffers, so each invocation wraps the chunks again
+    return decoder.decode(Flux.fromIterable(chunks).map(chunk -> (DataBuffer) bufferFactory.wrap(chunk)))
+        .collectList()
+        .block();
+  }
+}
@@ -0,0 +1,224 @@
+package com.learnwiremock.cache;
+
+import com.learnwiremock.dto.Movie;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Size-bounded, least recently used cache of movies keyed by {@code movie_id}, with an expire-after-write TTL.
+ *
+ * <p>Movies are copied on the way in and out because {@link Movie} is mutable and instances are handed to callers.
+ *
+ * <p>Large caches are split into up to {@value #MAXIMUM_SEGMENTS} segments, each with its own lock and an equal
+ * share of the maximum size, so that concurrent hits on different movies do not queue behind one lock. Recency is
+ * then tracked per segment: the movie evicted is the least recently used of its segment, not of the whole cache.
+ */
+public class MovieCache {
+
+  public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+  public static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
+
+  private static final int MAXIMUM_SEGMENTS = 16;
+  /** Smaller segments would make the per-segment recency noticeably worse than a true LRU */
+  private static final int MINIMUM_SEGMENT_SIZE = 64;
+
+  @Getter
+  private final int maximumSize;
+  @Getter
+  private final Duration expireAfterWrite;
+  private final long expireAfterWriteNanos;
+  private final LongSupplier ticker;
+
+  private final Segment[] segments;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+
+  /** Incremented by every invalidation, loads are stamped with its value when they start */
+  private final AtomicLong invalidations = new AtomicLong();
+  /** The stamp of the latest invalidation of each movie, so that only loads of that movie are dropped */
+  private final Map<Long, Long> invalidatedAt = new ConcurrentHashMap<>();
+  /** Loads stamped before this are dropped, raised when {@link #invalidatedAt} is cleared to keep it bounded */
+  private volatile long invalidatedBefore;
+
+  /**
+   * @param maximumSize the number of movies retained before the least recently used is evicted
+   * @param expireAfterWrite how long a movie is served from the cache after it was loaded
+   * @param ticker a nanosecond time source, {@link System#nanoTime()} unless overridden in tests
+   */
+  @Builder
+  private MovieCache(Integer maximumSize, Duration expireAfterWrite, LongSupplier ticker) {
+    this.maximumSize = maximumSize == null ? DEFAULT_MAXIMUM_SIZE : maximumSize;
+    if (this.maximumSize <= 0) {
+      throw new IllegalArgumentException("Movie cache maximum size must be positive");
+    }
+    this.expireAfterWrite = expireAfterWrite == null ? DEFAULT_EXPIRE_AFTER_WRITE : expireAfterWrite;
+    this.expireAfterWriteNanos = this.expireAfterWrite.toNanos();
+    this.ticker = ticker == null ? System::nanoTime : ticker;
+    final int segmentCount = Integer.highestOneBit(
+        Math.max(1, Math.min(MAXIMUM_SEGMENTS, this.maximumSize / MINIMUM_SEGMENT_SIZE)));
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(this.maximumSize / segmentCount + (i < this.maximumSize % segmentCount ? 1 : 0));
+    }
+  }
+
+  /** Returns a copy of the cached movie, or {@code null} if it is absent or expired. */
+  public Movie get(@NonNull Long id) {
+    final long now = ticker.getAsLong();
+    final Segment segment = segmentFor(id);
+    segment.lock.lock();
+    try {
+      final Entry entry = segment.entries.get(id);
+      if (entry == null) {
+        misses.increment();
+        return null;
+      }
+      if (now - entry.writtenAt >= expireAfterWriteNanos) {
+        segment.entries.remove(id);
+        expirations.increment();
+        misses.increment();
+        return null;
+      }
+      hits.increment();
+      return new Movie(entry.movie);
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  /** The stamp to hand to {@link #putIfNotInvalidated(Long, Movie, long)} once a load completes. */
+  public long loadStamp() {
+    return invalidations.get();
+  }
+
+  /**
+   * Caches the loaded movie unless it was invalidated since the load started. Invalidations of other movies do not
+   * prevent it from being cached.
+   */
+  public void putIfNotInvalidated(@NonNull Long id, @NonNull Movie movie, long loadStamp) {
+    final Entry entry = new Entry(new Movie(movie), ticker.getAsLong());
+    final Segment segment = segmentFor(id);
+    segment.lock.lock();
+    try {
+      // an invalidation records its stamp before it takes the segment lock to remove the movie
+      if (!invalidatedSince(id, loadStamp)) {
+        segment.entries.put(id, entry);
+      }
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  public void put(@NonNull Long id, @NonNull Movie movie) {
+    putIfNotInvalidated(id, movie, loadStamp());
+  }
+
+  public void invalidate(@NonNull Long id) {
+    invalidatedAt.merge(id, invalidations.incrementAndGet(), Math::max);
+    if (invalidatedAt.size() > maximumSize) {
+      forgetInvalidations(invalidations.get());
+    }
+    final Segment segment = segmentFor(id);
+    segment.lock.lock();
+    try {
+      segment.entries.remove(id);
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  public void invalidateAll() {
+    forgetInvalidations(invalidations.incrementAndGet());
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        segment.entries.clear();
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        size += segment.entries.size();
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+    return size;
+  }
+
+  public MovieCacheStats stats() {
+    return new MovieCacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size());
+  }
+
+  private boolean invalidatedSince(Long id, long loadStamp) {
+    if (loadStamp < invalidatedBefore) {
+      return true;
+    }
+    final Long stamp = invalidatedAt.get(id);
+    return stamp != null && stamp > loadStamp;
+  }
+
+  /**
+   * Drops the per movie stamps, treating every load started before {@code stamp} as invalidated instead. The floor is
+   * raised before the stamps are removed so that a concurrent {@link #invalidatedSince} always sees one of them.
+   */
+  private synchronized void forgetInvalidations(long stamp) {
+    if (stamp > invalidatedBefore) {
+      invalidatedBefore = stamp;
+    }
+    invalidatedAt.values().removeIf(invalidated -> invalidated <= stamp);
+  }
+
+  private Segment segmentFor(Long id) {
+    final long hash = id * 0x9E3779B97F4A7C15L;
+    return segments[(int) (hash >>> 32) & (segments.length - 1)];
+  }
+
+  private final class Segment {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Long, Entry> entries;
+
+    private Segment(int maximumSize) {
+      this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+          if (size() > maximumSize) {
+            evictions.increment();
+            return true;
+          }
+          return false;
+        }
+      };
+    }
+  }
+
+  private static final class Entry {
+
+    private final Movie movie;
+    private final long writtenAt;
+
+    private Entry(Movie movie, long writtenAt) {
+      this.movie = movie;
+      this.writtenAt = writtenAt;
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.learnwiremock.cache;
+
+import lombok.Value;
+
+/** A point in time snapshot of the {@link MovieCache} counters. */
+@Value
+public class MovieCacheStats {
+
+  long hitCount;
+  long missCount;
+  /** Movies removed to stay within the maximum size */
+  long evictionCount;
+  /** Movies removed because they outlived the expire-after-write duration */
+  long expirationCount;
+  int size;
+
+  public double hitRate() {
+    final long requests = hitCount + missCount;
+    return requests == 0 ? 1.0 : (double) hitCount / requests;
+  }
+}
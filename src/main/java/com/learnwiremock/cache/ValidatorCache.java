@@ -0,0 +1,162 @@
+package com.learnwiremock.cache;
+
+import com.learnwiremock.dto.Movie;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Size-bounded, least recently used cache of list responses keyed by request URI, holding the {@code ETag} and
+ * {@code Last-Modified} validators of each response together with the movies decoded from it. The validators are
+ * sent with the next request for the URI, and the movies are served again when it is answered with 304 Not Modified.
+ *
+ * <p>Entries are never considered stale by age, the movies service decides with every conditional request. As
+ * {@link Movie} is mutable, the cache takes over the movies it is given, which no one else may hold, and hands out
+ * copies of them. Taking them over rather than copying them keeps a large list from being held twice at once.
+ *
+ * <p>Responses with more movies than {@link #getMaximumMoviesPerResponse()} are not cached, so that a list the
+ * client streams in bounded memory, the whole catalogue in particular, is not held in full by the cache. Raise it
+ * above the size of the catalogue to have an unchanged catalogue answered with 304 at the cost of holding it.
+ */
+public class ValidatorCache {
+
+  public static final int DEFAULT_MAXIMUM_SIZE = 64;
+  public static final int DEFAULT_MAXIMUM_MOVIES_PER_RESPONSE = 10_000;
+
+  @Getter
+  private final int maximumSize;
+  @Getter
+  private final int maximumMoviesPerResponse;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final LinkedHashMap<String, CachedResponse> entries;
+
+  /**
+   * @param maximumSize the number of responses retained before the least recently used is evicted
+   * @param maximumMoviesPerResponse the number of movies above which a response is not cached
+   */
+  @Builder
+  private ValidatorCache(Integer maximumSize, Integer maximumMoviesPerResponse) {
+    this.maximumSize = maximumSize == null ? DEFAULT_MAXIMUM_SIZE : maximumSize;
+    if (this.maximumSize <= 0) {
+      throw new IllegalArgumentException("Validator cache maximum size must be positive");
+    }
+    this.maximumMoviesPerResponse = maximumMoviesPerResponse == null
+        ? DEFAULT_MAXIMUM_MOVIES_PER_RESPONSE
+        : maximumMoviesPerResponse;
+    if (this.maximumMoviesPerResponse < 0) {
+      throw new IllegalArgumentException("Validator cache maximum movies per response must not be negative");
+    }
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+        return size() > ValidatorCache.this.maximumSize;
+      }
+    };
+  }
+
+  /** Returns the response cached for the URI, or {@code null} if there is none. */
+  public CachedResponse get(@NonNull String uri) {
+    lock.lock();
+    try {
+      return entries.get(uri);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Caches the movies of a response which came with at least one validator. The list and its movies are cached as
+   * they are, so neither may be changed or handed to anyone else afterwards. A list longer than the maximum movies
+   * per response is not cached, and removes whatever was cached for the URI.
+   *
+   * @param decodedBodyBytes the size of the response body once decompressed, reported whenever the movies are
+   *     served again; more than went over the wire when the response was compressed
+   */
+  public void put(@NonNull String uri, String etag, String lastModified, @NonNull List<Movie> movies,
+      long decodedBodyBytes) {
+    if (etag == null && lastModified == null) {
+      throw new IllegalArgumentException("A cached response needs an ETag or a Last-Modified validator");
+    }
+    if (movies.size() > maximumMoviesPerResponse) {
+      invalidate(uri);
+      return;
+    }
+    final CachedResponse response =
+        new CachedResponse(etag, lastModified, Collections.unmodifiableList(movies), decodedBodyBytes);
+    lock.lock();
+    try {
+      entries.put(uri, response);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void invalidate(@NonNull String uri) {
+    lock.lock();
+    try {
+      entries.remove(uri);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void invalidateAll() {
+    lock.lock();
+    try {
+      entries.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int size() {
+    lock.lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** The validators and movies of a cached response. */
+  public static final class CachedResponse {
+
+    @Getter
+    private final String etag;
+    @Getter
+    private final String lastModified;
+    private final List<Movie> movies;
+    /** The size of the response body once decompressed */
+    @Getter
+    private final long decodedBodyBytes;
+
+    private CachedResponse(String etag, String lastModified, List<Movie> movies, long decodedBodyBytes) {
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.movies = movies;
+      this.decodedBodyBytes = decodedBodyBytes;
+    }
+
+    /** Copies of the cached movies, in response order */
+    public List<Movie> getMovies() {
+      final List<Movie> copies = new ArrayList<>(movies.size());
+      for (Movie movie : movies) {
+        copies.add(new Movie(movie));
+      }
+      return copies;
+    }
+
+    /** Copies of the cached movies, in response order, each made only as the stream reaches it */
+    public Stream<Movie> streamMovies() {
+      return movies.stream().map(Movie::new);
+    }
+  }
+}
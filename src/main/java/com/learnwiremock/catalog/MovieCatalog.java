@@ -0,0 +1,297 @@
+package com.learnwiremock.catalog;
+
+import com.learnwiremock.dto.Movie;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.NonNull;
+
+/**
+ * Read-optimised, immutable catalogue of movies in columnar form: ids and years in primitive arrays, release dates
+ * as epoch days, and names and casts in {@link PackedStrings}. A movie takes a few dozen bytes instead of the
+ * several objects a {@link Movie} is made of.
+ *
+ * <p>Movies are held in rows ordered by id. The row accessors read single fields without creating a {@link Movie},
+ * so scans only pay for what they look at:
+ *
+ * <pre>{@code
+ * for (int row = 0; row < catalog.size(); row++) {
+ *   if (catalog.yearAt(row) == 2005) { ... }
+ * }
+ * }</pre>
+ */
+public final class MovieCatalog {
+
+  /** The year of a movie without one */
+  public static final int NO_YEAR = Integer.MIN_VALUE;
+  /** The release epoch day of a movie without a release date */
+  public static final int NO_RELEASE_DATE = Integer.MIN_VALUE;
+
+  private static final long ARRAY_HEADER_BYTES = 16;
+
+  private final long[] ids;
+  private final int[] years;
+  private final int[] releaseEpochDays;
+  private final int[] nameRefs;
+  private final int[] castRefs;
+  private final PackedStrings names;
+  private final PackedStrings casts;
+
+  private MovieCatalog(long[] ids, int[] years, int[] releaseEpochDays, int[] nameRefs, int[] castRefs,
+      PackedStrings names, PackedStrings casts) {
+    this.ids = ids;
+    this.years = years;
+    this.releaseEpochDays = releaseEpochDays;
+    this.nameRefs = nameRefs;
+    this.castRefs = castRefs;
+    this.names = names;
+    this.casts = casts;
+  }
+
+  public static MovieCatalog of(@NonNull Iterable<Movie> movies) {
+    final Builder builder = builder();
+    movies.forEach(builder::add);
+    return builder.build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int size() {
+    return ids.length;
+  }
+
+  /** The row of the movie with the given id, or -1 if the catalogue does not contain it. */
+  public int rowOf(long id) {
+    final int row = Arrays.binarySearch(ids, id);
+    return row < 0 ? -1 : row;
+  }
+
+  public boolean contains(long id) {
+    return rowOf(id) >= 0;
+  }
+
+  /** A new {@link Movie} with the given id, or null if the catalogue does not contain it. */
+  public Movie get(long id) {
+    final int row = rowOf(id);
+    return row < 0 ? null : movieAt(row);
+  }
+
+  public long idAt(int row) {
+    return ids[row];
+  }
+
+  /** The year of the movie in the row, or {@link #NO_YEAR} */
+  public int yearAt(int row) {
+    return years[row];
+  }
+
+  /** The release date of the movie in the row as an epoch day, or {@link #NO_RELEASE_DATE} */
+  public int releaseEpochDayAt(int row) {
+    return releaseEpochDays[row];
+  }
+
+  public LocalDate releaseDateAt(int row) {
+    final int epochDay = releaseEpochDays[row];
+    return epochDay == NO_RELEASE_DATE ? null : LocalDate.ofEpochDay(epochDay);
+  }
+
+  public String nameAt(int row) {
+    return names.get(nameRefs[row]);
+  }
+
+  /** Whether the name of the row contains a string given as UTF-8, without creating a String for the name */
+  boolean nameContains(int row, byte[] utf8) {
+    return names.contains(nameRefs[row], utf8);
+  }
+
+  public String castAt(int row) {
+    return casts.get(castRefs[row]);
+  }
+
+  public Movie movieAt(int row) {
+    final int year = years[row];
+    return new Movie(castAt(row), ids[row], nameAt(row), releaseDateAt(row), year == NO_YEAR ? null : year);
+  }
+
+  /** The rows of the catalogue, in id order */
+  public IntStream rows() {
+    return IntStream.range(0, ids.length);
+  }
+
+  /** Creates a {@link Movie} for every row, in id order. */
+  public List<Movie> toMovies() {
+    final List<Movie> movies = new ArrayList<>(ids.length);
+    for (int row = 0; row < ids.length; row++) {
+      movies.add(movieAt(row));
+    }
+    return movies;
+  }
+
+  /** The heap the catalogue's arrays take up, assuming compressed object pointers */
+  public long sizeInBytes() {
+    return arraySize(ids.length, Long.BYTES)
+        + 4 * arraySize(ids.length, Integer.BYTES)
+        + names.sizeInBytes()
+        + casts.sizeInBytes();
+  }
+
+  /** The bytes {@link #writeTo(ByteBuffer)} writes */
+  long serializedSize() {
+    return Integer.BYTES + (long) ids.length * (Long.BYTES + 4 * Integer.BYTES)
+        + names.serializedSize() + casts.serializedSize();
+  }
+
+  /* Column by column, so that each is a single bulk copy both ways */
+  void writeTo(ByteBuffer buffer) {
+    buffer.putInt(ids.length);
+    buffer.asLongBuffer().put(ids);
+    buffer.position(buffer.position() + ids.length * Long.BYTES);
+    putInts(buffer, years);
+    putInts(buffer, releaseEpochDays);
+    putInts(buffer, nameRefs);
+    putInts(buffer, castRefs);
+    names.writeTo(buffer);
+    casts.writeTo(buffer);
+  }
+
+  /**
+   * Reads a catalogue written by {@link #writeTo(ByteBuffer)}, checking it is one that could have been built: ids
+   * in order without duplicates and every string reference within its strings.
+   *
+   * @throws IllegalArgumentException or {@link BufferUnderflowException} if the buffer does not hold a catalogue
+   */
+  static MovieCatalog readFrom(ByteBuffer buffer) {
+    final int size = buffer.getInt();
+    final long[] ids = new long[checkedLength(buffer, size, Long.BYTES)];
+    buffer.asLongBuffer().get(ids);
+    buffer.position(buffer.position() + size * Long.BYTES);
+    final int[] years = getInts(buffer, size);
+    final int[] releaseEpochDays = getInts(buffer, size);
+    final int[] nameRefs = getInts(buffer, size);
+    final int[] castRefs = getInts(buffer, size);
+    final PackedStrings names = PackedStrings.readFrom(buffer);
+    final PackedStrings casts = PackedStrings.readFrom(buffer);
+    for (int row = 0; row < size; row++) {
+      if (row > 0 && ids[row] <= ids[row - 1]) {
+        throw new IllegalArgumentException("Movie ids are not in order");
+      }
+      if (!isRef(nameRefs[row], names) || !isRef(castRefs[row], casts)) {
+        throw new IllegalArgumentException("String reference out of range");
+      }
+    }
+    return new MovieCatalog(ids, years, releaseEpochDays, nameRefs, castRefs, names, casts);
+  }
+
+  private static boolean isRef(int ref, PackedStrings strings) {
+    return ref == PackedStrings.NULL || ref >= 0 && ref < strings.distinctCount();
+  }
+
+  static void putInts(ByteBuffer buffer, int[] values) {
+    buffer.asIntBuffer().put(values);
+    buffer.position(buffer.position() + values.length * Integer.BYTES);
+  }
+
+  static int[] getInts(ByteBuffer buffer, int length) {
+    final int[] values = new int[checkedLength(buffer, length, Integer.BYTES)];
+    buffer.asIntBuffer().get(values);
+    buffer.position(buffer.position() + length * Integer.BYTES);
+    return values;
+  }
+
+  /* Fails before allocating when a damaged length would read past the end of the buffer */
+  static int checkedLength(ByteBuffer buffer, int length, int elementBytes) {
+    if (length < 0 || (long) length * elementBytes > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    return length;
+  }
+
+  static long arraySize(int length, int elementBytes) {
+    // arrays are padded to a multiple of 8 bytes
+    return (ARRAY_HEADER_BYTES + (long) length * elementBytes + 7) & ~7L;
+  }
+
+  /** Collects movies into a catalogue, one at a time so that a full list never has to exist. Not thread safe. */
+  public static final class Builder {
+
+    private long[] ids = new long[64];
+    private int[] years = new int[64];
+    private int[] releaseEpochDays = new int[64];
+    private int[] nameRefs = new int[64];
+    private int[] castRefs = new int[64];
+    private final PackedStrings.Builder names = new PackedStrings.Builder();
+    private final PackedStrings.Builder casts = new PackedStrings.Builder();
+    private int size;
+    private boolean sorted = true;
+
+    private Builder() {
+    }
+
+    /** Adds a movie, which must have an id not added before. */
+    public Builder add(@NonNull Movie movie) {
+      if (movie.getMovie_id() == null) {
+        throw new IllegalArgumentException("Movies in a catalogue must have an id");
+      }
+      if (size == ids.length) {
+        grow();
+      }
+      final long id = movie.getMovie_id();
+      if (size > 0 && id <= ids[size - 1]) {
+        sorted = false;
+      }
+      ids[size] = id;
+      years[size] = movie.getYear() == null ? NO_YEAR : movie.getYear();
+      releaseEpochDays[size] = movie.getReleaseDate() == null
+          ? NO_RELEASE_DATE
+          : Math.toIntExact(movie.getReleaseDate().toEpochDay());
+      nameRefs[size] = names.add(movie.getName());
+      castRefs[size] = casts.add(movie.getCast());
+      size++;
+      return this;
+    }
+
+    public MovieCatalog build() {
+      final long[] catalogIds = Arrays.copyOf(ids, size);
+      if (!sorted) {
+        Arrays.sort(catalogIds);
+      }
+      for (int row = 1; row < size; row++) {
+        if (catalogIds[row] == catalogIds[row - 1]) {
+          throw new IllegalArgumentException("Duplicate movie id " + catalogIds[row] + " in catalogue");
+        }
+      }
+      // ids are unique, so the position of each in the sorted ids is the row its movie moves to
+      final int[] order = sorted ? null : new int[size];
+      if (order != null) {
+        for (int row = 0; row < size; row++) {
+          order[Arrays.binarySearch(catalogIds, ids[row])] = row;
+        }
+      }
+      return new MovieCatalog(catalogIds, permute(years, order), permute(releaseEpochDays, order),
+          permute(nameRefs, order), permute(castRefs, order), names.build(), casts.build());
+    }
+
+    private void grow() {
+      final int capacity = ids.length * 2;
+      ids = Arrays.copyOf(ids, capacity);
+      years = Arrays.copyOf(years, capacity);
+      releaseEpochDays = Arrays.copyOf(releaseEpochDays, capacity);
+      nameRefs = Arrays.copyOf(nameRefs, capacity);
+      castRefs = Arrays.copyOf(castRefs, capacity);
+    }
+
+    private int[] permute(int[] column, int[] order) {
+      final int[] permuted = new int[size];
+      for (int row = 0; row < size; row++) {
+        permuted[row] = column[order == null ? row : order[row]];
+      }
+      return permuted;
+    }
+  }
+}
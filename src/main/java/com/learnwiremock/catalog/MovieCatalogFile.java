@@ -0,0 +1,111 @@
+package com.learnwiremock.catalog;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import lombok.NonNull;
+
+/**
+ * Stores a {@link MovieCatalog} in a file, so that a restarted service has its catalogue without downloading it. The
+ * file is a fixed header followed by the catalogue's columns as written by {@link MovieCatalog#writeTo(ByteBuffer)},
+ * little-endian:
+ *
+ * <pre>
+ * magic "MVCT" | format version | reserved, 0 | payload length (long) | payload CRC-32 | payload
+ * </pre>
+ *
+ * <p>Files are read through a memory mapping, and each column is copied into its array in one bulk copy rather than
+ * decoded value by value. Files are written to a temporary file which then replaces the target, so a reader never
+ * sees a partly written catalogue.
+ */
+public final class MovieCatalogFile {
+
+  /** The format this class writes, and the only one it reads */
+  public static final int FORMAT_VERSION = 1;
+
+  private static final int MAGIC = 0x4D564354;
+  private static final int HEADER_BYTES = 24;
+
+  private MovieCatalogFile() {
+  }
+
+  public static void write(@NonNull MovieCatalog catalog, @NonNull Path file) throws IOException {
+    final long payloadLength = catalog.serializedSize();
+    final Path temporary = Files.createTempFile(
+        file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + payloadLength);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(HEADER_BYTES);
+        catalog.writeTo(buffer);
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.flip().position(HEADER_BYTES));
+        buffer.putInt(0, MAGIC)
+            .putInt(4, FORMAT_VERSION)
+            .putInt(8, 0)
+            .putLong(12, payloadLength)
+            .putInt(20, (int) crc.getValue());
+        buffer.force();
+      }
+      moveReplacing(temporary, file);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * @throws IOException if the file cannot be read, is of another format version, or is damaged
+   */
+  public static MovieCatalog read(@NonNull Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long fileLength = channel.size();
+      if (fileLength < HEADER_BYTES) {
+        throw new IOException("Movie catalogue file " + file + " is too short for its header");
+      }
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileLength);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      if (buffer.getInt(0) != MAGIC) {
+        throw new IOException(file + " is not a movie catalogue file");
+      }
+      if (buffer.getInt(4) != FORMAT_VERSION) {
+        throw new IOException("Movie catalogue file " + file + " has format version " + buffer.getInt(4)
+            + ", expected " + FORMAT_VERSION);
+      }
+      if (buffer.getLong(12) != fileLength - HEADER_BYTES) {
+        throw new IOException("Movie catalogue file " + file + " is truncated");
+      }
+      final CRC32 crc = new CRC32();
+      crc.update(buffer.position(HEADER_BYTES));
+      if ((int) crc.getValue() != buffer.getInt(20)) {
+        throw new IOException("Movie catalogue file " + file + " does not match its checksum");
+      }
+      buffer.position(HEADER_BYTES);
+      final MovieCatalog catalog = MovieCatalog.readFrom(buffer);
+      if (buffer.hasRemaining()) {
+        throw new IOException("Movie catalogue file " + file + " has data after its catalogue");
+      }
+      return catalog;
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      // only a file which was damaged in a way the checksum cannot tell gets here
+      throw new IOException("Movie catalogue file " + file + " does not hold a valid catalogue", e);
+    }
+  }
+
+  private static void moveReplacing(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package com.learnwiremock.catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.NonNull;
+
+/**
+ * Finds the movies of a {@link MovieCatalog} whose name contains a query, as the {@code movie_name} endpoint does:
+ * case-sensitive and anywhere in the name.
+ *
+ * <p>Every run of three characters in a name is a trigram, and the index lists the rows of the names containing
+ * each one. A name can only contain the query if it contains all of the query's trigrams, so the shortest of their
+ * lists is intersected with the others and only the rows left are checked against the name itself. Queries of
+ * fewer than three characters have no trigrams and scan every name.
+ *
+ * <p>Names are checked against the UTF-8 bytes of the query where they are packed in the catalogue, so that a scan
+ * does not create a String for every name it looks at.
+ */
+public final class MovieNameIndex {
+
+  private static final int GRAM = 3;
+  private static final int[] NO_ROWS = new int[0];
+
+  private final MovieCatalog catalog;
+  /** Every trigram found, sorted */
+  private final long[] trigrams;
+  /** The start of the rows of each trigram in {@link #rows}, followed by the end of the last */
+  private final int[] offsets;
+  /** Grouped by trigram, in row order within a trigram */
+  private final int[] rows;
+
+  private MovieNameIndex(MovieCatalog catalog, long[] trigrams, int[] offsets, int[] rows) {
+    this.catalog = catalog;
+    this.trigrams = trigrams;
+    this.offsets = offsets;
+    this.rows = rows;
+  }
+
+  /*
+   * Numbers the trigrams in the order they are first seen and collects (number, row) pairs packed into longs, so
+   * that a single sort groups the rows by trigram. The groups are then laid out in trigram order to search them.
+   */
+  public static MovieNameIndex of(@NonNull MovieCatalog catalog) {
+    final Map<Long, Integer> numbers = new HashMap<>();
+    long[] pairs = new long[Math.max(16, catalog.size() * 8)];
+    int pairCount = 0;
+    for (int row = 0; row < catalog.size(); row++) {
+      final long[] nameTrigrams = distinctTrigrams(catalog.nameAt(row));
+      if (pairCount + nameTrigrams.length > pairs.length) {
+        pairs = Arrays.copyOf(pairs, Math.max(pairCount + nameTrigrams.length, pairs.length * 2));
+      }
+      for (long trigram : nameTrigrams) {
+        final int number = numbers.computeIfAbsent(trigram, key -> numbers.size());
+        pairs[pairCount++] = (long) number << 32 | row;
+      }
+    }
+    Arrays.sort(pairs, 0, pairCount);
+
+    final int[] groupStarts = new int[numbers.size() + 1];
+    for (int pair = 0; pair < pairCount; pair++) {
+      groupStarts[(int) (pairs[pair] >>> 32) + 1]++;
+    }
+    for (int number = 1; number < groupStarts.length; number++) {
+      groupStarts[number] += groupStarts[number - 1];
+    }
+    final long[] trigrams = new long[numbers.size()];
+    int distinct = 0;
+    for (Long trigram : numbers.keySet()) {
+      trigrams[distinct++] = trigram;
+    }
+    Arrays.sort(trigrams);
+    final int[] offsets = new int[trigrams.length + 1];
+    final int[] rows = new int[pairCount];
+    int written = 0;
+    for (int index = 0; index < trigrams.length; index++) {
+      final int number = numbers.get(trigrams[index]);
+      for (int pair = groupStarts[number]; pair < groupStarts[number + 1]; pair++) {
+        rows[written++] = (int) pairs[pair];
+      }
+      offsets[index + 1] = written;
+    }
+    return new MovieNameIndex(catalog, trigrams, offsets, rows);
+  }
+
+  /** The catalogue rows of the movies whose name contains the query, in id order */
+  public int[] rowsContaining(@NonNull String query) {
+    final long[] queryTrigrams = distinctTrigrams(query);
+    if (queryTrigrams.length == 0) {
+      return matchingRows(null, query);
+    }
+    final int[] indexes = new int[queryTrigrams.length];
+    for (int i = 0; i < queryTrigrams.length; i++) {
+      indexes[i] = Arrays.binarySearch(trigrams, queryTrigrams[i]);
+      if (indexes[i] < 0) {
+        return NO_ROWS;
+      }
+    }
+    int shortest = 0;
+    for (int i = 1; i < indexes.length; i++) {
+      if (postingCount(indexes[i]) < postingCount(indexes[shortest])) {
+        shortest = i;
+      }
+    }
+    int[] candidates = Arrays.copyOfRange(rows, offsets[indexes[shortest]], offsets[indexes[shortest] + 1]);
+    for (int i = 0; i < indexes.length && candidates.length > 0; i++) {
+      if (i != shortest) {
+        candidates = intersect(candidates, indexes[i]);
+      }
+    }
+    return matchingRows(candidates, query);
+  }
+
+  public long sizeInBytes() {
+    return MovieCatalog.arraySize(trigrams.length, Long.BYTES)
+        + MovieCatalog.arraySize(offsets.length, Integer.BYTES)
+        + MovieCatalog.arraySize(rows.length, Integer.BYTES);
+  }
+
+  private int postingCount(int index) {
+    return offsets[index + 1] - offsets[index];
+  }
+
+  /* Both are sorted, the candidates are usually far fewer, so each is looked up in the trigram's rows */
+  private int[] intersect(int[] candidates, int index) {
+    final int[] kept = new int[candidates.length];
+    int keptCount = 0;
+    int from = offsets[index];
+    final int to = offsets[index + 1];
+    for (int candidate : candidates) {
+      final int found = Arrays.binarySearch(rows, from, to, candidate);
+      if (found >= 0) {
+        kept[keptCount++] = candidate;
+        from = found + 1;
+      } else {
+        from = -found - 1;
+      }
+    }
+    return Arrays.copyOf(kept, keptCount);
+  }
+
+  /*
+   * Checks the names of the candidates, or of every row when there are none to narrow it down. Half of a surrogate
+   * pair has no UTF-8 encoding of its own, so queries with surrogates are compared with the decoded names instead.
+   */
+  private int[] matchingRows(int[] candidates, String query) {
+    final byte[] utf8 = hasSurrogate(query) ? null : query.getBytes(StandardCharsets.UTF_8);
+    final int count = candidates == null ? catalog.size() : candidates.length;
+    final int[] matching = new int[count];
+    int matchingCount = 0;
+    for (int i = 0; i < count; i++) {
+      final int row = candidates == null ? i : candidates[i];
+      if (utf8 == null ? decodedNameContains(row, query) : catalog.nameContains(row, utf8)) {
+        matching[matchingCount++] = row;
+      }
+    }
+    return Arrays.copyOf(matching, matchingCount);
+  }
+
+  private boolean decodedNameContains(int row, String query) {
+    final String name = catalog.nameAt(row);
+    return name != null && name.contains(query);
+  }
+
+  private static boolean hasSurrogate(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (Character.isSurrogate(value.charAt(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /* Three UTF-16 chars packed into the low 48 bits, sorted and without repeats */
+  private static long[] distinctTrigrams(String value) {
+    if (value == null || value.length() < GRAM) {
+      return new long[0];
+    }
+    final long[] found = new long[value.length() - GRAM + 1];
+    for (int i = 0; i < found.length; i++) {
+      found[i] = (long) value.charAt(i) << 32 | (long) value.charAt(i + 1) << 16 | value.charAt(i + 2);
+    }
+    Arrays.sort(found);
+    int distinct = 0;
+    for (int i = 0; i < found.length; i++) {
+      if (i == 0 || found[i] != found[i - 1]) {
+        found[distinct++] = found[i];
+      }
+    }
+    return Arrays.copyOf(found, distinct);
+  }
+}
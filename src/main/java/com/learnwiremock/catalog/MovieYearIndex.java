@@ -0,0 +1,105 @@
+package com.learnwiremock.catalog;
+
+import com.learnwiremock.constants.MoviesAppConstants;
+import java.util.Arrays;
+import lombok.NonNull;
+
+/**
+ * The rows of a {@link MovieCatalog} grouped by year, as one array of rows with the start of each year's group kept
+ * by year. Years before {@link MoviesAppConstants#YEAR_OF_FIRST_MOVIE_EVER_MADE} cannot be a movie's, so movies with
+ * such a year, or none, are left out and no lookup finds them.
+ *
+ * <p>Only years up to {@link #LAST_DENSE_YEAR} are kept by year, so that a single bad record far in the future
+ * cannot blow up the index. The odd movie with a later year is kept in a sorted array of its own instead.
+ */
+public final class MovieYearIndex {
+
+  /** The last year whose rows are found by their offset, later years are searched for */
+  public static final int LAST_DENSE_YEAR = 9999;
+
+  private static final int FIRST_YEAR = MoviesAppConstants.YEAR_OF_FIRST_MOVIE_EVER_MADE;
+
+  /** The start of each year's rows in {@link #rows}, from the first year on, followed by the end of the last */
+  private final int[] offsets;
+  /** Grouped by year, in id order within a year */
+  private final int[] rows;
+  /** Movies made after {@link #LAST_DENSE_YEAR}, as the year in the high and the row in the low half, sorted */
+  private final long[] laterRows;
+
+  private MovieYearIndex(int[] offsets, int[] rows, long[] laterRows) {
+    this.offsets = offsets;
+    this.rows = rows;
+    this.laterRows = laterRows;
+  }
+
+  public static MovieYearIndex of(@NonNull MovieCatalog catalog) {
+    int lastYear = FIRST_YEAR - 1;
+    int later = 0;
+    for (int row = 0; row < catalog.size(); row++) {
+      final int year = catalog.yearAt(row);
+      if (year > LAST_DENSE_YEAR) {
+        later++;
+      } else {
+        lastYear = Math.max(lastYear, year);
+      }
+    }
+    // counts each year's movies one slot ahead, so that summing them up leaves each year's start in its own slot
+    final int[] offsets = new int[lastYear - FIRST_YEAR + 2];
+    final long[] laterRows = new long[later];
+    int indexed = 0;
+    later = 0;
+    for (int row = 0; row < catalog.size(); row++) {
+      final int year = catalog.yearAt(row);
+      if (year > LAST_DENSE_YEAR) {
+        laterRows[later++] = (long) year << Integer.SIZE | row;
+      } else if (year >= FIRST_YEAR) {
+        offsets[year - FIRST_YEAR + 1]++;
+        indexed++;
+      }
+    }
+    for (int slot = 1; slot < offsets.length; slot++) {
+      offsets[slot] += offsets[slot - 1];
+    }
+    final int[] rows = new int[indexed];
+    final int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+    for (int row = 0; row < catalog.size(); row++) {
+      final int year = catalog.yearAt(row);
+      if (year >= FIRST_YEAR && year <= LAST_DENSE_YEAR) {
+        rows[next[year - FIRST_YEAR]++] = row;
+      }
+    }
+    Arrays.sort(laterRows);
+    return new MovieYearIndex(offsets, rows, laterRows);
+  }
+
+  /** The catalogue rows of the movies made in the year, in id order */
+  public int[] rowsOf(int year) {
+    if (year > LAST_DENSE_YEAR) {
+      return laterRowsOf(year);
+    }
+    if (year < FIRST_YEAR || year - FIRST_YEAR >= offsets.length - 1) {
+      return new int[0];
+    }
+    return Arrays.copyOfRange(rows, offsets[year - FIRST_YEAR], offsets[year - FIRST_YEAR + 1]);
+  }
+
+  public long sizeInBytes() {
+    return MovieCatalog.arraySize(offsets.length, Integer.BYTES) + MovieCatalog.arraySize(rows.length, Integer.BYTES)
+        + MovieCatalog.arraySize(laterRows.length, Long.BYTES);
+  }
+
+  /* Rows are non-negative, so the year's first entry sorts right after the year with no row */
+  private int[] laterRowsOf(int year) {
+    final int search = Arrays.binarySearch(laterRows, (long) year << Integer.SIZE);
+    final int from = search < 0 ? -search - 1 : search;
+    int to = from;
+    while (to < laterRows.length && (int) (laterRows[to] >>> Integer.SIZE) == year) {
+      to++;
+    }
+    final int[] found = new int[to - from];
+    for (int i = from; i < to; i++) {
+      found[i - from] = (int) laterRows[i];
+    }
+    return found;
+  }
+}
@@ -0,0 +1,166 @@
+package com.learnwiremock.catalog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Distinct strings stored back to back as UTF-8 in one byte array, referenced by index. Saves the object header,
+ * length and padding of a {@link String} and its array per value, and stores repeated values once.
+ */
+final class PackedStrings {
+
+  /** The reference of a null value */
+  static final int NULL = -1;
+
+  private final byte[] bytes;
+  /** The start of each value in {@link #bytes}, followed by the end of the last one */
+  private final int[] offsets;
+
+  private PackedStrings(byte[] bytes, int[] offsets) {
+    this.bytes = bytes;
+    this.offsets = offsets;
+  }
+
+  String get(int ref) {
+    if (ref == NULL) {
+      return null;
+    }
+    return new String(bytes, offsets[ref], offsets[ref + 1] - offsets[ref], StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Whether the value contains a string given as UTF-8, compared in place without decoding the value. A UTF-8
+   * encoding can only be found at a character boundary of another, so this agrees with {@link String#contains}.
+   */
+  boolean contains(int ref, byte[] utf8) {
+    if (ref == NULL) {
+      return false;
+    }
+    final int last = offsets[ref + 1] - utf8.length;
+    for (int start = offsets[ref]; start <= last; start++) {
+      if (startsWith(start, utf8)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean startsWith(int start, byte[] utf8) {
+    for (int i = 0; i < utf8.length; i++) {
+      if (bytes[start + i] != utf8[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  int distinctCount() {
+    return offsets.length - 1;
+  }
+
+  long sizeInBytes() {
+    return MovieCatalog.arraySize(bytes.length, 1) + MovieCatalog.arraySize(offsets.length, Integer.BYTES);
+  }
+
+  /** The bytes {@link #writeTo(ByteBuffer)} writes */
+  long serializedSize() {
+    return Integer.BYTES * 2 + (long) offsets.length * Integer.BYTES + bytes.length;
+  }
+
+  void writeTo(ByteBuffer buffer) {
+    buffer.putInt(offsets.length);
+    buffer.putInt(bytes.length);
+    MovieCatalog.putInts(buffer, offsets);
+    buffer.put(bytes);
+  }
+
+  /* Checks that the offsets stay within the bytes, so that a damaged file cannot make get() fail later on */
+  static PackedStrings readFrom(ByteBuffer buffer) {
+    final int offsetCount = buffer.getInt();
+    final int byteCount = buffer.getInt();
+    final int[] offsets = MovieCatalog.getInts(buffer, offsetCount);
+    final byte[] bytes = new byte[MovieCatalog.checkedLength(buffer, byteCount, 1)];
+    buffer.get(bytes);
+    if (offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != bytes.length) {
+      throw new IllegalArgumentException("String offsets do not match the string bytes");
+    }
+    for (int ref = 1; ref < offsets.length; ref++) {
+      if (offsets[ref] < offsets[ref - 1]) {
+        throw new IllegalArgumentException("String offsets are out of order");
+      }
+    }
+    return new PackedStrings(bytes, offsets);
+  }
+
+  /**
+   * Interns values while a catalogue is built, it is not thread safe. Values already added are found through an open
+   * addressing table of references hashed on their UTF-8 bytes, so no {@link String} is kept for any of them and
+   * interning costs the builder about eight bytes per distinct value on top of the bytes themselves.
+   */
+  static final class Builder {
+
+    private byte[] bytes = new byte[1024];
+    private int length;
+    private int[] offsets = new int[64];
+    private int count;
+    /** Each slot holds a reference plus one, zero marks an empty slot. Kept at most half full. */
+    private int[] table = new int[128];
+
+    int add(String value) {
+      if (value == null) {
+        return NULL;
+      }
+      final byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+      final int mask = table.length - 1;
+      int slot = hash(encoded, 0, encoded.length) & mask;
+      for (int entry = table[slot]; entry != 0; entry = table[slot]) {
+        final int ref = entry - 1;
+        if (Arrays.equals(bytes, offsets[ref], offsets[ref + 1], encoded, 0, encoded.length)) {
+          return ref;
+        }
+        slot = (slot + 1) & mask;
+      }
+      final int ref = count++;
+      if (length + encoded.length > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(length + encoded.length, bytes.length * 2));
+      }
+      System.arraycopy(encoded, 0, bytes, length, encoded.length);
+      length += encoded.length;
+      if (ref + 2 > offsets.length) {
+        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+      }
+      offsets[ref + 1] = length;
+      table[slot] = ref + 1;
+      if (2 * count > table.length) {
+        rehash();
+      }
+      return ref;
+    }
+
+    PackedStrings build() {
+      return new PackedStrings(Arrays.copyOf(bytes, length), Arrays.copyOf(offsets, count + 1));
+    }
+
+    private void rehash() {
+      table = new int[table.length * 2];
+      final int mask = table.length - 1;
+      for (int ref = 0; ref < count; ref++) {
+        int slot = hash(bytes, offsets[ref], offsets[ref + 1]) & mask;
+        while (table[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        table[slot] = ref + 1;
+      }
+    }
+
+    /* FNV-1a, spread so that the low bits used as the slot depend on every byte */
+    private static int hash(byte[] values, int from, int to) {
+      int hash = 0x811c9dc5;
+      for (int i = from; i < to; i++) {
+        hash = (hash ^ values[i]) * 0x01000193;
+      }
+      return hash ^ (hash >>> 16);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.learnwiremock.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.learnwiremock.dto.Movie;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * The Jackson configuration movies are encoded and decoded with. On top of the Spring defaults, Afterburner replaces
+ * reflective property access with generated accessors, and each mapper is warmed up with a {@link Movie} round trip
+ * so that the first call does not pay for introspection and accessor generation.
+ */
+public final class MovieJson {
+
+  private MovieJson() {
+  }
+
+  /**
+   * The mapper shared by clients which are not given their own. It must not be reconfigured, as that would affect
+   * every client sharing it; use {@link #newObjectMapper()} for one to customise.
+   */
+  public static ObjectMapper objectMapper() {
+    return SharedObjectMapper.INSTANCE;
+  }
+
+  /** Creates a new tuned and warmed up mapper. */
+  public static ObjectMapper newObjectMapper() {
+    return tune(Jackson2ObjectMapperBuilder.json());
+  }
+
+  /* Shared with the other formats, which only differ in the factory the builder was created for */
+  static ObjectMapper tune(Jackson2ObjectMapperBuilder builder) {
+    final ObjectMapper objectMapper = builder
+        .modulesToInstall(new AfterburnerModule())
+        .featuresToDisable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+        .build();
+    warmUp(objectMapper);
+    return objectMapper;
+  }
+
+  /* Resolves and caches the Movie serializer and deserializer, generating their accessors */
+  private static void warmUp(ObjectMapper objectMapper) {
+    final Movie movie = new Movie("Christian Bale", 1L, "Batman Begins", LocalDate.of(2005, 6, 15), 2005);
+    try {
+      objectMapper.readerFor(Movie.class).readValue(objectMapper.writeValueAsBytes(movie));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not warm up the movie object mapper", e);
+    }
+  }
+
+  private static final class SharedObjectMapper {
+
+    private static final ObjectMapper INSTANCE = newObjectMapper();
+  }
+}
@@ -0,0 +1,33 @@
+package com.learnwiremock.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * The Jackson configuration for movies in the Smile binary format, tuned like {@link MovieJson}. Smile encodes the
+ * same data model as JSON, but field names repeated across array elements are back-referenced and numbers are
+ * binary, so the same list is smaller and cheaper to parse.
+ */
+public final class MovieSmile {
+
+  public static final MediaType MEDIA_TYPE = new MediaType("application", "x-jackson-smile");
+
+  private MovieSmile() {
+  }
+
+  /** The mapper shared by clients negotiating Smile. It must not be reconfigured. */
+  public static ObjectMapper objectMapper() {
+    return SharedObjectMapper.INSTANCE;
+  }
+
+  /** Creates a new tuned and warmed up Smile mapper. */
+  public static ObjectMapper newObjectMapper() {
+    return MovieJson.tune(Jackson2ObjectMapperBuilder.smile());
+  }
+
+  private static final class SharedObjectMapper {
+
+    private static final ObjectMapper INSTANCE = newObjectMapper();
+  }
+}
@@ -32,4 +32,8 @@ public class Movie {
     this.releaseDate = releaseDate;
     this.year = year;
   }
+
+  public Movie(Movie other) {
+    this(other.cast, other.movie_id, other.name, other.releaseDate, other.year);
+  }
 }
@@ -0,0 +1,42 @@
+package com.learnwiremock.dto;
+
+import com.learnwiremock.exception.MovieErrorResponse;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * The outcome for a single item of a batch operation, so that one failed item does not fail the whole batch.
+ *
+ * @param <K> the item the result is for, such as the requested movie id
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class MovieBatchResult<K> {
+
+  K key;
+  /** The movie returned by the service, null on failure */
+  Movie movie;
+  /** The failure for this item, null on success */
+  MovieErrorResponse error;
+
+  public static <K> MovieBatchResult<K> success(K key, Movie movie) {
+    return new MovieBatchResult<>(key, movie, null);
+  }
+
+  public static <K> MovieBatchResult<K> failure(K key, MovieErrorResponse error) {
+    return new MovieBatchResult<>(key, null, error);
+  }
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+
+  public boolean isNotFound() {
+    return error != null && Integer.valueOf(404).equals(error.getStatusCode());
+  }
+
+  public boolean isServerError() {
+    return error != null && error.getStatusCode() != null && error.getStatusCode() >= 500;
+  }
+}
@@ -0,0 +1,11 @@
+package com.learnwiremock.exception;
+
+import java.time.Duration;
+
+/** The deadline passed while the response body was being read and decoded */
+public class BodyDecodeDeadlineExceededException extends MovieDeadlineExceededException {
+
+  public BodyDecodeDeadlineExceededException(String operation, Duration deadline) {
+    super(operation, deadline, "decoding the response body");
+  }
+}
@@ -0,0 +1,9 @@
+package com.learnwiremock.exception;
+
+/** Signalled without calling the movies service because the circuit breaker of the operation is open. */
+public class CircuitBreakerOpenException extends RequestRejectedException {
+
+  public CircuitBreakerOpenException(String operation) {
+    super("Circuit breaker for " + operation + " is open");
+  }
+}
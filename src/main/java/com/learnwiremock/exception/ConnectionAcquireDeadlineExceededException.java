@@ -0,0 +1,11 @@
+package com.learnwiremock.exception;
+
+import java.time.Duration;
+
+/** The deadline passed while waiting for a pooled connection, or for a new one to connect */
+public class ConnectionAcquireDeadlineExceededException extends MovieDeadlineExceededException {
+
+  public ConnectionAcquireDeadlineExceededException(String operation, Duration deadline) {
+    super(operation, deadline, "acquiring a connection");
+  }
+}
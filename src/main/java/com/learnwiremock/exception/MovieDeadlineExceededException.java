@@ -0,0 +1,26 @@
+package com.learnwiremock.exception;
+
+import java.time.Duration;
+import lombok.Getter;
+
+/**
+ * A call did not complete within its deadline. The subclasses tell which phase of the exchange the call was in when
+ * the deadline passed, this class itself is signalled when it was in none of them, e.g. queued by a limiter, backing
+ * off between retries or waiting for a lookup it was coalesced with. Frequent under load, so it has no stack trace.
+ */
+@Getter
+public class MovieDeadlineExceededException extends MovieErrorResponse {
+
+  private final String operation;
+  private final Duration deadline;
+
+  public MovieDeadlineExceededException(String operation, Duration deadline) {
+    this(operation, deadline, "before or between requests");
+  }
+
+  protected MovieDeadlineExceededException(String operation, Duration deadline, String phase) {
+    super(operation + " exceeded its deadline of " + deadline.toMillis() + "ms " + phase, null, null, null, false);
+    this.operation = operation;
+    this.deadline = deadline;
+  }
+}
@@ -4,11 +4,59 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
 
 public class MovieErrorResponse extends RuntimeException {
 
+  /** Set when the error was created without a {@link WebClientResponseException} cause */
+  private final Integer statusCode;
+  private final String responseBody;
+
   public MovieErrorResponse(String statusText, WebClientResponseException ex) {
     super(statusText, ex);
+    this.statusCode = null;
+    this.responseBody = null;
   }
 
-  public MovieErrorResponse(Exception ex) {
+  public MovieErrorResponse(Throwable ex) {
     super(ex);
+    this.statusCode = null;
+    this.responseBody = null;
+  }
+
+  /**
+   * @param writableStackTrace false for an error without a stack trace, which then does not collect suppressed
+   * exceptions either, such as the blocking caller's trace Reactor attaches, as it may be shared between calls
+   */
+  protected MovieErrorResponse(String message, Throwable cause, Integer statusCode, String responseBody,
+      boolean writableStackTrace) {
+    super(message, cause, writableStackTrace, writableStackTrace);
+    this.statusCode = statusCode;
+    this.responseBody = responseBody;
+  }
+
+  /**
+   * An error without a stack trace, for when failures are frequent enough that capturing one per failed call
+   * costs more than it helps. The cause, if any, keeps its own stack trace.
+   */
+  public static MovieErrorResponse withoutStackTrace(String message, Integer statusCode, String responseBody,
+      Throwable cause) {
+    return new MovieErrorResponse(message, cause, statusCode, responseBody, false);
+  }
+
+  /** The HTTP status the movies service responded with, or null if no response was received */
+  public Integer getStatusCode() {
+    if (statusCode != null) {
+      return statusCode;
+    }
+    return getCause() instanceof WebClientResponseException
+        ? ((WebClientResponseException) getCause()).getRawStatusCode()
+        : null;
+  }
+
+  /** The error response body, possibly truncated, or null if no response was received */
+  public String getResponseBody() {
+    if (responseBody != null) {
+      return responseBody;
+    }
+    return getCause() instanceof WebClientResponseException
+        ? ((WebClientResponseException) getCause()).getResponseBodyAsString()
+        : null;
   }
 }
@@ -0,0 +1,13 @@
+package com.learnwiremock.exception;
+
+/**
+ * The client refused to send a request, to protect the movies service or to stay within its quota. Nothing reached
+ * the service, and the same request is likely to be refused again straight away, so it is never retried. Thrown on
+ * every refused call while the client is overloaded, so it has no stack trace.
+ */
+public class RequestRejectedException extends MovieErrorResponse {
+
+  public RequestRejectedException(String message) {
+    super(message, null, null, null, false);
+  }
+}
@@ -0,0 +1,11 @@
+package com.learnwiremock.exception;
+
+import java.time.Duration;
+
+/** The deadline passed after the request was sent but before the response status and headers arrived */
+public class RequestSendDeadlineExceededException extends MovieDeadlineExceededException {
+
+  public RequestSendDeadlineExceededException(String operation, Duration deadline) {
+    super(operation, deadline, "awaiting the response");
+  }
+}
@@ -0,0 +1,92 @@
+package com.learnwiremock.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of non-negative long values. Each power of two range is split into 16 buckets, so
+ * percentiles are accurate to within about 6% of the value while the histogram stays a fixed 7.5KB.
+ */
+public class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+  private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - SUB_BUCKET_BITS - 1) * HALF_SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /** Negative values are recorded as zero */
+  public void record(long value) {
+    final long recorded = Math.max(0, value);
+    counts.incrementAndGet(bucketOf(recorded));
+    count.increment();
+    sum.add(recorded);
+    max.accumulateAndGet(recorded, Math::max);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getSum() {
+    return sum.sum();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public double getMean() {
+    final long n = getCount();
+    return n == 0 ? 0.0 : (double) getSum() / n;
+  }
+
+  /**
+   * The upper bound of the bucket holding the value at the given percentile, or zero when nothing was recorded.
+   *
+   * @param percentile between 0 and 1, e.g. 0.99
+   */
+  public long percentile(double percentile) {
+    if (percentile < 0 || percentile > 1) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 1");
+    }
+    final long n = getCount();
+    if (n == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile * n));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += counts.get(bucket);
+      if (seen >= rank) {
+        return Math.min(upperBoundOf(bucket), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    // keep the top SUB_BUCKET_BITS bits of the value, the leading one selects the half of the sub-buckets in use
+    final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    final int subBucket = (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + subBucket;
+  }
+
+  static long upperBoundOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    final int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+    final long mantissa = (bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+    final long upper = ((mantissa + 1) << shift) - 1;
+    return upper < 0 ? Long.MAX_VALUE : upper;
+  }
+}
@@ -0,0 +1,185 @@
+package com.learnwiremock.metrics;
+
+import com.learnwiremock.resilience.CircuitBreaker;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+
+/** Keeps every measurement in memory, for tests and for exporting to a monitoring system on a schedule. */
+public class InMemoryMoviesClientMetrics implements MoviesClientMetrics {
+
+  private final ConcurrentHashMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+  /** Nanoseconds from asking the pool for a connection until it was handed over */
+  @Getter
+  private final Histogram connectionAcquireTime = new Histogram();
+
+  @Override
+  public void requestStarted(String operation) {
+    operation(operation).inFlight.incrementAndGet();
+  }
+
+  @Override
+  public void requestCompleted(String operation, int statusCode, long durationNanos, long responseBytes) {
+    final OperationMetrics metrics = operation(operation);
+    metrics.inFlight.decrementAndGet();
+    metrics.latency.record(durationNanos);
+    metrics.responseSize.record(responseBytes);
+    metrics.statusCounts.computeIfAbsent(statusCode, status -> new LongAdder()).increment();
+  }
+
+  @Override
+  public void requestFailed(String operation, Throwable error, long durationNanos) {
+    final OperationMetrics metrics = operation(operation);
+    metrics.inFlight.decrementAndGet();
+    metrics.latency.record(durationNanos);
+    metrics.failures.increment();
+  }
+
+  @Override
+  public void connectionAcquired(long acquireNanos) {
+    connectionAcquireTime.record(acquireNanos);
+  }
+
+  @Override
+  public void requestRetried(String operation, int retry) {
+    operation(operation).retries.increment();
+  }
+
+  @Override
+  public void retryBudgetExhausted(String operation) {
+    operation(operation).retriesDenied.increment();
+  }
+
+  @Override
+  public void circuitBreakerStateChanged(String operation, CircuitBreaker.State from, CircuitBreaker.State to) {
+    final OperationMetrics metrics = operation(operation);
+    metrics.circuitBreakerState = to;
+    metrics.circuitBreakerTransitions.computeIfAbsent(to, state -> new LongAdder()).increment();
+  }
+
+  @Override
+  public void circuitBreakerRejected(String operation) {
+    operation(operation).circuitBreakerRejections.increment();
+  }
+
+  @Override
+  public void requestHedged(String operation) {
+    operation(operation).hedges.increment();
+  }
+
+  @Override
+  public void requestQueued(String operation, long waitNanos) {
+    operation(operation).queueTime.record(waitNanos);
+  }
+
+  @Override
+  public void requestRejected(String operation, String limiter) {
+    operation(operation).rejections.computeIfAbsent(limiter, name -> new LongAdder()).increment();
+  }
+
+  @Override
+  public void responseNotModified(String operation, long decodedBytesSaved) {
+    final OperationMetrics metrics = operation(operation);
+    metrics.notModified.increment();
+    metrics.decodedBytesSaved.add(decodedBytesSaved);
+  }
+
+  /** The metrics of the named operation, empty if it has not been called yet */
+  public OperationMetrics operation(String operation) {
+    return operations.computeIfAbsent(operation, name -> new OperationMetrics());
+  }
+
+  public Set<String> getOperationNames() {
+    return Collections.unmodifiableSet(operations.keySet());
+  }
+
+  public static final class OperationMetrics {
+
+    /** Nanoseconds from sending the request until the response body was read, or the request failed */
+    @Getter
+    private final Histogram latency = new Histogram();
+    /** Response body sizes in bytes */
+    @Getter
+    private final Histogram responseSize = new Histogram();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retriesDenied = new LongAdder();
+    /** The state the circuit breaker last changed to */
+    @Getter
+    private volatile CircuitBreaker.State circuitBreakerState = CircuitBreaker.State.CLOSED;
+    private final Map<CircuitBreaker.State, LongAdder> circuitBreakerTransitions = new ConcurrentHashMap<>();
+    private final LongAdder circuitBreakerRejections = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    /** Nanoseconds requests were held back by the rate or concurrency limiter, only counting those held back */
+    @Getter
+    private final Histogram queueTime = new Histogram();
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder decodedBytesSaved = new LongAdder();
+
+    private OperationMetrics() {
+    }
+
+    public int getInFlight() {
+      return inFlight.get();
+    }
+
+    public long getStatusCount(int statusCode) {
+      final LongAdder count = statusCounts.get(statusCode);
+      return count == null ? 0 : count.sum();
+    }
+
+    /** Requests which got no response at all, e.g. connection failures and timeouts */
+    public long getFailureCount() {
+      return failures.sum();
+    }
+
+    public long getRetryCount() {
+      return retries.sum();
+    }
+
+    /** Retryable failures which were given up on because the retry budget was spent */
+    public long getRetryBudgetExhaustedCount() {
+      return retriesDenied.sum();
+    }
+
+    /** How often the circuit breaker changed to the given state */
+    public long getCircuitBreakerTransitionCount(CircuitBreaker.State to) {
+      final LongAdder count = circuitBreakerTransitions.get(to);
+      return count == null ? 0 : count.sum();
+    }
+
+    public long getCircuitBreakerRejectedCount() {
+      return circuitBreakerRejections.sum();
+    }
+
+    public long getHedgedCount() {
+      return hedges.sum();
+    }
+
+    /** Requests refused by the named limiter, {@code rate} or {@code concurrency} */
+    public long getRejectedCount(String limiter) {
+      final LongAdder count = rejections.get(limiter);
+      return count == null ? 0 : count.sum();
+    }
+
+    /** Conditional requests answered from the validator cache after a 304 */
+    public long getNotModifiedCount() {
+      return notModified.sum();
+    }
+
+    /**
+     * Response body bytes not downloaded and decoded again thanks to 304 responses, counted once decompressed, so
+     * more than were saved on the wire when responses are compressed
+     */
+    public long getDecodedBytesSaved() {
+      return decodedBytesSaved.sum();
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.learnwiremock.metrics;
+
+import com.learnwiremock.resilience.CircuitBreaker;
+
+/**
+ * Receives measurements of every movies service call. All methods default to doing nothing so that implementations
+ * only override what they record, and {@link #NOOP} is used when no metrics are configured.
+ *
+ * <p>Operations are identified by name, such as {@code getMovieById}. Implementations are called from event loop
+ * threads and must not block.
+ */
+public interface MoviesClientMetrics {
+
+  MoviesClientMetrics NOOP = new MoviesClientMetrics() {
+  };
+
+  /** A request was sent, it is in flight until it completes or fails */
+  default void requestStarted(String operation) {
+  }
+
+  /**
+   * A response was received and its body consumed.
+   *
+   * @param durationNanos from sending the request until the last byte of the response body was read
+   * @param responseBytes the size of the response body
+   */
+  default void requestCompleted(String operation, int statusCode, long durationNanos, long responseBytes) {
+  }
+
+  /** No response was received, because the request failed or was cancelled before one arrived */
+  default void requestFailed(String operation, Throwable error, long durationNanos) {
+  }
+
+  /** A pooled connection was handed to a request, after waiting for it or connecting it for this long */
+  default void connectionAcquired(long acquireNanos) {
+  }
+
+  /** A failed request is about to be retried, {@code retry} counts from 1 */
+  default void requestRetried(String operation, int retry) {
+  }
+
+  /** A retryable failure was not retried because the retry budget was spent */
+  default void retryBudgetExhausted(String operation) {
+  }
+
+  /** The circuit breaker of the operation changed state */
+  default void circuitBreakerStateChanged(String operation, CircuitBreaker.State from, CircuitBreaker.State to) {
+  }
+
+  /** A call was failed without being sent because the circuit breaker of the operation is open */
+  default void circuitBreakerRejected(String operation) {
+  }
+
+  /** A read was sent a second time because its first request was slow to answer */
+  default void requestHedged(String operation) {
+  }
+
+  /** A request was held back by the rate or concurrency limiter for this long before it was sent */
+  default void requestQueued(String operation, long waitNanos) {
+  }
+
+  /**
+   * A request was refused by a limiter without being sent.
+   *
+   * @param limiter {@code rate} when no rate limiter token was available in time, {@code concurrency} when the
+   *     queue for the concurrency limiter was full
+   */
+  default void requestRejected(String operation, String limiter) {
+  }
+
+  /**
+   * A conditional request was answered with 304 Not Modified and the movies decoded from an earlier response were
+   * served instead.
+   *
+   * @param decodedBytesSaved the size of the body the earlier response had once decompressed, which is more than
+   *     the bytes saved on the wire when responses are compressed
+   */
+  default void responseNotModified(String operation, long decodedBytesSaved) {
+  }
+}
@@ -0,0 +1,139 @@
+package com.learnwiremock.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Limits the requests in flight to a limit found by additive increase, multiplicative decrease. Every request which
+ * is answered in good time raises the limit by about one per limit's worth of requests. An overload signal lowers
+ * it by the backoff ratio: a 429 or 503 response, no response at all, or a response slower than the latency
+ * tolerance times the average. Requests in flight together see the same overload, so the limit is lowered at most
+ * once per average latency. The limit thereby settles just below the concurrency at which the movies service
+ * starts queueing, keeping it busy without tipping it over.
+ *
+ * <p>Callers {@link #tryAcquire()} before sending a request and report its outcome once, which also releases it.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  public static final int DEFAULT_INITIAL_LIMIT = 20;
+  public static final int DEFAULT_MIN_LIMIT = 1;
+  public static final int DEFAULT_MAX_LIMIT = 200;
+  public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+  public static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+  public static final int DEFAULT_MAX_QUEUE_SIZE = 100;
+
+  /** Weight of each latency in the average, small so that the average follows load rather than single calls */
+  private static final double LATENCY_SMOOTHING = 0.05;
+
+  @Getter
+  private final int minLimit;
+  @Getter
+  private final int maxLimit;
+  @Getter
+  private final double backoffRatio;
+  @Getter
+  private final double latencyTolerance;
+  @Getter
+  private final int maxQueueSize;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  /** The fractional limit as double bits */
+  private final AtomicLong limit;
+  /** The average latency in nanoseconds as double bits, zero until the first sample */
+  private final AtomicLong averageLatency = new AtomicLong(Double.doubleToLongBits(0.0));
+  /** When the limit was last lowered, in {@link System#nanoTime()} */
+  private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+
+  /**
+   * @param initialLimit the limit before any request completed
+   * @param minLimit the limit is never lowered below this
+   * @param maxLimit the limit is never raised beyond this
+   * @param backoffRatio the factor the limit is multiplied by on overload
+   * @param latencyTolerance how many times the average latency a response may take before it signals overload
+   * @param maxQueueSize the requests which may wait for a free slot, further requests are refused
+   */
+  @Builder
+  private AdaptiveConcurrencyLimiter(Integer initialLimit, Integer minLimit, Integer maxLimit, Double backoffRatio,
+      Double latencyTolerance, Integer maxQueueSize) {
+    this.minLimit = minLimit == null ? DEFAULT_MIN_LIMIT : minLimit;
+    this.maxLimit = maxLimit == null ? DEFAULT_MAX_LIMIT : maxLimit;
+    final int initial = initialLimit == null ? Math.min(DEFAULT_INITIAL_LIMIT, this.maxLimit) : initialLimit;
+    this.backoffRatio = backoffRatio == null ? DEFAULT_BACKOFF_RATIO : backoffRatio;
+    this.latencyTolerance = latencyTolerance == null ? DEFAULT_LATENCY_TOLERANCE : latencyTolerance;
+    this.maxQueueSize = maxQueueSize == null ? DEFAULT_MAX_QUEUE_SIZE : maxQueueSize;
+    if (this.minLimit < 1 || this.maxLimit < this.minLimit || initial < this.minLimit || initial > this.maxLimit) {
+      throw new IllegalArgumentException("Concurrency limits must be at least 1 with the initial limit between the "
+          + "minimum and maximum");
+    }
+    if (this.backoffRatio <= 0 || this.backoffRatio >= 1 || this.latencyTolerance <= 1 || this.maxQueueSize < 0) {
+      throw new IllegalArgumentException("Backoff ratio must be between 0 and 1, latency tolerance above 1 and the "
+          + "queue size not negative");
+    }
+    this.limit = new AtomicLong(Double.doubleToLongBits(initial));
+  }
+
+  /** Takes a slot if fewer requests than the limit are in flight */
+  public boolean tryAcquire() {
+    while (true) {
+      final int current = inFlight.get();
+      if (current >= getLimit()) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /** A response other than an overload signal arrived after the given latency */
+  public void onResponse(long latencyNanos) {
+    inFlight.decrementAndGet();
+    final double average = Double.longBitsToDouble(averageLatency.getAndUpdate(bits -> {
+      final double current = Double.longBitsToDouble(bits);
+      return Double.doubleToLongBits(current == 0.0
+          ? latencyNanos
+          : current + LATENCY_SMOOTHING * (latencyNanos - current));
+    }));
+    if (average > 0.0 && latencyNanos > latencyTolerance * average) {
+      decrease();
+    } else {
+      updateLimit(current -> current + 1 / current);
+    }
+  }
+
+  /** The request was throttled, timed out or got no response */
+  public void onOverload() {
+    inFlight.decrementAndGet();
+    decrease();
+  }
+
+  /** The request ended without saying anything about the load of the movies service, e.g. it was cancelled */
+  public void onIgnored() {
+    inFlight.decrementAndGet();
+  }
+
+  public int getLimit() {
+    return (int) Double.longBitsToDouble(limit.get());
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  private void decrease() {
+    final long now = System.nanoTime();
+    final long last = lastDecrease.get();
+    final double average = Double.longBitsToDouble(averageLatency.get());
+    if (now - last >= average && lastDecrease.compareAndSet(last, now)) {
+      updateLimit(current -> current * backoffRatio);
+    }
+  }
+
+  private void updateLimit(DoubleUnaryOperator update) {
+    limit.getAndUpdate(bits -> Double.doubleToLongBits(
+        Math.max(minLimit, Math.min(maxLimit, update.applyAsDouble(Double.longBitsToDouble(bits))))));
+  }
+}
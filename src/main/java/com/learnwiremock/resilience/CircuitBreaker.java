@@ -0,0 +1,155 @@
+package com.learnwiremock.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.Getter;
+
+/**
+ * Stops calling an endpoint of the movies service while it is failing or slow, so callers fail at once instead of
+ * each waiting out a timeout. Closed, it records the outcome of the last calls in a sliding window and opens once
+ * the failure or slow call rate reaches its threshold. Open, it rejects every call until the open duration has
+ * passed, then lets a few calls through half open and closes or reopens depending on how they went.
+ *
+ * <p>Outcomes are recorded under a lock held for a few field updates only, rejections are decided without it.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  /** Notified of every state change, called while holding the breaker's lock so it must not block */
+  @FunctionalInterface
+  public interface StateListener {
+
+    void onStateChange(String name, State from, State to);
+  }
+
+  private static final byte SUCCESS = 0;
+  private static final byte FAILURE = 1;
+  private static final byte SLOW = 2;
+
+  @Getter
+  private final String name;
+  private final CircuitBreakerPolicy policy;
+  private final StateListener listener;
+  private final long slowCallNanos;
+  private final long openNanos;
+  private final ReentrantLock lock = new ReentrantLock();
+
+  @Getter
+  private volatile State state = State.CLOSED;
+  private volatile long openedAt;
+  /** Probing calls which may still be let through while half open */
+  private final AtomicInteger halfOpenPermits = new AtomicInteger();
+
+  /* Outcomes of the calls in the window as SUCCESS, FAILURE and SLOW flags, guarded by the lock */
+  private final byte[] window;
+  private int windowStart;
+  private int windowCalls;
+  private int windowFailures;
+  private int windowSlowCalls;
+
+  public CircuitBreaker(String name, CircuitBreakerPolicy policy, StateListener listener) {
+    this.name = name;
+    this.policy = policy;
+    this.listener = listener;
+    this.slowCallNanos = policy.getSlowCallDuration().toNanos();
+    this.openNanos = policy.getOpenDuration().toNanos();
+    this.window = new byte[Math.max(policy.getSlidingWindowSize(), policy.getHalfOpenCalls())];
+  }
+
+  /**
+   * Whether a call may go ahead. Every permitted call must be followed by {@link #onSuccess}, {@link #onError}
+   * or {@link #onCancel}.
+   */
+  public boolean tryAcquirePermission() {
+    State current = state;
+    if (current == State.OPEN) {
+      if (System.nanoTime() - openedAt < openNanos) {
+        return false;
+      }
+      lock.lock();
+      try {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+          transitionTo(State.HALF_OPEN);
+        }
+        current = state;
+      } finally {
+        lock.unlock();
+      }
+    }
+    if (current == State.HALF_OPEN) {
+      // the probing calls may have closed the breaker since its state was read
+      return halfOpenPermits.getAndUpdate(permits -> Math.max(0, permits - 1)) > 0 || state == State.CLOSED;
+    }
+    return current == State.CLOSED;
+  }
+
+  public void onSuccess(long durationNanos) {
+    record(durationNanos >= slowCallNanos ? SLOW : SUCCESS);
+  }
+
+  public void onError(long durationNanos, Throwable error) {
+    final byte outcome = policy.isFailure(error) ? FAILURE : SUCCESS;
+    record((byte) (durationNanos >= slowCallNanos ? outcome | SLOW : outcome));
+  }
+
+  /** A permitted call was cancelled before its outcome was known, so it is not recorded */
+  public void onCancel() {
+    if (state == State.HALF_OPEN) {
+      halfOpenPermits.updateAndGet(permits -> Math.min(policy.getHalfOpenCalls(), permits + 1));
+    }
+  }
+
+  private void record(byte outcome) {
+    lock.lock();
+    try {
+      if (state == State.OPEN) {
+        // a call permitted before the breaker opened, its outcome is already accounted for
+        return;
+      }
+      final int size = state == State.CLOSED ? policy.getSlidingWindowSize() : policy.getHalfOpenCalls();
+      if (windowCalls == size) {
+        final byte evicted = window[windowStart];
+        windowStart = (windowStart + 1) % size;
+        windowCalls--;
+        windowFailures -= evicted & FAILURE;
+        windowSlowCalls -= (evicted & SLOW) >> 1;
+      }
+      window[(windowStart + windowCalls) % size] = outcome;
+      windowCalls++;
+      windowFailures += outcome & FAILURE;
+      windowSlowCalls += (outcome & SLOW) >> 1;
+
+      final int required = state == State.CLOSED ? policy.getMinimumCalls() : size;
+      if (windowCalls < required) {
+        return;
+      }
+      if (windowFailures >= policy.getFailureRateThreshold() * windowCalls
+          || windowSlowCalls >= policy.getSlowCallRateThreshold() * windowCalls) {
+        transitionTo(State.OPEN);
+      } else if (state == State.HALF_OPEN) {
+        transitionTo(State.CLOSED);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /* Called holding the lock, every state starts with an empty window */
+  private void transitionTo(State next) {
+    final State previous = state;
+    windowStart = 0;
+    windowCalls = 0;
+    windowFailures = 0;
+    windowSlowCalls = 0;
+    if (next == State.OPEN) {
+      openedAt = System.nanoTime();
+    } else if (next == State.HALF_OPEN) {
+      halfOpenPermits.set(policy.getHalfOpenCalls());
+    }
+    state = next;
+    listener.onStateChange(name, previous, next);
+  }
+}
@@ -0,0 +1,75 @@
+package com.learnwiremock.resilience;
+
+import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.exception.RequestRejectedException;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Getter;
+
+/** When a {@link CircuitBreaker} opens, and how it probes the movies service before closing again. */
+@Getter
+public class CircuitBreakerPolicy {
+
+  public static final int DEFAULT_SLIDING_WINDOW_SIZE = 20;
+  public static final int DEFAULT_MINIMUM_CALLS = 10;
+  public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+  public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+  public static final Duration DEFAULT_SLOW_CALL_DURATION = Duration.ofSeconds(2);
+  public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(10);
+  public static final int DEFAULT_HALF_OPEN_CALLS = 3;
+
+  private final int slidingWindowSize;
+  private final int minimumCalls;
+  private final double failureRateThreshold;
+  private final double slowCallRateThreshold;
+  private final Duration slowCallDuration;
+  private final Duration openDuration;
+  private final int halfOpenCalls;
+
+  /**
+   * @param slidingWindowSize the number of most recent calls the failure and slow call rates are taken over
+   * @param minimumCalls the calls needed in the window before the rates are acted on
+   * @param failureRateThreshold the fraction of failed calls at which the breaker opens
+   * @param slowCallRateThreshold the fraction of slow calls at which the breaker opens, whether or not they failed
+   * @param slowCallDuration calls taking at least this long are slow
+   * @param openDuration how long calls are rejected before the movies service is probed again
+   * @param halfOpenCalls the number of probing calls let through, whose rates decide between closing and reopening
+   */
+  @Builder
+  private CircuitBreakerPolicy(Integer slidingWindowSize, Integer minimumCalls, Double failureRateThreshold,
+      Double slowCallRateThreshold, Duration slowCallDuration, Duration openDuration, Integer halfOpenCalls) {
+    this.slidingWindowSize = slidingWindowSize == null ? DEFAULT_SLIDING_WINDOW_SIZE : slidingWindowSize;
+    this.minimumCalls = minimumCalls == null ? Math.min(DEFAULT_MINIMUM_CALLS, this.slidingWindowSize) : minimumCalls;
+    this.failureRateThreshold = failureRateThreshold == null ? DEFAULT_FAILURE_RATE_THRESHOLD : failureRateThreshold;
+    this.slowCallRateThreshold = slowCallRateThreshold == null
+        ? DEFAULT_SLOW_CALL_RATE_THRESHOLD
+        : slowCallRateThreshold;
+    this.slowCallDuration = slowCallDuration == null ? DEFAULT_SLOW_CALL_DURATION : slowCallDuration;
+    this.openDuration = openDuration == null ? DEFAULT_OPEN_DURATION : openDuration;
+    this.halfOpenCalls = halfOpenCalls == null ? DEFAULT_HALF_OPEN_CALLS : halfOpenCalls;
+    if (this.slidingWindowSize < 1 || this.minimumCalls < 1 || this.minimumCalls > this.slidingWindowSize
+        || this.halfOpenCalls < 1) {
+      throw new IllegalArgumentException("Circuit breaker needs a window of at least one call, minimum calls within "
+          + "the window and at least one half open call");
+    }
+    if (!isRate(this.failureRateThreshold) || !isRate(this.slowCallRateThreshold)) {
+      throw new IllegalArgumentException("Circuit breaker thresholds must be between 0 and 1");
+    }
+  }
+
+  private static boolean isRate(double rate) {
+    return rate > 0 && rate <= 1;
+  }
+
+  /**
+   * Whether the error says the movies service is unhealthy: no response at all or a 5xx. Client errors show a
+   * healthy service and count as successful calls.
+   */
+  public boolean isFailure(Throwable error) {
+    if (!(error instanceof MovieErrorResponse) || error instanceof RequestRejectedException) {
+      return false;
+    }
+    final Integer statusCode = ((MovieErrorResponse) error).getStatusCode();
+    return statusCode == null || statusCode >= 500;
+  }
+}
@@ -0,0 +1,58 @@
+package com.learnwiremock.resilience;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * When a read which has not been answered yet is sent a second time, taking whichever answer arrives first. The
+ * delay follows a percentile of recent latencies so that only the slowest calls are hedged, and the number of
+ * hedges is capped to a fraction of the calls so that a slow server is not sent twice the load.
+ */
+@Getter
+public class HedgingPolicy {
+
+  public static final double DEFAULT_PERCENTILE = 0.95;
+  public static final Duration DEFAULT_MIN_DELAY = Duration.ofMillis(5);
+  public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(1);
+  public static final int DEFAULT_MIN_SAMPLES = 20;
+  public static final double DEFAULT_MAX_HEDGE_RATIO = 0.1;
+  public static final Duration DEFAULT_LATENCY_WINDOW = Duration.ofSeconds(30);
+
+  private final double percentile;
+  private final Duration minDelay;
+  private final Duration maxDelay;
+  private final int minSamples;
+  private final double maxHedgeRatio;
+  private final Duration latencyWindow;
+
+  /**
+   * @param percentile the latency percentile after which a call is hedged, 0.95 hedges the slowest 5% of calls
+   * @param minDelay the shortest delay before hedging, however fast calls have been
+   * @param maxDelay the longest delay before hedging, however slow calls have been
+   * @param minSamples the calls which must have completed before the percentile is trusted, nothing is hedged before
+   * @param maxHedgeRatio the most hedges as a fraction of calls
+   * @param latencyWindow how long latencies and hedges are counted for, the delay and the cap follow the calls made
+   *     within the last one to two windows
+   */
+  @Builder
+  private HedgingPolicy(Double percentile, Duration minDelay, Duration maxDelay, Integer minSamples,
+      Double maxHedgeRatio, Duration latencyWindow) {
+    this.percentile = percentile == null ? DEFAULT_PERCENTILE : percentile;
+    this.minDelay = minDelay == null ? DEFAULT_MIN_DELAY : minDelay;
+    this.maxDelay = maxDelay == null ? DEFAULT_MAX_DELAY : maxDelay;
+    this.minSamples = minSamples == null ? DEFAULT_MIN_SAMPLES : minSamples;
+    this.maxHedgeRatio = maxHedgeRatio == null ? DEFAULT_MAX_HEDGE_RATIO : maxHedgeRatio;
+    this.latencyWindow = latencyWindow == null ? DEFAULT_LATENCY_WINDOW : latencyWindow;
+    if (this.percentile <= 0 || this.percentile >= 1 || this.maxHedgeRatio < 0 || this.maxHedgeRatio > 1) {
+      throw new IllegalArgumentException("Hedging percentile must be between 0 and 1 exclusive and the hedge ratio "
+          + "between 0 and 1");
+    }
+    if (this.minDelay.compareTo(this.maxDelay) > 0) {
+      throw new IllegalArgumentException("Hedging minimum delay must not exceed the maximum delay");
+    }
+    if (this.latencyWindow.isZero() || this.latencyWindow.isNegative()) {
+      throw new IllegalArgumentException("Hedging latency window must be positive");
+    }
+  }
+}
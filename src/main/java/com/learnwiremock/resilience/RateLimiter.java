@@ -0,0 +1,72 @@
+package com.learnwiremock.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Token bucket keeping requests within a quota of the movies service. Up to {@code burst} requests go ahead at once,
+ * after which requests are spaced out to the permitted rate. A request which would have to wait longer than the
+ * maximum wait is refused instead. Share one limiter between clients to keep them within one quota.
+ *
+ * <p>Kept as the time at which the bucket will be full again rather than as a token count, so that a single
+ * compare-and-set both takes a token and refills the bucket.
+ */
+public class RateLimiter {
+
+  public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(1);
+
+  @Getter
+  private final double permitsPerSecond;
+  @Getter
+  private final int burst;
+  @Getter
+  private final Duration maxWait;
+  private final long intervalNanos;
+  private final long burstNanos;
+  private final long maxWaitNanos;
+  /** When the bucket will have refilled completely, in {@link System#nanoTime()} */
+  private final AtomicLong fullAt = new AtomicLong(System.nanoTime());
+
+  /**
+   * @param permitsPerSecond the sustained rate requests are let through at
+   * @param burst the requests which may go ahead at once after a quiet period, 1 when not set
+   * @param maxWait the longest a request waits for a token before it is refused
+   */
+  @Builder
+  private RateLimiter(double permitsPerSecond, Integer burst, Duration maxWait) {
+    this.permitsPerSecond = permitsPerSecond;
+    this.burst = burst == null ? 1 : burst;
+    this.maxWait = maxWait == null ? DEFAULT_MAX_WAIT : maxWait;
+    if (permitsPerSecond <= 0 || this.burst < 1 || this.maxWait.isNegative()) {
+      throw new IllegalArgumentException("Rate limiter needs a positive rate, a burst of at least one request and "
+          + "a maximum wait which is not negative");
+    }
+    this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+    this.burstNanos = intervalNanos * this.burst;
+    this.maxWaitNanos = this.maxWait.toNanos();
+  }
+
+  /**
+   * Takes a token, possibly one which is only available in the future.
+   *
+   * @return the nanoseconds to wait before the request may go ahead, or -1 if that would exceed the maximum wait
+   *     and no token was taken
+   */
+  public long reserve() {
+    while (true) {
+      final long now = System.nanoTime();
+      final long current = fullAt.get();
+      // a bucket which filled up in the past holds no more than burst tokens
+      final long next = Math.max(current, now) + intervalNanos;
+      final long wait = next - burstNanos - now;
+      if (wait > maxWaitNanos) {
+        return -1;
+      }
+      if (fullAt.compareAndSet(current, next)) {
+        return Math.max(0, wait);
+      }
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.learnwiremock.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Caps retries to a fraction of the requests made, so that when the server struggles and most calls fail the client
+ * adds at most that fraction of extra load instead of multiplying it by the number of attempts. Each request earns
+ * part of a retry and each retry spends a whole one. Share one budget between clients to cap them together.
+ */
+public class RetryBudget {
+
+  public static final double DEFAULT_RATIO = 0.2;
+  public static final int DEFAULT_MAX_RETRIES = 10;
+
+  /** Balances are kept in thousandths of a retry so that fractional deposits add up exactly */
+  private static final long SCALE = 1000;
+
+  @Getter
+  private final double ratio;
+  @Getter
+  private final int maxRetries;
+  private final long depositPerRequest;
+  private final long maxBalance;
+  private final AtomicLong balance;
+
+  /**
+   * @param ratio the retries earned per request, 0.2 allows one retry for every five requests
+   * @param maxRetries the most retries that can be saved up, which is also the starting balance so that a client
+   *     with little traffic can still retry
+   */
+  @Builder
+  private RetryBudget(Double ratio, Integer maxRetries) {
+    this.ratio = ratio == null ? DEFAULT_RATIO : ratio;
+    this.maxRetries = maxRetries == null ? DEFAULT_MAX_RETRIES : maxRetries;
+    if (this.ratio < 0 || this.maxRetries < 0) {
+      throw new IllegalArgumentException("Retry budget ratio and maximum retries must not be negative");
+    }
+    this.depositPerRequest = Math.round(this.ratio * SCALE);
+    this.maxBalance = this.maxRetries * SCALE;
+    this.balance = new AtomicLong(maxBalance);
+  }
+
+  /** Called once per request, before its first attempt */
+  public void recordRequest() {
+    if (depositPerRequest > 0) {
+      balance.accumulateAndGet(depositPerRequest, (current, deposit) -> Math.min(maxBalance, current + deposit));
+    }
+  }
+
+  /** Spends one retry if the budget has one left */
+  public boolean tryAcquireRetry() {
+    while (true) {
+      final long current = balance.get();
+      if (current < SCALE) {
+        return false;
+      }
+      if (balance.compareAndSet(current, current - SCALE)) {
+        return true;
+      }
+    }
+  }
+
+  public double getAvailableRetries() {
+    return (double) balance.get() / SCALE;
+  }
+}
@@ -0,0 +1,77 @@
+package com.learnwiremock.resilience;
+
+import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.exception.RequestRejectedException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.core.codec.CodecException;
+
+/**
+ * When and how often idempotent calls are retried: failures without a response, 429 and 5xx responses are retried
+ * with exponentially growing, jittered backoff for as long as attempts and the {@link RetryBudget} allow.
+ */
+@Getter
+public class RetryPolicy {
+
+  public static final int DEFAULT_MAX_ATTEMPTS = 3;
+  public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(50);
+  public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(2);
+  public static final double DEFAULT_MULTIPLIER = 2.0;
+  public static final double DEFAULT_JITTER = 0.5;
+
+  private static final int TOO_MANY_REQUESTS = 429;
+
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final double multiplier;
+  private final double jitter;
+  private final RetryBudget retryBudget;
+
+  /**
+   * @param maxAttempts the attempts made in total, including the first
+   * @param initialBackoff the delay before the first retry
+   * @param maxBackoff the longest delay between attempts
+   * @param multiplier how much the delay grows with every retry
+   * @param jitter the fraction of each delay which is randomised away, between 0 and 1, so that callers which
+   *     failed together do not retry together
+   * @param retryBudget caps retries across all calls using this policy
+   */
+  @Builder
+  private RetryPolicy(Integer maxAttempts, Duration initialBackoff, Duration maxBackoff, Double multiplier,
+      Double jitter, RetryBudget retryBudget) {
+    this.maxAttempts = maxAttempts == null ? DEFAULT_MAX_ATTEMPTS : maxAttempts;
+    this.initialBackoff = initialBackoff == null ? DEFAULT_INITIAL_BACKOFF : initialBackoff;
+    this.maxBackoff = maxBackoff == null ? DEFAULT_MAX_BACKOFF : maxBackoff;
+    this.multiplier = multiplier == null ? DEFAULT_MULTIPLIER : multiplier;
+    this.jitter = jitter == null ? DEFAULT_JITTER : jitter;
+    this.retryBudget = retryBudget == null ? RetryBudget.builder().build() : retryBudget;
+    if (this.maxAttempts < 1 || this.multiplier < 1 || this.jitter < 0 || this.jitter > 1) {
+      throw new IllegalArgumentException("Retry policy needs at least one attempt, a multiplier of at least 1 "
+          + "and a jitter between 0 and 1");
+    }
+  }
+
+  /** Whether the failure is worth another attempt, leaving attempts and the budget aside */
+  public boolean isRetryable(Throwable error) {
+    if (!(error instanceof MovieErrorResponse) || error instanceof RequestRejectedException) {
+      return false;
+    }
+    final Integer statusCode = ((MovieErrorResponse) error).getStatusCode();
+    if (statusCode == null) {
+      // an undecodable response would fail the same way again
+      return !(error.getCause() instanceof CodecException);
+    }
+    return statusCode == TOO_MANY_REQUESTS || statusCode >= 500;
+  }
+
+  /** The delay before the given retry, counting from 1 */
+  public Duration backoff(int retry) {
+    final double exponential = initialBackoff.toNanos() * Math.pow(multiplier, retry - 1);
+    final double capped = Math.min(exponential, maxBackoff.toNanos());
+    final double jittered = capped * (1 - jitter * ThreadLocalRandom.current().nextDouble());
+    return Duration.ofNanos((long) jittered);
+  }
+}
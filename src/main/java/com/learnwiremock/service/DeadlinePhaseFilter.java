@@ -0,0 +1,20 @@
+package com.learnwiremock.service;
+
+import com.learnwiremock.service.DeadlineTracker.Phase;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/** Moves a call with a deadline into the send phase when its exchange starts and into decoding once it is answered. */
+class DeadlinePhaseFilter implements ExchangeFilterFunction {
+
+  @Override
+  public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+    return Mono.subscriberContext().flatMap(context -> {
+      DeadlineTracker.enter(context, Phase.SEND);
+      return next.exchange(request).doOnNext(response -> DeadlineTracker.enter(context, Phase.DECODE));
+    });
+  }
+}
@@ -0,0 +1,83 @@
+package com.learnwiremock.service;
+
+import com.learnwiremock.exception.BodyDecodeDeadlineExceededException;
+import com.learnwiremock.exception.ConnectionAcquireDeadlineExceededException;
+import com.learnwiremock.exception.MovieDeadlineExceededException;
+import com.learnwiremock.exception.RequestSendDeadlineExceededException;
+import java.time.Duration;
+import reactor.util.context.Context;
+
+/**
+ * Follows a call with a deadline through the phases of its exchanges, so that a missed deadline can say where the
+ * time went. It travels in the Reactor context of the call and is moved on by {@link DeadlinePhaseFilter} and by
+ * the connection hooks of {@link MoviesWebClientFactory}.
+ *
+ * <p>A {@link org.springframework.web.reactive.function.client.WebClient} not created by the factory cannot tell
+ * when a connection was acquired, so for it the time spent acquiring one counts as sending the request.
+ *
+ * <p>A call is marked as expired before it is cancelled for missing its deadline, so that the circuit breaker and
+ * the concurrency limiter can tell that cancellation from a caller's and count it as a failed, overloaded request.
+ */
+final class DeadlineTracker {
+
+  enum Phase {
+    ACQUIRE, SEND, DECODE
+  }
+
+  private static final String CONTEXT_KEY = DeadlineTracker.class.getName();
+
+  private final MoviesOperation operation;
+  private final Duration deadline;
+  /** Null outside of an exchange */
+  private volatile Phase phase;
+  /** Null until the deadline passed */
+  private volatile MovieDeadlineExceededException exceeded;
+
+  DeadlineTracker(MoviesOperation operation, Duration deadline) {
+    this.operation = operation;
+    this.deadline = deadline;
+  }
+
+  Context putInto(Context context) {
+    return context.put(CONTEXT_KEY, this);
+  }
+
+  /** Moves the call in the given context, if it has a deadline, into the given phase, null when between exchanges */
+  static void enter(Context context, Phase phase) {
+    final DeadlineTracker tracker = context.getOrDefault(CONTEXT_KEY, null);
+    if (tracker != null) {
+      tracker.phase = phase;
+    }
+  }
+
+  /**
+   * The error the call in the given context failed with for missing its deadline, null if it has none or it has not
+   * passed. A cancelled request for which this is not null was cancelled by the deadline.
+   */
+  static MovieDeadlineExceededException exceeded(Context context) {
+    final DeadlineTracker tracker = context.getOrDefault(CONTEXT_KEY, null);
+    return tracker == null ? null : tracker.exceeded;
+  }
+
+  /** Marks the call as expired, to be done before it is cancelled, and returns the error it fails with */
+  MovieDeadlineExceededException expire() {
+    if (exceeded == null) {
+      exceeded = exceededIn(phase);
+    }
+    return exceeded;
+  }
+
+  private MovieDeadlineExceededException exceededIn(Phase current) {
+    if (current == null) {
+      return new MovieDeadlineExceededException(operation.getMetricName(), deadline);
+    }
+    switch (current) {
+      case ACQUIRE:
+        return new ConnectionAcquireDeadlineExceededException(operation.getMetricName(), deadline);
+      case SEND:
+        return new RequestSendDeadlineExceededException(operation.getMetricName(), deadline);
+      default:
+        return new BodyDecodeDeadlineExceededException(operation.getMetricName(), deadline);
+    }
+  }
+}
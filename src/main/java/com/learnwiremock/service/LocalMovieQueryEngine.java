@@ -0,0 +1,309 @@
+package com.learnwiremock.service;
+
+import com.learnwiremock.catalog.MovieCatalog;
+import com.learnwiremock.catalog.MovieCatalogFile;
+import com.learnwiremock.catalog.MovieNameIndex;
+import com.learnwiremock.catalog.MovieYearIndex;
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.exception.MovieErrorResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Answers by-name and by-year lookups from a local copy of the catalogue instead of the movies service. The copy is
+ * loaded with {@link ReactiveMoviesRestClient#getAllMovies()} by {@link #refresh()} and indexed by year and by name.
+ * While no copy has been loaded, or the last one is older than the maximum staleness, lookups go to the service.
+ *
+ * <p>Given a {@link MovieCatalogSync}, the copy is the sync's catalogue instead, which a refresh only lists the
+ * changes for. Its catalogue is indexed again only when the sync replaces it, while the movies changed on top of it,
+ * by refreshes and by the client's own writes, are matched as each lookup is answered. Writes made through the
+ * client are therefore seen straight away. Until the sync's new catalogue is indexed, lookups go to the service.
+ *
+ * <p>To answer lookups straight after a restart, {@link #restoreAndRefresh(Path)} indexes a catalogue saved by
+ * {@link MovieCatalogSync#save(Path)} and starts a refresh in the background:
+ *
+ * <pre>{@code
+ * engine.restoreAndRefresh(snapshotFile);
+ * }</pre>
+ *
+ * <p>Lookups answer as the service does, including a 404 {@link MovieErrorResponse} when no movie matches. Each
+ * matching movie is created from the catalogue when it is emitted, so callers may change them freely.
+ *
+ * <p>Without a sync, the client's writes are only seen once the next refresh has listed them, up to the maximum
+ * staleness later.
+ */
+@Slf4j
+public class LocalMovieQueryEngine {
+
+  public static final Duration DEFAULT_MAX_STALENESS = Duration.ofMinutes(5);
+
+  private final ReactiveMoviesRestClient client;
+  private final MovieCatalogSync catalogSync;
+  @Getter
+  private final Duration maxStaleness;
+  private final long maxStalenessNanos;
+  private final LongSupplier ticker;
+  private volatile Snapshot snapshot;
+
+  private final LongAdder localQueries = new LongAdder();
+  private final LongAdder remoteQueries = new LongAdder();
+
+  /**
+   * @param client the client lookups fall back to and the catalogue is loaded with
+   * @param catalogSync keeps the catalogue which is indexed, when absent it is listed in full by every refresh
+   * @param maxStaleness how long after a refresh lookups are still answered locally
+   * @param ticker a nanosecond time source, {@link System#nanoTime()} unless overridden in tests
+   */
+  @Builder
+  private LocalMovieQueryEngine(@NonNull ReactiveMoviesRestClient client, MovieCatalogSync catalogSync,
+      Duration maxStaleness, LongSupplier ticker) {
+    this.client = client;
+    this.catalogSync = catalogSync;
+    this.maxStaleness = maxStaleness == null ? DEFAULT_MAX_STALENESS : maxStaleness;
+    if (this.maxStaleness.isNegative()) {
+      throw new IllegalArgumentException("Maximum staleness must not be negative");
+    }
+    this.maxStalenessNanos = this.maxStaleness.toNanos();
+    this.ticker = ticker == null ? System::nanoTime : ticker;
+    if (catalogSync != null) {
+      // compactions replace the catalogue without a refresh, so the copy stays as fresh as it was
+      catalogSync.addCatalogListener(catalog -> use(false));
+    }
+  }
+
+  /**
+   * Loads the catalogue and replaces the local copy once it has been indexed. A failed refresh leaves the previous
+   * copy in place, to be used until it goes stale. Indexing a large catalogue takes a while, so it is done on a
+   * parallel scheduler rather than the event loop the catalogue was received on.
+   *
+   * <p>With a catalogue sync, a refresh which leaves the sync's catalogue in place keeps its indexes, whatever it
+   * changed on top of it, and the catalogue emitted is the sync's, without those changes.
+   */
+  public Mono<MovieCatalog> refresh() {
+    if (catalogSync != null) {
+      return catalogSync.refresh()
+          .publishOn(Schedulers.parallel())
+          .map(changed -> use(true).catalog);
+    }
+    return client.getMovieCatalog()
+        .publishOn(Schedulers.parallel())
+        .doOnNext(this::load);
+  }
+
+  /**
+   * Replaces the local copy with a catalogue loaded elsewhere once it has been indexed, on the calling thread. The
+   * copy is fresh from now on, until the maximum staleness has passed. Not for an engine with a catalogue sync, whose
+   * copy is always the sync's.
+   */
+  public void load(@NonNull MovieCatalog catalog) {
+    if (catalogSync != null) {
+      throw new IllegalStateException("The catalogue of a query engine with a catalogue sync is the sync's");
+    }
+    snapshot = new Snapshot(catalog, ticker.getAsLong());
+  }
+
+  /*
+   * Indexes the sync's catalogue unless it already is, fresh from now on when refreshed. Synchronized so that an
+   * older catalogue indexed on another thread never replaces a newer one.
+   */
+  private synchronized Snapshot use(boolean refreshed) {
+    final MovieCatalog catalog = catalogSync.getCatalog();
+    final Snapshot current = snapshot;
+    final long loadedAt = refreshed || current == null ? ticker.getAsLong() : current.loadedAt;
+    snapshot = current != null && current.catalog == catalog
+        ? current.loadedAt(loadedAt)
+        : new Snapshot(catalog, loadedAt);
+    return snapshot;
+  }
+
+  /**
+   * Loads a catalogue saved by {@link MovieCatalogSync#save(Path)}, through the catalogue sync if there is one, and
+   * starts a refresh without waiting for it. Lookups are answered from the saved catalogue until the refresh
+   * replaces it, unless the file is missing or cannot be used, in which case they go to the service meanwhile.
+   *
+   * @return the refresh, already started, which may be subscribed to again to wait for its outcome
+   */
+  public Mono<MovieCatalog> restoreAndRefresh(@NonNull Path file) {
+    if (catalogSync == null) {
+      restore(file);
+    } else if (catalogSync.restore(file)) {
+      use(true);
+    }
+    final Mono<MovieCatalog> refreshed = refresh().cache();
+    refreshed.subscribe(catalog -> {
+    }, e -> log.warn("Refreshing the restored movie catalogue failed: {}", e.toString()));
+    return refreshed;
+  }
+
+  private void restore(Path file) {
+    if (!Files.exists(file)) {
+      return;
+    }
+    try {
+      load(MovieCatalogFile.read(file));
+    } catch (IOException e) {
+      log.warn("Not restoring the movie catalogue: {}", e.getMessage());
+    }
+  }
+
+  /** Whether lookups are currently answered locally */
+  public boolean isFresh() {
+    return freshSnapshot() != null;
+  }
+
+  /**
+   * The local copy of the catalogue, or null if none has been loaded, whether or not it is stale. With a catalogue
+   * sync it is the catalogue indexed, without the movies changed on top of it.
+   */
+  public MovieCatalog getCatalog() {
+    final Snapshot current = snapshot;
+    return current == null ? null : current.catalog;
+  }
+
+  public Flux<Movie> getMoviesByName(@NonNull String name) {
+    if (name.isBlank()) {
+      throw new IllegalArgumentException("Name argument in get movies by name must not be blank");
+    }
+    return Flux.defer(() -> {
+      final Snapshot current = freshSnapshot();
+      if (current == null) {
+        remoteQueries.increment();
+        return client.getMoviesByName(name);
+      }
+      final Map<Long, Movie> changes = changesOn(current);
+      if (changes == null) {
+        remoteQueries.increment();
+        return client.getMoviesByName(name);
+      }
+      localQueries.increment();
+      return found(current.catalog, current.names.rowsContaining(name), changes,
+          movie -> movie.getName() != null && movie.getName().contains(name), "name", name);
+    });
+  }
+
+  public Flux<Movie> getMoviesByYear(@NonNull Integer year) {
+    return Flux.defer(() -> {
+      final Snapshot current = freshSnapshot();
+      if (current == null) {
+        remoteQueries.increment();
+        return client.getMoviesByYear(year);
+      }
+      final Map<Long, Movie> changes = changesOn(current);
+      if (changes == null) {
+        remoteQueries.increment();
+        return client.getMoviesByYear(year);
+      }
+      localQueries.increment();
+      return found(current.catalog, current.years.rowsOf(year), changes, movie -> year.equals(movie.getYear()),
+          "year", year);
+    });
+  }
+
+  /** The number of lookups answered from the local copy */
+  public long getLocalQueryCount() {
+    return localQueries.sum();
+  }
+
+  /**
+   * The number of lookups sent to the movies service because the local copy was missing or stale, or the catalogue
+   * sync's new catalogue was still being indexed
+   */
+  public long getRemoteQueryCount() {
+    return remoteQueries.sum();
+  }
+
+  private Snapshot freshSnapshot() {
+    final Snapshot current = snapshot;
+    return current == null || ticker.getAsLong() - current.loadedAt > maxStalenessNanos ? null : current;
+  }
+
+  /* The movies changed on top of the catalogue, none without a sync, null if the sync has replaced the catalogue */
+  private Map<Long, Movie> changesOn(Snapshot current) {
+    return catalogSync == null ? Collections.emptyMap() : catalogSync.changesOn(current.catalog);
+  }
+
+  /*
+   * The rows of the catalogue which matched, less the changed movies, merged in id order with the changed movies
+   * which match. The service answers a lookup without matches with 404, and so does the local copy.
+   */
+  private static Flux<Movie> found(MovieCatalog catalog, int[] rows, Map<Long, Movie> changes,
+      Predicate<Movie> matches, String field, Object value) {
+    final List<Movie> changed = new ArrayList<>();
+    changes.forEach((id, movie) -> {
+      if (movie != null && matches.test(movie)) {
+        changed.add(movie);
+      }
+    });
+    changed.sort(Comparator.comparing(Movie::getMovie_id));
+    // a row to emit from the catalogue, or -1 - i to emit the changed movie i instead
+    final int[] found = new int[rows.length + changed.size()];
+    int count = 0;
+    int next = 0;
+    for (int row : rows) {
+      final long id = catalog.idAt(row);
+      if (changes.containsKey(id)) {
+        continue;
+      }
+      while (next < changed.size() && changed.get(next).getMovie_id() < id) {
+        found[count++] = -1 - next++;
+      }
+      found[count++] = row;
+    }
+    while (next < changed.size()) {
+      found[count++] = -1 - next++;
+    }
+    if (count == 0) {
+      final String message = "No Movie Available with the given " + field + " - " + value;
+      return Flux.error(MovieErrorResponse.withoutStackTrace(HttpStatus.NOT_FOUND.getReasonPhrase(),
+          HttpStatus.NOT_FOUND.value(), message, null));
+    }
+    return Flux.range(0, count)
+        .map(i -> found[i] >= 0 ? catalog.movieAt(found[i]) : new Movie(changed.get(-1 - found[i])));
+  }
+
+  /* A catalogue with its indexes, replaced as a whole so that lookups never see indexes of another catalogue */
+  private static final class Snapshot {
+
+    private final MovieCatalog catalog;
+    private final MovieYearIndex years;
+    private final MovieNameIndex names;
+    private final long loadedAt;
+
+    private Snapshot(MovieCatalog catalog, long loadedAt) {
+      this.catalog = catalog;
+      this.years = MovieYearIndex.of(catalog);
+      this.names = MovieNameIndex.of(catalog);
+      this.loadedAt = loadedAt;
+    }
+
+    private Snapshot(Snapshot indexed, long loadedAt) {
+      this.catalog = indexed.catalog;
+      this.years = indexed.years;
+      this.names = indexed.names;
+      this.loadedAt = loadedAt;
+    }
+
+    /* The same catalogue and indexes, loaded at another time */
+    private Snapshot loadedAt(long loadedAt) {
+      return loadedAt == this.loadedAt ? this : new Snapshot(this, loadedAt);
+    }
+  }
+}
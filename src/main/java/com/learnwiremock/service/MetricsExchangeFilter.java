@@ -0,0 +1,68 @@
+package com.learnwiremock.service;
+
+import com.learnwiremock.metrics.MoviesClientMetrics;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.AllArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reports every exchange to {@link MoviesClientMetrics} under the name of its {@link MoviesOperation}. A request
+ * stays in flight until its response body has been read, so the latency and size cover the whole body.
+ */
+@AllArgsConstructor
+class MetricsExchangeFilter implements ExchangeFilterFunction {
+
+  private static final String UNKNOWN_OPERATION = "unknown";
+
+  private final MoviesClientMetrics metrics;
+
+  @Override
+  public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+    final String operation = MoviesOperation.of(request).map(MoviesOperation::getMetricName).orElse(UNKNOWN_OPERATION);
+    return Mono.defer(() -> {
+      final long started = System.nanoTime();
+      final AtomicBoolean responded = new AtomicBoolean();
+      metrics.requestStarted(operation);
+      return next.exchange(request)
+          .doOnNext(response -> responded.set(true))
+          .map(response -> measuringBody(operation, response, started))
+          .doOnError(e -> {
+            if (!responded.get()) {
+              metrics.requestFailed(operation, e, System.nanoTime() - started);
+            }
+          })
+          .doOnCancel(() -> {
+            if (!responded.get()) {
+              metrics.requestFailed(operation, new CancellationException(), System.nanoTime() - started);
+            }
+          });
+    });
+  }
+
+  private ClientResponse measuringBody(String operation, ClientResponse response, long started) {
+    final int statusCode = response.rawStatusCode();
+    final LongAdder bytes = new LongAdder();
+    // error handling may subscribe to the body again after it has been drained, only the first read is reported
+    final AtomicBoolean completed = new AtomicBoolean();
+    final Runnable complete = () -> {
+      if (completed.compareAndSet(false, true)) {
+        metrics.requestCompleted(operation, statusCode, System.nanoTime() - started, bytes.sum());
+      }
+    };
+    // reported before the end of the body is signalled, so that the caller never resumes ahead of the metrics
+    return ClientResponse.from(response)
+        .body(response.bodyToFlux(DataBuffer.class)
+            .doOnNext(buffer -> bytes.add(buffer.readableByteCount()))
+            .doOnComplete(complete)
+            .doOnError(e -> complete.run())
+            .doOnCancel(complete))
+        .build();
+  }
+}
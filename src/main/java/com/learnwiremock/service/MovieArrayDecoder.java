@@ -0,0 +1,151 @@
+package com.learnwiremock.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.learnwiremock.dto.Movie;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+/**
+ * Incrementally decodes a JSON array of movies with Jackson's non-blocking parser, emitting each movie as soon as
+ * its array element is complete.
+ *
+ * <p>The default WebFlux decoder merges per-buffer token lists with {@code flatMap}, which reorders elements once
+ * the subscriber applies backpressure. Here every stage is sequential, so order is kept however demand is
+ * signalled.
+ */
+class MovieArrayDecoder {
+
+  /** The number of received body chunks buffered ahead of the decoder */
+  private static final int CHUNK_PREFETCH = 4;
+
+  private final ObjectMapper objectMapper;
+  private final ObjectReader movieReader;
+
+  MovieArrayDecoder() {
+    this(Jackson2ObjectMapperBuilder.json().build());
+  }
+
+  MovieArrayDecoder(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    this.movieReader = objectMapper.readerFor(Movie.class);
+  }
+
+  Flux<Movie> decode(Flux<DataBuffer> body) {
+    return Flux.defer(() -> {
+      final ElementTokenizer tokenizer = new ElementTokenizer();
+      return body
+          .map(MovieArrayDecoder::toBytesAndRelease)
+          .concatMapIterable(tokenizer::tokenize, CHUNK_PREFETCH)
+          .concatWith(Flux.defer(() -> Flux.fromIterable(tokenizer.endOfInput())))
+          .map(this::readMovie);
+    });
+  }
+
+  private Movie readMovie(TokenBuffer element) {
+    try {
+      return movieReader.readValue(element.asParser(objectMapper));
+    } catch (IOException e) {
+      throw new DecodingException("JSON decoding error: " + e.getMessage(), e);
+    }
+  }
+
+  /* Copying straight away returns pooled network buffers immediately, even if the subscriber cancels */
+  private static byte[] toBytesAndRelease(DataBuffer buffer) {
+    try {
+      final byte[] bytes = new byte[buffer.readableByteCount()];
+      buffer.read(bytes);
+      return bytes;
+    } finally {
+      DataBufferUtils.release(buffer);
+    }
+  }
+
+  /** Splits the token stream of one response into one {@link TokenBuffer} per top-level array element. */
+  private class ElementTokenizer {
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private TokenBuffer element;
+    /** The depth at which array elements start, known once the first token has been read */
+    private int elementDepth = -1;
+    private int depth;
+
+    ElementTokenizer() {
+      try {
+        this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+      } catch (IOException e) {
+        throw new DecodingException("Could not create non-blocking JSON parser", e);
+      }
+      this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    List<TokenBuffer> tokenize(byte[] chunk) {
+      try {
+        feeder.feedInput(chunk, 0, chunk.length);
+        return readAvailableElements();
+      } catch (IOException e) {
+        throw new DecodingException("JSON decoding error: " + e.getMessage(), e);
+      }
+    }
+
+    List<TokenBuffer> endOfInput() {
+      feeder.endOfInput();
+      try {
+        final List<TokenBuffer> elements = readAvailableElements();
+        if (element != null || depth != 0) {
+          throw new DecodingException("Incomplete JSON array in response body");
+        }
+        return elements;
+      } catch (IOException e) {
+        throw new DecodingException("JSON decoding error: " + e.getMessage(), e);
+      }
+    }
+
+    private List<TokenBuffer> readAvailableElements() throws IOException {
+      List<TokenBuffer> elements = null;
+      JsonToken token;
+      while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+        if (elementDepth < 0) {
+          elementDepth = token == JsonToken.START_ARRAY ? 1 : 0;
+        }
+        if (depth < elementDepth) {
+          // the enclosing array itself is not part of any element
+          depth += token == JsonToken.START_ARRAY ? 1 : 0;
+          continue;
+        }
+        if (depth == elementDepth && token == JsonToken.END_ARRAY && elementDepth == 1) {
+          depth--;
+          continue;
+        }
+        if (element == null) {
+          element = new TokenBuffer(parser);
+        }
+        element.copyCurrentEvent(parser);
+        if (token.isStructStart()) {
+          depth++;
+        } else if (token.isStructEnd()) {
+          depth--;
+        }
+        if (depth == elementDepth) {
+          if (elements == null) {
+            elements = new ArrayList<>();
+          }
+          elements.add(element);
+          element = null;
+        }
+      }
+      return elements == null ? List.of() : elements;
+    }
+  }
+}
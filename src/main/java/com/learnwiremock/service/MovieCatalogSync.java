@@ -0,0 +1,557 @@
+package com.learnwiremock.service;
+
+import com.learnwiremock.catalog.MovieCatalog;
+import com.learnwiremock.catalog.MovieCatalogFile;
+import com.learnwiremock.dto.Movie;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Keeps a local copy of the catalogue up to date without rebuilding it for every change. The copy is a
+ * {@link MovieCatalog} plus an overlay of the movies changed since the catalogue was built:
+ *
+ * <ul>
+ *   <li>creates, updates and deletes made through the client are applied to the overlay as soon as the service
+ *   confirms them, see {@link MovieWriteListener}
+ *   <li>{@link #refresh()} compares a hash of each movie the service lists with the hash of the copy's, so only the
+ *   movies changed elsewhere are added to the overlay
+ *   <li>once the overlay holds more movies than the compaction threshold, it is folded into a new catalogue
+ * </ul>
+ *
+ * <p>There is no way to ask the service for only what changed, so a refresh still lists the whole catalogue. Give the
+ * client a {@link com.learnwiremock.cache.ValidatorCache} allowing more movies per response than the catalogue holds
+ * so that an unchanged catalogue is answered with 304 Not Modified instead of being transferred and decoded again.
+ *
+ * <p>Reads never wait: the catalogue and overlay are replaced as a whole, and writes copy the overlay, which the
+ * compaction threshold keeps small. A write which takes the overlay past the threshold has it compacted on a
+ * parallel scheduler, so that a long run of writes without a refresh does not grow it without bound.
+ *
+ * <p>To serve reads straight after a restart, save the catalogue before shutting down and restore it on start,
+ * refreshing in the background so that only what changed meanwhile is listed as changes. Give a
+ * {@link LocalMovieQueryEngine} the sync to answer by-name and by-year lookups from the restored catalogue too:
+ *
+ * <pre>{@code
+ * sync.restoreAndRefresh(snapshotFile);
+ * ...
+ * sync.save(snapshotFile);
+ * }</pre>
+ */
+@Slf4j
+public class MovieCatalogSync implements MovieWriteListener, AutoCloseable {
+
+  public static final int DEFAULT_COMPACTION_THRESHOLD = 1_000;
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final ReactiveMoviesRestClient client;
+  @Getter
+  private final int compactionThreshold;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  /** Incremented by every write, so that a refresh which listed the catalogue before a write does not undo it */
+  private long writeSequence;
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+  private final LongAdder appliedWrites = new LongAdder();
+  private final LongAdder refreshedChanges = new LongAdder();
+  private final LongAdder compactions = new LongAdder();
+  /** Set while a compaction started by a write is running, so that writes meanwhile do not start another */
+  private final AtomicBoolean compacting = new AtomicBoolean();
+  private final List<Consumer<MovieCatalog>> catalogListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Registers with the client to hear about its writes until closed.
+   *
+   * @param client the client the catalogue is listed with and whose writes are applied
+   * @param compactionThreshold the changed movies the overlay holds before it is folded into the catalogue
+   */
+  @Builder
+  private MovieCatalogSync(@NonNull ReactiveMoviesRestClient client, Integer compactionThreshold) {
+    this.client = client;
+    this.compactionThreshold = compactionThreshold == null ? DEFAULT_COMPACTION_THRESHOLD : compactionThreshold;
+    if (this.compactionThreshold < 0) {
+      throw new IllegalArgumentException("Compaction threshold must not be negative");
+    }
+    client.addWriteListener(this);
+  }
+
+  /**
+   * Lists the catalogue and applies what changed since the last refresh. The first refresh builds the catalogue as
+   * the movies are decoded, later ones only keep the movies which differ from the copy.
+   *
+   * @return the number of movies added, changed or removed by the refresh
+   */
+  public Mono<Integer> refresh() {
+    return Mono.defer(() -> {
+      final Snapshot listed = snapshot;
+      final long startSequence = currentWriteSequence();
+      if (!listed.loaded) {
+        return client.getMovieCatalog().map(catalog -> load(catalog, startSequence));
+      }
+      // movies are compared as they are decoded, finding the removed ones and compacting scan the whole copy
+      return client.getAllMovies()
+          .collect(() -> new Diff(listed), Diff::add)
+          .publishOn(Schedulers.parallel())
+          .map(diff -> apply(diff.changes(), startSequence));
+    });
+  }
+
+  /**
+   * Loads a catalogue saved by {@link #save(Path)} unless one has already been loaded. Writes made since this was
+   * created are kept on top of it, as they are newer than the file.
+   *
+   * @return whether the saved catalogue was loaded, false when the file is missing or cannot be used
+   */
+  public boolean restore(@NonNull Path file) {
+    if (snapshot.loaded || !Files.exists(file)) {
+      return false;
+    }
+    final MovieCatalog catalog;
+    try {
+      catalog = MovieCatalogFile.read(file);
+    } catch (IOException e) {
+      log.warn("Not restoring the movie catalogue: {}", e.getMessage());
+      return false;
+    }
+    lock.lock();
+    try {
+      if (snapshot.loaded) {
+        return false;
+      }
+      snapshot = new Snapshot(catalog, hashes(catalog), snapshot.overlay, true);
+    } finally {
+      lock.unlock();
+    }
+    catalogReplaced(catalog);
+    return true;
+  }
+
+  /**
+   * Loads a catalogue saved by {@link #save(Path)} as {@link #restore(Path)} does, then starts a refresh without
+   * waiting for it, so that reads are served from the saved catalogue while what changed meanwhile is listed.
+   *
+   * @return the refresh, already started, which may be subscribed to again to wait for its outcome
+   */
+  public Mono<Integer> restoreAndRefresh(@NonNull Path file) {
+    restore(file);
+    final Mono<Integer> refreshed = refresh().cache();
+    refreshed.subscribe(changed -> {
+    }, e -> log.warn("Refreshing the restored movie catalogue failed: {}", e.toString()));
+    return refreshed;
+  }
+
+  /** Saves the catalogue, overlay included, replacing the file in one step */
+  public void save(@NonNull Path file) throws IOException {
+    MovieCatalogFile.write(compact(), file);
+  }
+
+  /** Whether a catalogue was refreshed or restored, before which the copy only holds the writes made since */
+  public boolean isLoaded() {
+    return snapshot.loaded;
+  }
+
+  public int size() {
+    return snapshot.size;
+  }
+
+  public boolean contains(long id) {
+    return snapshot.contains(id);
+  }
+
+  /** A copy of the movie with the given id, or null if it is not in the catalogue */
+  public Movie get(long id) {
+    final Snapshot current = snapshot;
+    final Change change = current.overlay.get(id);
+    if (change != null) {
+      return change.movie == null ? null : new Movie(change.movie);
+    }
+    return current.catalog.get(id);
+  }
+
+  /** The catalogue the overlay is held on top of, which lacks the movies changed since it was built */
+  public MovieCatalog getCatalog() {
+    return snapshot.catalog;
+  }
+
+  /**
+   * Copies of the movies changed since the catalogue was built, by id, with null for the removed ones. Together with
+   * {@link #getCatalog()} they make up the copy, as long as the catalogue is not replaced in between.
+   */
+  public Map<Long, Movie> getOverlay() {
+    final Map<Long, Movie> overlay = new HashMap<>();
+    snapshot.changes.forEach((id, movie) -> overlay.put(id, movie == null ? null : new Movie(movie)));
+    return overlay;
+  }
+
+  /** The number of changed movies held on top of the catalogue */
+  public int getOverlaySize() {
+    return snapshot.overlay.size();
+  }
+
+  /**
+   * The copy as one catalogue. Unless the overlay is empty this builds a new catalogue, which takes as long as the
+   * catalogue is large, and replaces the copy's catalogue with it so that the next call does not build it again.
+   */
+  public MovieCatalog compact() {
+    final Snapshot current = snapshot;
+    return current.overlay.isEmpty() ? current.catalog : compact(current).catalog;
+  }
+
+  /**
+   * The changes held on top of the given catalogue by id, with null for the removed movies, or null if the catalogue
+   * is no longer the copy's. For the query engine, which must not change the movies.
+   */
+  Map<Long, Movie> changesOn(MovieCatalog catalog) {
+    final Snapshot current = snapshot;
+    return current.catalog == catalog ? current.changes : null;
+  }
+
+  /** Called with the new catalogue whenever the copy's catalogue is replaced, on the thread which replaced it */
+  void addCatalogListener(Consumer<MovieCatalog> listener) {
+    catalogListeners.add(listener);
+  }
+
+  /** The number of confirmed writes applied to the copy */
+  public long getAppliedWriteCount() {
+    return appliedWrites.sum();
+  }
+
+  /** The number of movies refreshes found to have been added, changed or removed, the first load excluded */
+  public long getRefreshedChangeCount() {
+    return refreshedChanges.sum();
+  }
+
+  /** The number of times the overlay was folded into a new catalogue */
+  public long getCompactionCount() {
+    return compactions.sum();
+  }
+
+  @Override
+  public void movieCreated(Movie movie) {
+    if (movie.getMovie_id() != null) {
+      write(movie.getMovie_id(), new Movie(movie));
+    }
+  }
+
+  @Override
+  public void movieUpdated(Long id, Movie movie) {
+    write(id, new Movie(movie));
+  }
+
+  @Override
+  public void movieDeleted(Long id) {
+    write(id, null);
+  }
+
+  /** Stops applying the writes of the client */
+  @Override
+  public void close() {
+    client.removeWriteListener(this);
+  }
+
+  private long currentWriteSequence() {
+    lock.lock();
+    try {
+      return writeSequence;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void write(long id, Movie movie) {
+    lock.lock();
+    try {
+      final Map<Long, Change> overlay = new HashMap<>(snapshot.overlay);
+      overlay.put(id, new Change(movie, ++writeSequence));
+      snapshot = snapshot.withOverlay(overlay);
+    } finally {
+      lock.unlock();
+    }
+    appliedWrites.increment();
+    compactInBackground();
+  }
+
+  /* Writes are heard on the event loop, which compacting a large catalogue would hold up */
+  private void compactInBackground() {
+    if (snapshot.overlay.size() > compactionThreshold && compacting.compareAndSet(false, true)) {
+      Schedulers.parallel().schedule(() -> {
+        try {
+          compact(snapshot);
+        } finally {
+          compacting.set(false);
+        }
+        // writes made while compacting did not start another compaction
+        compactInBackground();
+      });
+    }
+  }
+
+  /* Writes confirmed while the catalogue was listed are kept on top of it, as the listing may predate them */
+  private Integer load(MovieCatalog catalog, long startSequence) {
+    lock.lock();
+    try {
+      final Map<Long, Change> overlay = new HashMap<>();
+      snapshot.overlay.forEach((id, change) -> {
+        if (change.sequence > startSequence) {
+          overlay.put(id, change);
+        }
+      });
+      snapshot = new Snapshot(catalog, hashes(catalog), overlay, true);
+    } finally {
+      lock.unlock();
+    }
+    catalogReplaced(catalog);
+    return catalog.size();
+  }
+
+  private Integer apply(Map<Long, Movie> changes, long startSequence) {
+    final Snapshot applied;
+    lock.lock();
+    try {
+      final Map<Long, Change> overlay = new HashMap<>(snapshot.overlay);
+      changes.forEach((id, movie) -> {
+        final Change written = overlay.get(id);
+        if (written != null && written.sequence > startSequence) {
+          return;
+        }
+        if (movie == null && !snapshot.catalog.contains(id)) {
+          overlay.remove(id);
+        } else {
+          overlay.put(id, new Change(movie, 0));
+        }
+      });
+      applied = snapshot.withOverlay(overlay);
+      snapshot = applied;
+    } finally {
+      lock.unlock();
+    }
+    refreshedChanges.add(changes.size());
+    if (applied.overlay.size() > compactionThreshold) {
+      compact(applied);
+    }
+    return changes.size();
+  }
+
+  /*
+   * Builds the catalogue outside the lock so that writes are not held up. Changes made meanwhile stay in the overlay
+   * on top of it, while a catalogue loaded meanwhile makes it obsolete.
+   */
+  private Snapshot compact(Snapshot from) {
+    final MovieCatalog.Builder builder = MovieCatalog.builder();
+    for (int row = 0; row < from.catalog.size(); row++) {
+      if (!from.overlay.containsKey(from.catalog.idAt(row))) {
+        builder.add(from.catalog.movieAt(row));
+      }
+    }
+    from.overlay.values().forEach(change -> {
+      if (change.movie != null) {
+        builder.add(change.movie);
+      }
+    });
+    final MovieCatalog catalog = builder.build();
+    final Snapshot compacted = new Snapshot(catalog, hashes(catalog), Collections.emptyMap(), from.loaded);
+    lock.lock();
+    try {
+      final Snapshot current = snapshot;
+      if (current.catalog != from.catalog) {
+        return compacted;
+      }
+      final Map<Long, Change> remaining = new HashMap<>();
+      current.overlay.forEach((id, change) -> {
+        if (from.overlay.get(id) != change) {
+          remaining.put(id, change);
+        }
+      });
+      // a refresh which dropped a change for a movie the old catalogue lacks now has to remove it from the new one
+      from.overlay.forEach((id, change) -> {
+        if (change.movie != null && !current.overlay.containsKey(id)) {
+          remaining.put(id, new Change(null, 0));
+        }
+      });
+      snapshot = new Snapshot(catalog, compacted.hashes, remaining, current.loaded);
+      compactions.increment();
+    } finally {
+      lock.unlock();
+    }
+    catalogReplaced(catalog);
+    return compacted;
+  }
+
+  private void catalogReplaced(MovieCatalog catalog) {
+    catalogListeners.forEach(listener -> listener.accept(catalog));
+  }
+
+  private static long[] hashes(MovieCatalog catalog) {
+    final long[] hashes = new long[catalog.size()];
+    for (int row = 0; row < hashes.length; row++) {
+      hashes[row] = hash(catalog.idAt(row), catalog.nameAt(row), catalog.castAt(row), catalog.yearAt(row),
+          catalog.releaseEpochDayAt(row));
+    }
+    return hashes;
+  }
+
+  /* The same hash as the movie's catalogue row, so that listed movies are compared without building rows */
+  private static long hash(Movie movie) {
+    return hash(movie.getMovie_id(), movie.getName(), movie.getCast(),
+        movie.getYear() == null ? MovieCatalog.NO_YEAR : movie.getYear(),
+        movie.getReleaseDate() == null ? MovieCatalog.NO_RELEASE_DATE : (int) movie.getReleaseDate().toEpochDay());
+  }
+
+  /* 64-bit FNV-1a, which makes a collision between two versions of a movie vanishingly unlikely */
+  private static long hash(long id, String name, String cast, int year, int releaseEpochDay) {
+    long hash = FNV_OFFSET_BASIS;
+    hash = mix(hash, id);
+    hash = mix(hash, name);
+    hash = mix(hash, cast);
+    hash = mix(hash, year);
+    return mix(hash, releaseEpochDay);
+  }
+
+  private static long mix(long hash, long value) {
+    for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+      hash = (hash ^ (value >>> shift & 0xff)) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /* The length goes first so that moving characters between fields changes the hash, null has its own length */
+  private static long mix(long hash, String value) {
+    if (value == null) {
+      return mix(hash, -1L);
+    }
+    hash = mix(hash, value.length());
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+      hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /* Compares each listed movie with the copy as it is decoded, keeping only the ones which differ */
+  private static final class Diff {
+
+    private final Snapshot listed;
+    private final BitSet listedRows;
+    private final Set<Long> listedOverlay = new HashSet<>();
+    /** The movies which differ from the copy, by id, with null for the ones which were removed */
+    private final Map<Long, Movie> changes = new HashMap<>();
+
+    private Diff(Snapshot listed) {
+      this.listed = listed;
+      this.listedRows = new BitSet(listed.catalog.size());
+    }
+
+    private void add(Movie movie) {
+      final Long id = movie.getMovie_id();
+      if (id == null) {
+        return;
+      }
+      final long hash = hash(movie);
+      final int row = listed.catalog.rowOf(id);
+      if (row >= 0) {
+        listedRows.set(row);
+      }
+      final Change change = listed.overlay.get(id);
+      if (change != null) {
+        listedOverlay.add(id);
+        if (change.movie == null || hash(change.movie) != hash) {
+          changes.put(id, movie);
+        }
+      } else if (row < 0 || listed.hashes[row] != hash) {
+        changes.put(id, movie);
+      }
+    }
+
+    /* The movies the copy has but the service no longer listed were removed */
+    private Map<Long, Movie> changes() {
+      for (int row = listedRows.nextClearBit(0); row < listed.catalog.size(); row = listedRows.nextClearBit(row + 1)) {
+        final long id = listed.catalog.idAt(row);
+        if (!listed.overlay.containsKey(id)) {
+          changes.put(id, null);
+        }
+      }
+      listed.overlay.forEach((id, change) -> {
+        if (change.movie != null && !listedOverlay.contains(id)) {
+          changes.put(id, null);
+        }
+      });
+      return changes;
+    }
+  }
+
+  /** A changed movie on top of the catalogue */
+  private static final class Change {
+
+    /** Null if the movie was removed */
+    private final Movie movie;
+    /** The write which made the change, or 0 if a refresh found it */
+    private final long sequence;
+
+    private Change(Movie movie, long sequence) {
+      this.movie = movie;
+      this.sequence = sequence;
+    }
+  }
+
+  private static final class Snapshot {
+
+    private static final Snapshot EMPTY =
+        new Snapshot(MovieCatalog.of(List.of()), new long[0], Collections.emptyMap(), false);
+
+    private final MovieCatalog catalog;
+    /** The hash of each catalogue row */
+    private final long[] hashes;
+    /** Never modified once the snapshot is created */
+    private final Map<Long, Change> overlay;
+    /** The movies of the overlay, built with it as it is already copied for every write */
+    private final Map<Long, Movie> changes;
+    private final boolean loaded;
+    private final int size;
+
+    private Snapshot(MovieCatalog catalog, long[] hashes, Map<Long, Change> overlay, boolean loaded) {
+      this.catalog = catalog;
+      this.hashes = hashes;
+      this.overlay = overlay;
+      this.loaded = loaded;
+      final Map<Long, Movie> movies = new HashMap<>();
+      int count = catalog.size();
+      for (Map.Entry<Long, Change> entry : overlay.entrySet()) {
+        final Movie movie = entry.getValue().movie;
+        movies.put(entry.getKey(), movie);
+        count += (catalog.contains(entry.getKey()) ? -1 : 0) + (movie == null ? 0 : 1);
+      }
+      this.changes = Collections.unmodifiableMap(movies);
+      this.size = count;
+    }
+
+    private Snapshot withOverlay(Map<Long, Change> overlay) {
+      return new Snapshot(catalog, hashes, overlay, loaded);
+    }
+
+    private boolean contains(long id) {
+      final Change change = overlay.get(id);
+      return change == null ? catalog.contains(id) : change.movie != null;
+    }
+  }
+}
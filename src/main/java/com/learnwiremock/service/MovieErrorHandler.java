@@ -0,0 +1,118 @@
+package com.learnwiremock.service;
+
+import com.learnwiremock.exception.MovieErrorResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+/**
+ * The single error path of {@link ReactiveMoviesRestClient}, kept cheap for when the movies service fails every
+ * call: error bodies are drained so the connection can be reused but only a bounded prefix is kept, messages are
+ * only formatted when error logging is enabled, and stack traces can be left out.
+ */
+@Slf4j
+class MovieErrorHandler {
+
+  private static final byte[] NO_BODY = new byte[0];
+
+  private final int bodyCaptureLimit;
+  private final boolean stackless;
+
+  MovieErrorHandler(int bodyCaptureLimit, boolean stackless) {
+    if (bodyCaptureLimit < 0) {
+      throw new IllegalArgumentException("Error body capture limit must not be negative");
+    }
+    this.bodyCaptureLimit = bodyCaptureLimit;
+    this.stackless = stackless;
+  }
+
+  /** For {@code retrieve().onStatus(HttpStatus::isError, ...)}, turns an error response into the error to signal. */
+  Function<ClientResponse, Mono<? extends Throwable>> onErrorStatus(MoviesOperation operation, Object subject) {
+    return response -> captureBody(response).map(body -> toMovieErrorResponse(operation, subject, response, body));
+  }
+
+  /** For {@code onErrorMap}, wraps failures which did not come with an error response. */
+  Function<Throwable, Throwable> onFailure(MoviesOperation operation, Object subject) {
+    return e -> {
+      if (e instanceof MovieErrorResponse) {
+        return e;
+      }
+      if (log.isErrorEnabled()) {
+        log.error("{}({}) failed: {}", operation.getMetricName(), subject, e.toString());
+      }
+      return stackless ? MovieErrorResponse.withoutStackTrace(e.getMessage(), null, null, e) : new MovieErrorResponse(e);
+    };
+  }
+
+  private MovieErrorResponse toMovieErrorResponse(MoviesOperation operation, Object subject, ClientResponse response,
+      byte[] body) {
+    final int statusCode = response.rawStatusCode();
+    final HttpStatus status = HttpStatus.resolve(statusCode);
+    final String statusText = status == null ? "" : status.getReasonPhrase();
+    final Charset charset = response.headers().contentType().map(MediaType::getCharset).orElse(null);
+    final boolean logged = log.isErrorEnabled();
+    final String bodyText = logged || stackless
+        ? new String(body, charset == null ? StandardCharsets.UTF_8 : charset)
+        : null;
+    if (logged) {
+      log.error("{}({}) failed with status {} {}. Response body: {}",
+          operation.getMetricName(), subject, statusCode, statusText, bodyText);
+    }
+    if (stackless) {
+      return MovieErrorResponse.withoutStackTrace(statusText, statusCode, bodyText, null);
+    }
+    return new MovieErrorResponse(statusText, WebClientResponseException.create(
+        statusCode, statusText, response.headers().asHttpHeaders(), body, charset));
+  }
+
+  /* Reads the whole body so that the connection stays reusable, keeping at most the capture limit of it */
+  private Mono<byte[]> captureBody(ClientResponse response) {
+    if (bodyCaptureLimit == 0) {
+      return response.bodyToMono(Void.class).thenReturn(NO_BODY);
+    }
+    return response.bodyToFlux(DataBuffer.class)
+        .reduceWith(() -> new BoundedBody(bodyCaptureLimit), BoundedBody::append)
+        .map(BoundedBody::toByteArray)
+        .defaultIfEmpty(NO_BODY);
+  }
+
+  private static final class BoundedBody {
+
+    private final int limit;
+    private byte[] bytes = NO_BODY;
+    private int length;
+
+    private BoundedBody(int limit) {
+      this.limit = limit;
+    }
+
+    private BoundedBody append(DataBuffer buffer) {
+      try {
+        final int copied = Math.min(buffer.readableByteCount(), limit - length);
+        if (copied > 0) {
+          if (length + copied > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.min(limit, Math.max(length + copied, bytes.length * 2)));
+          }
+          buffer.read(bytes, length, copied);
+          length += copied;
+        }
+        return this;
+      } finally {
+        DataBufferUtils.release(buffer);
+      }
+    }
+
+    private byte[] toByteArray() {
+      return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.learnwiremock.service;
+
+import com.learnwiremock.dto.Movie;
+
+/**
+ * Told about every write of a {@link ReactiveMoviesRestClient} which the movies service confirmed, before the caller
+ * sees the result. Called on the thread that completed the write, so it must be quick and must not throw.
+ */
+public interface MovieWriteListener {
+
+  /** @param movie the movie as created by the service, with its new id */
+  default void movieCreated(Movie movie) {
+  }
+
+  /** @param movie the movie as updated, with the given id */
+  default void movieUpdated(Long id, Movie movie) {
+  }
+
+  default void movieDeleted(Long id) {
+  }
+}
@@ -0,0 +1,239 @@
+package com.learnwiremock.service;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executors to make blocking {@link MoviesRestClient} calls on. A blocking call only parks its thread until the
+ * response arrives, without holding a monitor, so on Java 21 and later every call gets a virtual thread of its own.
+ * On earlier versions, where virtual threads are not available, calls share a pool of platform threads.
+ *
+ * <p>Either way the calls let through at once are bounded by the connections and pending acquires of the factory,
+ * so that a burst of calls waits in the executor instead of being rejected by the connection pool.
+ */
+@Slf4j
+public final class MoviesExecutors {
+
+  /* Looked up reflectively as the project compiles for Java 17, null where it is missing or a disabled preview */
+  private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadPerTaskExecutor();
+
+  private MoviesExecutors() {
+  }
+
+  /** Whether {@link #newBlockingCallExecutor(MoviesWebClientFactory)} runs each call on a virtual thread */
+  public static boolean virtualThreadsAvailable() {
+    return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+  }
+
+  /** An executor for calls through clients of a factory with the default pool sizes */
+  public static ExecutorService newBlockingCallExecutor() {
+    return newBlockingCallExecutor(MoviesWebClientFactory.DEFAULT_MAX_CONNECTIONS,
+        2 * MoviesWebClientFactory.DEFAULT_MAX_CONNECTIONS);
+  }
+
+  /**
+   * An executor for calls through the clients of the factory. With virtual threads, as many calls run as the factory
+   * has connections and pending acquires. Without, calls run on one platform thread per connection, as further
+   * threads would only wait for a connection.
+   */
+  public static ExecutorService newBlockingCallExecutor(@NonNull MoviesWebClientFactory factory) {
+    return newBlockingCallExecutor(factory.getMaxConnections(), factory.getMaxPendingAcquires());
+  }
+
+  private static ExecutorService newBlockingCallExecutor(int maxConnections, int maxPendingAcquires) {
+    if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null) {
+      return new ConcurrencyLimitedExecutor(newVirtualThreadPerTaskExecutor(), maxConnections + maxPendingAcquires);
+    }
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConnections, maxConnections, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), new DaemonThreadFactory("movies-blocking-"));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  private static MethodHandle findVirtualThreadPerTaskExecutor() {
+    final MethodHandle factory;
+    try {
+      factory = MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+          MethodType.methodType(ExecutorService.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    }
+    try {
+      ((ExecutorService) factory.invokeExact()).shutdown();
+      return factory;
+    } catch (Throwable e) {
+      // Java 19 and 20 have the method, but it throws unless previews are enabled
+      log.debug("Virtual threads are not available: {}", e.toString());
+      return null;
+    }
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invokeExact();
+    } catch (Throwable e) {
+      throw new IllegalStateException("Could not create a virtual thread executor", e);
+    }
+  }
+
+  /*
+   * Starts every task on a thread of its own straight away, where it waits for a permit. Waiting on a semaphore
+   * unmounts a virtual thread from its carrier, so waiting tasks cost little more than their stack.
+   *
+   * Tasks still waiting for a permit are handed back by shutdownNow(). A task interrupted while waiting for any
+   * other reason is cancelled if it is a Future, so that no caller waits on a result which never comes. A plain
+   * runnable cannot be cancelled, so it still waits for its permit and runs, with the interrupt held back until it
+   * returns so that it is not mistaken for a cancellation of the runnable itself.
+   */
+  static final class ConcurrencyLimitedExecutor extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final Set<WaitingTask> waiting = ConcurrentHashMap.newKeySet();
+
+    ConcurrencyLimitedExecutor(ExecutorService delegate, int concurrency) {
+      this.delegate = delegate;
+      this.permits = new Semaphore(concurrency);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      final WaitingTask task = new WaitingTask(command);
+      waiting.add(task);
+      try {
+        delegate.execute(task);
+      } catch (RuntimeException e) {
+        waiting.remove(task);
+        throw e;
+      }
+    }
+
+    @Override
+    public void shutdown() {
+      delegate.shutdown();
+    }
+
+    /* Claims the waiting tasks before interrupting them, so that they are handed back instead of cancelled */
+    @Override
+    public List<Runnable> shutdownNow() {
+      final List<Runnable> notStarted = new ArrayList<>();
+      for (WaitingTask task : waiting) {
+        if (task.claim()) {
+          notStarted.add(task.command);
+        }
+      }
+      delegate.shutdownNow();
+      return notStarted;
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+    }
+
+    private final class WaitingTask implements Runnable {
+
+      private final Runnable command;
+      /** Set by whichever of this task and shutdownNow() gets to decide what becomes of the command */
+      private final AtomicBoolean claimed = new AtomicBoolean();
+
+      private WaitingTask(Runnable command) {
+        this.command = command;
+      }
+
+      private boolean claim() {
+        if (!claimed.compareAndSet(false, true)) {
+          return false;
+        }
+        waiting.remove(this);
+        return true;
+      }
+
+      @Override
+      public void run() {
+        try {
+          permits.acquire();
+        } catch (InterruptedException e) {
+          if (!claim()) {
+            // handed back by shutdownNow()
+            Thread.currentThread().interrupt();
+            return;
+          }
+          if (command instanceof Future) {
+            ((Future<?>) command).cancel(false);
+            Thread.currentThread().interrupt();
+            return;
+          }
+          // an interrupt while waiting is set again by acquireUninterruptibly(), and is held back until the runnable
+          // returns so that it does not abort the runnable as though it were meant for it
+          permits.acquireUninterruptibly();
+          Thread.interrupted();
+          try {
+            runHoldingPermit();
+          } finally {
+            Thread.currentThread().interrupt();
+          }
+          return;
+        }
+        if (!claim()) {
+          permits.release();
+          return;
+        }
+        runHoldingPermit();
+      }
+
+      private void runHoldingPermit() {
+        try {
+          command.run();
+        } finally {
+          permits.release();
+        }
+      }
+    }
+  }
+
+  private static final class DaemonThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+    private final AtomicInteger count = new AtomicInteger();
+
+    private DaemonThreadFactory(String prefix) {
+      this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
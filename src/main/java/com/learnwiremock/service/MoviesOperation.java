@@ -0,0 +1,33 @@
+package com.learnwiremock.service;
+
+import java.util.Optional;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+
+/** The movies service calls made by the client, attached to each request so that exchange filters can tell them apart. */
+@AllArgsConstructor
+public enum MoviesOperation {
+  GET_ALL_MOVIES("getAllMovies", true),
+  GET_MOVIE_BY_ID("getMovieById", true),
+  GET_MOVIES_BY_NAME("getMoviesByName", true),
+  GET_MOVIES_BY_YEAR("getMoviesByYear", true),
+  CREATE_MOVIE("createMovie", false),
+  UPDATE_MOVIE("updateMovie", true),
+  DELETE_MOVIE("deleteMovie", true);
+
+  /** The {@link ClientRequest} attribute holding the operation */
+  public static final String ATTRIBUTE = MoviesOperation.class.getName();
+
+  /** The name operations are reported under by {@link com.learnwiremock.metrics.MoviesClientMetrics} */
+  @Getter
+  private final String metricName;
+
+  /** Whether repeating the call has the same effect as making it once, so that it is safe to retry */
+  @Getter
+  private final boolean idempotent;
+
+  public static Optional<MoviesOperation> of(ClientRequest request) {
+    return request.attribute(ATTRIBUTE).map(MoviesOperation.class::cast);
+  }
+}
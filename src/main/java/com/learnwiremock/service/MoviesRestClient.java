@@ -1,173 +1,204 @@
 package com.learnwiremock.service;
 
-import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.catalog.MovieCatalog;
 import com.learnwiremock.dto.Movie;
-import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.dto.MovieBatchResult;
+import lombok.Getter;
 import lombok.NonNull;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-@Slf4j
+/**
+ * Blocking adapter over {@link ReactiveMoviesRestClient}. Errors are mapped into
+ * {@link com.learnwiremock.exception.MovieErrorResponse} by the reactive client.
+ *
+ * <p>A call parks the calling thread until the response has been handled on an event loop, without holding a
+ * monitor, so calls on virtual threads never pin their carrier. See {@link MoviesExecutors} for executors to make
+ * calls on.
+ *
+ * <p>Every call also has an {@code ...Async} variant which returns a {@link CompletableFuture} straight away and
+ * blocks no thread while waiting. The future fails with the {@link com.learnwiremock.exception.MovieErrorResponse}
+ * itself, wrapped only by {@link java.util.concurrent.CompletionException} or
+ * {@link java.util.concurrent.ExecutionException} as {@code join()} and {@code get()} do. Cancelling the future
+ * cancels the call, closing the connection of an exchange in progress. Futures complete on an event loop thread, so
+ * stages which block must be added with the {@code ...Async} methods of the future.
+ */
 public class MoviesRestClient {
 
-  private final WebClient webClient;
+  /** The number of decoded movies requested ahead of the consumer when streaming the catalogue */
+  private static final int STREAMING_PREFETCH = 256;
+
+  @Getter
+  private final ReactiveMoviesRestClient reactiveClient;
 
   public MoviesRestClient(WebClient webClient) {
-    this.webClient = webClient;
+    this(new ReactiveMoviesRestClient(webClient));
+  }
+
+  public MoviesRestClient(WebClient webClient, MoviesRestClientOptions options) {
+    this(new ReactiveMoviesRestClient(webClient, options));
+  }
+
+  public MoviesRestClient(ReactiveMoviesRestClient reactiveClient) {
+    this.reactiveClient = reactiveClient;
+  }
+
+  /** A view of this client whose calls must each complete within the given deadline */
+  public MoviesRestClient withDeadline(@NonNull Duration deadline) {
+    return new MoviesRestClient(reactiveClient.withDeadline(deadline));
   }
 
   public List<Movie> getAllMovies() {
-    try {
-      return webClient.get()
-          .uri(MoviesAppConstants.V1_GET_ALL_MOVIES)
-          .retrieve()
-          .bodyToFlux(Movie.class)
-          .collectList()
-          .block();
-    } catch (WebClientResponseException e) {
-      log.error(String.format(e.getClass().getName()
-              + ": Could not retrieve all movies with status %s. Response message is: %s",e.getStatusCode(), e.getResponseBodyAsString()));
-      throw new MovieErrorResponse(e.getStatusText(), e);
-    } catch (Exception e) {
-      log.error(
-          String.format(e.getClass().getName() + ": Could not retrieve all movies. Response message is: %s", e.getMessage()));
-      throw new MovieErrorResponse(e);
+    return reactiveClient.getAllMovies().collectList().block();
+  }
+
+  /**
+   * Streams the full catalogue with bounded memory. The stream must be fully consumed or closed so that the
+   * underlying response is released.
+   */
+  public Stream<Movie> streamAllMovies() {
+    return reactiveClient.getAllMovies().toStream(STREAMING_PREFETCH);
+  }
+
+  /** Hands each movie in the catalogue to the consumer on the calling thread as it is decoded. */
+  public void forEachMovie(@NonNull Consumer<Movie> consumer) {
+    try (Stream<Movie> movies = streamAllMovies()) {
+      movies.forEach(consumer);
     }
   }
 
+  /** The full catalogue in compact form, built as movies are decoded so that no list of them is ever held. */
+  public MovieCatalog getMovieCatalog() {
+    return reactiveClient.getMovieCatalog().block();
+  }
+
   public Movie getMovieById(@NonNull Long id) {
-    try {
-      return webClient.get()
-          .uri(MoviesAppConstants.V1_GET_MOVIE_BY_ID, id)
-          .retrieve()
-          .bodyToMono(Movie.class)
-          .block();
-    } catch (WebClientResponseException e) {
-      log.error(String.format(e.getClass().getName()
-              + ": Movie id %d not found with status %s. Response message is: %s", id,
-          e.getStatusCode(), e.getResponseBodyAsString()));
-      throw new MovieErrorResponse(e.getStatusText(), e);
-    } catch (Exception e) {
-      log.error(
-          String.format(e.getClass().getName() + ": Movie id %d not found. Response message is: %s",
-              id, e.getMessage()));
-      throw new MovieErrorResponse(e);
-    }
+    return reactiveClient.getMovieById(id).block();
+  }
+
+  public List<MovieBatchResult<Long>> getMoviesByIds(@NonNull Collection<Long> ids) {
+    return reactiveClient.getMoviesByIds(ids).collectList().block();
+  }
+
+  public List<MovieBatchResult<Long>> getMoviesByIds(@NonNull Collection<Long> ids, int concurrency) {
+    return reactiveClient.getMoviesByIds(ids, concurrency).collectList().block();
   }
 
   public List<Movie> getMoviesByName(@NonNull String name) {
-    if (name.isBlank()) {
-      throw new IllegalArgumentException("Name argument in get movies by name must not be blank");
-    }
-    try {
-      return webClient.get()
-          .uri(builder -> builder
-              .path(MoviesAppConstants.V1_GET_MOVIE_BY_NAME)
-              .queryParam(MoviesAppConstants.V1_GET_MOVIE_BY_NAME_QUERY_PARAM_MOVIE_NAME, name)
-              .build())
-          .retrieve()
-          .bodyToFlux(Movie.class)
-          .collectList()
-          .block();
-    } catch (WebClientResponseException e) {
-      log.error(String.format(e.getClass().getName()
-              + ": Movies matching name %s not found with status %s. Response message is: %s", name,
-          e.getStatusCode(), e.getResponseBodyAsString()));
-      throw new MovieErrorResponse(e.getStatusText(), e);
-    } catch (Exception e) {
-      log.error(String.format(
-          e.getClass().getName() + ": Movies matching name %s not found. Response message is: %s", name,
-          e.getMessage()));
-      throw new MovieErrorResponse(e);
-    }
+    return reactiveClient.getMoviesByName(name).collectList().block();
   }
 
   public List<Movie> getMoviesByYear(@NonNull Integer year) {
-    try {
-      return webClient.get()
-          .uri(builder -> builder
-              .path(MoviesAppConstants.V1_GET_MOVIE_BY_YEAR)
-              .queryParam(MoviesAppConstants.V1_GET_MOVIE_BY_YEAR_QUERY_PARAM_YEAR, year)
-              .build())
-          .retrieve()
-          .bodyToFlux(Movie.class)
-          .collectList()
-          .block();
-    } catch (WebClientResponseException e) {
-      log.error(String.format(e.getClass().getName()
-              + ": Movies from year %d not found with status %s. Response message is: %s", year,
-          e.getStatusCode(), e.getResponseBodyAsString()));
-      throw new MovieErrorResponse(e.getStatusText(), e);
-    } catch (Exception e) {
-      log.error(String.format(
-          e.getClass().getName() + ": Movies from year %d not found. Response message is: %s", year,
-          e.getMessage()));
-      throw new MovieErrorResponse(e);
-    }
+    return reactiveClient.getMoviesByYear(year).collectList().block();
   }
 
   public Movie createMovie(@NonNull Movie movie) {
-    try {
-      return webClient.post()
-          .uri(MoviesAppConstants.V1_POST_MOVIE)
-          .syncBody(movie)
-          .retrieve()
-          .bodyToMono(Movie.class)
-          .block();
-    } catch (WebClientResponseException e) {
-      log.error(String.format(e.getClass().getName()
-              + ": Movie %s could not be created with status %s. Response message is: %s", movie,
-          e.getStatusCode(), e.getResponseBodyAsString()));
-      throw new MovieErrorResponse(e.getStatusText(), e);
-    } catch (Exception e) {
-      log.error(String.format(
-          e.getClass().getName() + ": Movie %s could not be created. Response message is: %s", movie,
-          e.getMessage()));
-      throw new MovieErrorResponse(e);
-    }
+    return reactiveClient.createMovie(movie).block();
   }
 
   public Movie updateMovie(@NonNull Long id, @NonNull Movie movie) {
-    try {
-      return webClient.put()
-          .uri(MoviesAppConstants.V1_PUT_MOVIE_BY_ID, id)
-          .syncBody(movie)
-          .retrieve()
-          .bodyToMono(Movie.class)
-          .block();
-    } catch (WebClientResponseException e) {
-      log.error(String.format(e.getClass().getName()
-              + ": Movie %s could not be updated with status %s. Response message is: %s", movie,
-          e.getStatusCode(), e.getResponseBodyAsString()));
-      throw new MovieErrorResponse(e.getStatusText(), e);
-    } catch (Exception e) {
-      log.error(String.format(
-          e.getClass().getName() + ": Movie %s could not be updated. Response message is: %s", movie,
-          e.getMessage()));
-      throw new MovieErrorResponse(e);
-    }
+    return reactiveClient.updateMovie(id, movie).block();
+  }
+
+  /** Results are returned in completion order, see {@link ReactiveMoviesRestClient#createMovies(org.reactivestreams.Publisher, int)}. */
+  public List<MovieBatchResult<Movie>> createMovies(@NonNull Iterable<Movie> movies) {
+    return reactiveClient.createMovies(Flux.fromIterable(movies)).collectList().block();
+  }
+
+  public List<MovieBatchResult<Movie>> createMovies(@NonNull Iterable<Movie> movies, int concurrency) {
+    return reactiveClient.createMovies(Flux.fromIterable(movies), concurrency).collectList().block();
+  }
+
+  public List<MovieBatchResult<Movie>> updateMovies(@NonNull Iterable<Movie> movies) {
+    return reactiveClient.updateMovies(Flux.fromIterable(movies)).collectList().block();
+  }
+
+  public List<MovieBatchResult<Movie>> updateMovies(@NonNull Iterable<Movie> movies, int concurrency) {
+    return reactiveClient.updateMovies(Flux.fromIterable(movies), concurrency).collectList().block();
   }
 
   public String deleteMovie(@NonNull Long id) {
-    try {
-      return webClient.delete()
-          .uri(MoviesAppConstants.V1_DELETE_MOVIE_BY_ID, id)
-          .retrieve()
-          .bodyToMono(String.class)
-          .block();
-    } catch (WebClientResponseException e) {
-      log.error(String.format(e.getClass().getName()
-              + ": Movie with id %d could not be deleted with status %s. Response message is: %s", id,
-          e.getStatusCode(), e.getResponseBodyAsString()));
-      throw new MovieErrorResponse(e.getStatusText(), e);
-    } catch (Exception e) {
-      log.error(String.format(
-          e.getClass().getName() + ": Movie with id %d could not be deleted. Response message is: %s", id,
-          e.getMessage()));
-      throw new MovieErrorResponse(e);
-    }
+    return reactiveClient.deleteMovie(id).block();
+  }
+
+  public CompletableFuture<List<Movie>> getAllMoviesAsync() {
+    return toFuture(reactiveClient.getAllMovies().collectList());
+  }
+
+  /** Hands each movie to the consumer on the event loop as it is decoded, completing once all have been. */
+  public CompletableFuture<Void> forEachMovieAsync(@NonNull Consumer<Movie> consumer) {
+    return toFuture(reactiveClient.getAllMovies().doOnNext(consumer).then());
+  }
+
+  public CompletableFuture<MovieCatalog> getMovieCatalogAsync() {
+    return toFuture(reactiveClient.getMovieCatalog());
+  }
+
+  public CompletableFuture<Movie> getMovieByIdAsync(@NonNull Long id) {
+    return toFuture(reactiveClient.getMovieById(id));
+  }
+
+  public CompletableFuture<List<MovieBatchResult<Long>>> getMoviesByIdsAsync(@NonNull Collection<Long> ids) {
+    return toFuture(reactiveClient.getMoviesByIds(ids).collectList());
+  }
+
+  public CompletableFuture<List<MovieBatchResult<Long>>> getMoviesByIdsAsync(@NonNull Collection<Long> ids,
+      int concurrency) {
+    return toFuture(reactiveClient.getMoviesByIds(ids, concurrency).collectList());
+  }
+
+  public CompletableFuture<List<Movie>> getMoviesByNameAsync(@NonNull String name) {
+    return toFuture(reactiveClient.getMoviesByName(name).collectList());
+  }
+
+  public CompletableFuture<List<Movie>> getMoviesByYearAsync(@NonNull Integer year) {
+    return toFuture(reactiveClient.getMoviesByYear(year).collectList());
+  }
+
+  public CompletableFuture<Movie> createMovieAsync(@NonNull Movie movie) {
+    return toFuture(reactiveClient.createMovie(movie));
+  }
+
+  public CompletableFuture<Movie> updateMovieAsync(@NonNull Long id, @NonNull Movie movie) {
+    return toFuture(reactiveClient.updateMovie(id, movie));
+  }
+
+  public CompletableFuture<List<MovieBatchResult<Movie>>> createMoviesAsync(@NonNull Iterable<Movie> movies) {
+    return toFuture(reactiveClient.createMovies(Flux.fromIterable(movies)).collectList());
+  }
+
+  public CompletableFuture<List<MovieBatchResult<Movie>>> createMoviesAsync(@NonNull Iterable<Movie> movies,
+      int concurrency) {
+    return toFuture(reactiveClient.createMovies(Flux.fromIterable(movies), concurrency).collectList());
+  }
+
+  public CompletableFuture<List<MovieBatchResult<Movie>>> updateMoviesAsync(@NonNull Iterable<Movie> movies) {
+    return toFuture(reactiveClient.updateMovies(Flux.fromIterable(movies)).collectList());
+  }
+
+  public CompletableFuture<List<MovieBatchResult<Movie>>> updateMoviesAsync(@NonNull Iterable<Movie> movies,
+      int concurrency) {
+    return toFuture(reactiveClient.updateMovies(Flux.fromIterable(movies), concurrency).collectList());
+  }
+
+  public CompletableFuture<String> deleteMovieAsync(@NonNull Long id) {
+    return toFuture(reactiveClient.deleteMovie(id));
+  }
+
+  /*
+   * The future subscribes straight away and cancels its subscription when cancelled. Errors Reactor wrapped on the
+   * way, such as a checked exception, are unwrapped so that the future fails with the error the call signalled.
+   */
+  private static <T> CompletableFuture<T> toFuture(Mono<T> call) {
+    return call.onErrorMap(Exceptions::unwrap).toFuture();
   }
 }
@@ -0,0 +1,100 @@
+package com.learnwiremock.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnwiremock.cache.MovieCache;
+import com.learnwiremock.cache.ValidatorCache;
+import com.learnwiremock.codec.MovieJson;
+import com.learnwiremock.codec.MovieSmile;
+import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.metrics.MoviesClientMetrics;
+import com.learnwiremock.resilience.AdaptiveConcurrencyLimiter;
+import com.learnwiremock.resilience.CircuitBreakerPolicy;
+import com.learnwiremock.resilience.HedgingPolicy;
+import com.learnwiremock.resilience.RateLimiter;
+import com.learnwiremock.resilience.RetryPolicy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Getter;
+
+/** Optional behaviour layered on top of the plain HTTP calls made by {@link ReactiveMoviesRestClient}. */
+@Getter
+@Builder(toBuilder = true)
+public class MoviesRestClientOptions {
+
+  /** Read-through cache for get movie by id, disabled when null */
+  private final MovieCache movieCache;
+
+  /**
+   * Makes get all movies, by name and by year conditional requests, serving the movies of the previous response for
+   * the same URI when the movies service answers 304 Not Modified. Disabled when null.
+   */
+  private final ValidatorCache validatorCache;
+
+  /** Whether concurrent identical get by id, name and year lookups share one outstanding request */
+  @Builder.Default
+  private final boolean coalesceReads = true;
+
+  /** Encodes and decodes movies, replacing the JSON codecs of the web client */
+  @Builder.Default
+  private final ObjectMapper objectMapper = MovieJson.objectMapper();
+
+  /**
+   * Whether responses are requested in the Smile binary format, see {@link MovieSmile}. JSON stays acceptable, so
+   * servers without Smile support keep answering in JSON. Request bodies are always sent as JSON.
+   */
+  @Builder.Default
+  private final boolean preferSmile = false;
+
+  /** The maximum number of requests a batch operation keeps in flight at once */
+  @Builder.Default
+  private final int batchConcurrency = 8;
+
+  /** Receives per-operation latency, status and response size measurements */
+  @Builder.Default
+  private final MoviesClientMetrics metrics = MoviesClientMetrics.NOOP;
+
+  /** The number of bytes of an error response body kept for logging and {@link MovieErrorResponse#getResponseBody()} */
+  @Builder.Default
+  private final int errorBodyCaptureLimit = 1024;
+
+  /** Whether errors are created without stack traces, see {@link MovieErrorResponse#withoutStackTrace} */
+  @Builder.Default
+  private final boolean stacklessErrors = false;
+
+  /**
+   * Create and update request bodies of at least this many bytes are sent gzip compressed, none when null. Only set it
+   * when the movies service accepts {@code Content-Encoding: gzip} requests.
+   */
+  private final Integer requestCompressionThreshold;
+
+  /** Retries for the idempotent get, update and delete calls, disabled when null */
+  private final RetryPolicy retryPolicy;
+
+  /** Policy of the circuit breaker each operation gets, disabled when null */
+  private final CircuitBreakerPolicy circuitBreakerPolicy;
+
+  /** Hedging of get by id, name and year, disabled when null */
+  private final HedgingPolicy hedgingPolicy;
+
+  /** Keeps every request within a quota, none when null. Set the same limiter on several clients to share it. */
+  private final RateLimiter rateLimiter;
+
+  /** Adapts the requests in flight to the load of the movies service, unlimited when null. Shareable as well. */
+  private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+  /**
+   * The time each call has to complete in, from acquiring a connection to decoding the response and including
+   * retries, none when null. See {@link ReactiveMoviesRestClient#withDeadline} for deadlines of individual calls.
+   */
+  private final Duration deadline;
+
+  /** Deadlines of individual operations, overriding {@link #deadline} */
+  @Builder.Default
+  private final Map<MoviesOperation, Duration> operationDeadlines = Collections.emptyMap();
+
+  public static MoviesRestClientOptions defaults() {
+    return builder().build();
+  }
+}
@@ -0,0 +1,234 @@
+package com.learnwiremock.service;
+
+import com.learnwiremock.metrics.MoviesClientMetrics;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import io.netty.util.AttributeKey;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.ConnectionObserver;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+import reactor.netty.tcp.TcpClient;
+import reactor.util.context.Context;
+
+/**
+ * Builds {@link WebClient}s for the movies service which share one tuned connection pool and event loop group, so
+ * that sockets are reused across clients instead of being churned under load. Close the factory to release them.
+ *
+ * <p>Reactor Netty 0.8 only offers a maximum size and an acquire timeout on its fixed pool, so the pending acquire
+ * limit and idle eviction are implemented here on top of it.
+ */
+@Slf4j
+public class MoviesWebClientFactory implements AutoCloseable {
+
+  public static final int DEFAULT_MAX_CONNECTIONS = 50;
+  public static final Duration DEFAULT_PENDING_ACQUIRE_TIMEOUT = Duration.ofSeconds(10);
+  public static final Duration DEFAULT_MAX_IDLE_TIME = Duration.ofSeconds(20);
+  public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+  public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(10);
+  public static final Duration DEFAULT_WRITE_TIMEOUT = Duration.ofSeconds(10);
+
+  private static final AttributeKey<Boolean> IDLE_IN_POOL = AttributeKey.valueOf("movies.idleInPool");
+  private static final String IDLE_EVICTION_HANDLER = "movies.idleEviction";
+  private static final String ACQUIRE_STARTED = "movies.acquireStarted";
+
+  @Getter
+  private final String name;
+  @Getter
+  private final int maxConnections;
+  @Getter
+  private final int maxPendingAcquires;
+  @Getter
+  private final Duration pendingAcquireTimeout;
+  @Getter
+  private final Duration maxIdleTime;
+  @Getter
+  private final boolean keepAlive;
+  @Getter
+  private final int eventLoopThreads;
+  @Getter
+  private final boolean preferNativeTransport;
+  @Getter
+  private final boolean compress;
+  private final Duration connectTimeout;
+  private final Duration readTimeout;
+  private final Duration writeTimeout;
+  @Getter
+  private final MoviesClientMetrics metrics;
+
+  private final ConnectionProvider connectionProvider;
+  private final LoopResources loopResources;
+  private final HttpClient httpClient;
+
+  private final AtomicInteger outstandingConnects = new AtomicInteger();
+  private final LongAdder openedConnections = new LongAdder();
+  private final LongAdder idleEvictions = new LongAdder();
+
+  /**
+   * @param name the prefix of the pool and event loop thread names
+   * @param maxConnections the maximum number of pooled connections
+   * @param maxPendingAcquires the maximum number of requests waiting for a connection before new ones are rejected,
+   *     twice the maximum number of connections by default
+   * @param pendingAcquireTimeout how long a request waits for a pooled connection
+   * @param maxIdleTime how long a released connection may sit unused in the pool before it is closed
+   * @param keepAlive whether HTTP persistent connections and TCP keep-alive probes are used
+   * @param eventLoopThreads the number of event loop threads, one per core by default
+   * @param preferNativeTransport whether native epoll transport is used when it is available
+   * @param compress whether gzip and deflate responses are accepted and decompressed as they stream in, true by
+   *     default
+   * @param metrics receives connection acquire times, and the measurements of clients created by the factory
+   */
+  @Builder
+  private MoviesWebClientFactory(String name, Integer maxConnections, Integer maxPendingAcquires,
+      Duration pendingAcquireTimeout, Duration maxIdleTime, Boolean keepAlive, Integer eventLoopThreads,
+      Boolean preferNativeTransport, Boolean compress, Duration connectTimeout, Duration readTimeout, Duration writeTimeout,
+      MoviesClientMetrics metrics) {
+    this.name = name == null ? "movies-http" : name;
+    this.maxConnections = maxConnections == null ? DEFAULT_MAX_CONNECTIONS : maxConnections;
+    this.maxPendingAcquires = maxPendingAcquires == null ? 2 * this.maxConnections : maxPendingAcquires;
+    this.pendingAcquireTimeout = pendingAcquireTimeout == null ? DEFAULT_PENDING_ACQUIRE_TIMEOUT : pendingAcquireTimeout;
+    this.maxIdleTime = maxIdleTime == null ? DEFAULT_MAX_IDLE_TIME : maxIdleTime;
+    this.keepAlive = keepAlive == null || keepAlive;
+    this.eventLoopThreads = eventLoopThreads == null ? LoopResources.DEFAULT_IO_WORKER_COUNT : eventLoopThreads;
+    this.preferNativeTransport = preferNativeTransport == null ? LoopResources.DEFAULT_NATIVE : preferNativeTransport;
+    this.compress = compress == null || compress;
+    this.connectTimeout = connectTimeout == null ? DEFAULT_CONNECT_TIMEOUT : connectTimeout;
+    this.readTimeout = readTimeout == null ? DEFAULT_READ_TIMEOUT : readTimeout;
+    this.writeTimeout = writeTimeout == null ? DEFAULT_WRITE_TIMEOUT : writeTimeout;
+    this.metrics = metrics == null ? MoviesClientMetrics.NOOP : metrics;
+    if (this.maxConnections < 1 || this.maxPendingAcquires < 0 || this.eventLoopThreads < 1) {
+      throw new IllegalArgumentException("Connection pool and event loop sizes must be positive");
+    }
+
+    this.connectionProvider = ConnectionProvider.fixed(
+        this.name, this.maxConnections, this.pendingAcquireTimeout.toMillis());
+    this.loopResources = LoopResources.create(this.name, this.eventLoopThreads, true);
+    this.httpClient = HttpClient.from(createTcpClient())
+        .keepAlive(this.keepAlive)
+        .compress(this.compress)
+        .observe(this::onConnectionStateChange)
+        .doOnRequest((request, connection) -> {
+          recordAcquireTime(request.currentContext());
+          DeadlineTracker.enter(request.currentContext(), DeadlineTracker.Phase.SEND);
+        })
+        .mapConnect(this::limitPendingAcquires);
+  }
+
+  private TcpClient createTcpClient() {
+    return TcpClient.create(connectionProvider)
+        .runOn(loopResources, preferNativeTransport)
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+        .option(ChannelOption.SO_KEEPALIVE, keepAlive)
+        // these handlers are added on every acquire and removed again when the connection is released
+        .doOnConnected(connection -> connection
+            .addHandlerLast(new ReadTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS))
+            .addHandlerLast(new WriteTimeoutHandler(writeTimeout.toMillis(), TimeUnit.MILLISECONDS))
+        );
+  }
+
+  public WebClient.Builder webClientBuilder() {
+    return WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient));
+  }
+
+  public WebClient createWebClient(String baseUrl) {
+    return webClientBuilder().baseUrl(baseUrl).build();
+  }
+
+  /** Creates a client with the default options, reporting to the factory's metrics. */
+  public MoviesRestClient createRestClient(String baseUrl) {
+    return createRestClient(baseUrl, MoviesRestClientOptions.builder().metrics(metrics).build());
+  }
+
+  public MoviesRestClient createRestClient(String baseUrl, MoviesRestClientOptions options) {
+    return new MoviesRestClient(createWebClient(baseUrl), options);
+  }
+
+  /** The number of connections opened since the factory was created */
+  public long getOpenedConnectionCount() {
+    return openedConnections.sum();
+  }
+
+  /** The number of pooled connections closed for exceeding the maximum idle time */
+  public long getIdleEvictionCount() {
+    return idleEvictions.sum();
+  }
+
+  @Override
+  public void close() {
+    connectionProvider.dispose();
+    loopResources.dispose();
+  }
+
+  private void onConnectionStateChange(Connection connection, ConnectionObserver.State state) {
+    if (state == ConnectionObserver.State.CONNECTED) {
+      openedConnections.increment();
+      // added to the channel directly rather than through the connection so that it survives pool releases
+      if (connection.channel().pipeline().get(IDLE_EVICTION_HANDLER) == null) {
+        connection.channel().pipeline().addFirst(IDLE_EVICTION_HANDLER, new PooledIdleEvictionHandler());
+      }
+    } else if (state == ConnectionObserver.State.RELEASED) {
+      connection.channel().attr(IDLE_IN_POOL).set(Boolean.TRUE);
+    } else if (state == ConnectionObserver.State.ACQUIRED) {
+      connection.channel().attr(IDLE_IN_POOL).set(Boolean.FALSE);
+    }
+  }
+
+  private Mono<? extends Connection> limitPendingAcquires(Mono<? extends Connection> acquire, Bootstrap bootstrap) {
+    // the connect mono spans the whole exchange in reactor netty 0.8, so count requests holding or waiting for a
+    // connection and reject once every connection is busy and the pending limit is reached as well
+    return Mono.defer(() -> {
+      if (outstandingConnects.incrementAndGet() > maxConnections + maxPendingAcquires) {
+        outstandingConnects.decrementAndGet();
+        return Mono.error(new IllegalStateException(String.format(
+            "Connection pool %s has reached its limit of %d pending acquires", name, maxPendingAcquires)));
+      }
+      return acquire
+          .doFinally(signal -> outstandingConnects.decrementAndGet())
+          .subscriberContext(context -> {
+            DeadlineTracker.enter(context, DeadlineTracker.Phase.ACQUIRE);
+            return context.put(ACQUIRE_STARTED, System.nanoTime());
+          });
+    });
+  }
+
+  /* The request is about to be written on the connection acquired when the exchange began */
+  private void recordAcquireTime(Context context) {
+    final Long acquireStarted = context.getOrDefault(ACQUIRE_STARTED, null);
+    if (acquireStarted != null) {
+      metrics.connectionAcquired(System.nanoTime() - acquireStarted);
+    }
+  }
+
+  /** Closes a connection once it has been idle in the pool for longer than the maximum idle time. */
+  private class PooledIdleEvictionHandler extends IdleStateHandler {
+
+    PooledIdleEvictionHandler() {
+      super(0, 0, maxIdleTime.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void channelIdle(ChannelHandlerContext ctx, IdleStateEvent evt) {
+      if (Boolean.TRUE.equals(ctx.channel().attr(IDLE_IN_POOL).get())) {
+        log.debug("Closing connection {} after {} idle in pool {}", ctx.channel(), maxIdleTime, name);
+        idleEvictions.increment();
+        ctx.close();
+      }
+    }
+  }
+}
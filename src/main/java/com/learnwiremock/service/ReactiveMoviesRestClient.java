@@ -0,0 +1,689 @@
+package com.learnwiremock.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnwiremock.cache.MovieCache;
+import com.learnwiremock.catalog.MovieCatalog;
+import com.learnwiremock.cache.ValidatorCache;
+import com.learnwiremock.codec.MovieSmile;
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.dto.MovieBatchResult;
+import com.learnwiremock.exception.CircuitBreakerOpenException;
+import com.learnwiremock.exception.MovieDeadlineExceededException;
+import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.metrics.MoviesClientMetrics;
+import com.learnwiremock.resilience.CircuitBreaker;
+import com.learnwiremock.resilience.CircuitBreakerPolicy;
+import com.learnwiremock.resilience.HedgingPolicy;
+import com.learnwiremock.resilience.RetryPolicy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.NonNull;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+/**
+ * Non-blocking client for the movies service. Every failure is mapped into a {@link MovieErrorResponse}
+ * so that subscribers and the blocking {@link MoviesRestClient} adapter see the same errors.
+ */
+public class ReactiveMoviesRestClient {
+
+  /* The whole catalogue is too large a response to ask for twice */
+  private static final Set<MoviesOperation> HEDGED_OPERATIONS = EnumSet.of(
+      MoviesOperation.GET_MOVIE_BY_ID, MoviesOperation.GET_MOVIES_BY_NAME, MoviesOperation.GET_MOVIES_BY_YEAR);
+
+  /* Servers without Smile support answer in JSON as before */
+  private static final String SMILE_OR_JSON = MovieSmile.MEDIA_TYPE + ", " + MediaType.APPLICATION_JSON + ";q=0.9";
+
+  private final WebClient webClient;
+  private final MovieArrayDecoder movieArrayDecoder;
+  /** Null unless Smile is negotiated */
+  private final MovieArrayDecoder smileArrayDecoder;
+  private final MovieCache movieCache;
+  /** Null when conditional requests are disabled */
+  private final ValidatorCache validatorCache;
+  /** Null when read coalescing is disabled */
+  private final RequestCoalescer readCoalescer;
+  private final int batchConcurrency;
+  private final MovieErrorHandler errorHandler;
+  /** Null when retries are disabled */
+  private final RetryPolicy retryPolicy;
+  /** Null when circuit breaking is disabled */
+  private final Map<MoviesOperation, CircuitBreaker> circuitBreakers;
+  /** Empty when hedging is disabled */
+  private final Map<MoviesOperation, RequestHedger> hedgers;
+  /** Null when neither rate nor concurrency are limited */
+  private final RequestLimiter requestLimiter;
+  private final MoviesClientMetrics metrics;
+  /** The deadline of each operation which has one */
+  private final Map<MoviesOperation, Duration> deadlines;
+  /** Shared with the views of this client, so that writes through them are heard too */
+  private final List<MovieWriteListener> writeListeners;
+
+  public ReactiveMoviesRestClient(WebClient webClient) {
+    this(webClient, MoviesRestClientOptions.defaults());
+  }
+
+  public ReactiveMoviesRestClient(WebClient webClient, @NonNull MoviesRestClientOptions options) {
+    final ObjectMapper objectMapper = options.getObjectMapper();
+    final WebClient.Builder webClientBuilder = webClient.mutate()
+        .exchangeStrategies(ExchangeStrategies.builder()
+            .codecs(codecs -> {
+              codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+              codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+            })
+            .build())
+        .filter(new DeadlinePhaseFilter());
+    if (options.isPreferSmile()) {
+      webClientBuilder.defaultHeader(HttpHeaders.ACCEPT, SMILE_OR_JSON);
+    }
+    if (options.getMetrics() != MoviesClientMetrics.NOOP) {
+      webClientBuilder.filter(new MetricsExchangeFilter(options.getMetrics()));
+    }
+    if (options.getRequestCompressionThreshold() != null) {
+      webClientBuilder.filter(new RequestCompressionFilter(options.getRequestCompressionThreshold()));
+    }
+    this.webClient = webClientBuilder.build();
+    this.movieArrayDecoder = new MovieArrayDecoder(objectMapper);
+    this.smileArrayDecoder = options.isPreferSmile() ? new MovieArrayDecoder(MovieSmile.objectMapper()) : null;
+    this.movieCache = options.getMovieCache();
+    this.validatorCache = options.getValidatorCache();
+    this.readCoalescer = options.isCoalesceReads() ? new RequestCoalescer() : null;
+    this.batchConcurrency = options.getBatchConcurrency();
+    this.errorHandler = new MovieErrorHandler(options.getErrorBodyCaptureLimit(), options.isStacklessErrors());
+    this.retryPolicy = options.getRetryPolicy();
+    this.metrics = options.getMetrics();
+    this.circuitBreakers = options.getCircuitBreakerPolicy() == null
+        ? null
+        : createCircuitBreakers(options.getCircuitBreakerPolicy(), metrics);
+    this.hedgers = createHedgers(options.getHedgingPolicy(), metrics);
+    this.requestLimiter = options.getRateLimiter() == null && options.getConcurrencyLimiter() == null
+        ? null
+        : new RequestLimiter(options.getRateLimiter(), options.getConcurrencyLimiter(), metrics);
+    this.deadlines = new EnumMap<>(MoviesOperation.class);
+    for (MoviesOperation operation : MoviesOperation.values()) {
+      final Duration deadline = options.getOperationDeadlines().getOrDefault(operation, options.getDeadline());
+      if (deadline != null) {
+        deadlines.put(operation, deadline);
+      }
+    }
+    this.writeListeners = new CopyOnWriteArrayList<>();
+  }
+
+  /* Shares everything with the given client except for the deadlines */
+  private ReactiveMoviesRestClient(ReactiveMoviesRestClient client, Map<MoviesOperation, Duration> deadlines) {
+    this.webClient = client.webClient;
+    this.movieArrayDecoder = client.movieArrayDecoder;
+    this.smileArrayDecoder = client.smileArrayDecoder;
+    this.movieCache = client.movieCache;
+    this.validatorCache = client.validatorCache;
+    this.readCoalescer = client.readCoalescer;
+    this.batchConcurrency = client.batchConcurrency;
+    this.errorHandler = client.errorHandler;
+    this.retryPolicy = client.retryPolicy;
+    this.metrics = client.metrics;
+    this.circuitBreakers = client.circuitBreakers;
+    this.hedgers = client.hedgers;
+    this.requestLimiter = client.requestLimiter;
+    this.deadlines = deadlines;
+    this.writeListeners = client.writeListeners;
+  }
+
+  /**
+   * A view of this client whose calls must each complete within the given deadline, whatever the deadlines of its
+   * operations. The view shares its connections, cache, circuit breakers and metrics with this client.
+   */
+  public ReactiveMoviesRestClient withDeadline(@NonNull Duration deadline) {
+    final Map<MoviesOperation, Duration> deadlines = new EnumMap<>(MoviesOperation.class);
+    for (MoviesOperation operation : MoviesOperation.values()) {
+      deadlines.put(operation, deadline);
+    }
+    return new ReactiveMoviesRestClient(this, deadlines);
+  }
+
+  private static Map<MoviesOperation, CircuitBreaker> createCircuitBreakers(CircuitBreakerPolicy policy,
+      MoviesClientMetrics metrics) {
+    final Map<MoviesOperation, CircuitBreaker> circuitBreakers = new EnumMap<>(MoviesOperation.class);
+    for (MoviesOperation operation : MoviesOperation.values()) {
+      circuitBreakers.put(operation,
+          new CircuitBreaker(operation.getMetricName(), policy, metrics::circuitBreakerStateChanged));
+    }
+    return circuitBreakers;
+  }
+
+  private static Map<MoviesOperation, RequestHedger> createHedgers(HedgingPolicy policy, MoviesClientMetrics metrics) {
+    final Map<MoviesOperation, RequestHedger> hedgers = new EnumMap<>(MoviesOperation.class);
+    if (policy != null) {
+      for (MoviesOperation operation : HEDGED_OPERATIONS) {
+        hedgers.put(operation, new RequestHedger(policy, operation, metrics));
+      }
+    }
+    return hedgers;
+  }
+
+  /**
+   * Movies are emitted in order as soon as each array element has been decoded, so the catalogue is never
+   * buffered as a whole unless the subscriber collects it. With a validator cache the movies are also kept for
+   * when the next call is answered with 304 Not Modified.
+   */
+  public Flux<Movie> getAllMovies() {
+    return retrieveMovies(MoviesAppConstants.V1_GET_ALL_MOVIES, MoviesOperation.GET_ALL_MOVIES, "",
+        () -> webClient.get()
+            .uri(MoviesAppConstants.V1_GET_ALL_MOVIES)
+            .attribute(MoviesOperation.ATTRIBUTE, MoviesOperation.GET_ALL_MOVIES))
+        .onErrorMap(errorHandler.onFailure(MoviesOperation.GET_ALL_MOVIES, ""))
+        .transform(request -> resilient(request, MoviesOperation.GET_ALL_MOVIES))
+        .transform(call -> withinDeadline(call, MoviesOperation.GET_ALL_MOVIES));
+  }
+
+  /**
+   * The full catalogue in compact form, see {@link MovieCatalog}. Movies are added as they are decoded, while the
+   * catalogue is built on a parallel scheduler so that sorting a large one does not hold up the event loop.
+   */
+  public Mono<MovieCatalog> getMovieCatalog() {
+    return getAllMovies()
+        .collect(MovieCatalog::builder, MovieCatalog.Builder::add)
+        .publishOn(Schedulers.parallel())
+        .map(MovieCatalog.Builder::build);
+  }
+
+  /** Served from the movie cache when one is configured, loading and caching the movie on a miss. */
+  public Mono<Movie> getMovieById(@NonNull Long id) {
+    final Mono<Movie> movie = movieCache == null ? fetchMovieById(id) : Mono.defer(() -> {
+      final Movie cached = movieCache.get(id);
+      if (cached != null) {
+        return Mono.just(cached);
+      }
+      final long loadStamp = movieCache.loadStamp();
+      return fetchMovieById(id).doOnNext(loaded -> movieCache.putIfNotInvalidated(id, loaded, loadStamp));
+    });
+    return withinDeadline(movie, MoviesOperation.GET_MOVIE_BY_ID);
+  }
+
+  private Mono<Movie> fetchMovieById(Long id) {
+    if (readCoalescer == null) {
+      return requestMovieById(id);
+    }
+    // coalesced callers each get their own copy of the shared decoded movie
+    final String key = coalescingKey("id:" + id, MoviesOperation.GET_MOVIE_BY_ID);
+    return readCoalescer.coalesce(key, () -> requestMovieById(id)).map(Movie::new);
+  }
+
+  private Mono<Movie> requestMovieById(Long id) {
+    return webClient.get()
+        .uri(MoviesAppConstants.V1_GET_MOVIE_BY_ID, id)
+        .attribute(MoviesOperation.ATTRIBUTE, MoviesOperation.GET_MOVIE_BY_ID)
+        .retrieve()
+        .onStatus(HttpStatus::isError, errorHandler.onErrorStatus(MoviesOperation.GET_MOVIE_BY_ID, id))
+        .bodyToMono(Movie.class)
+        .onErrorMap(errorHandler.onFailure(MoviesOperation.GET_MOVIE_BY_ID, id))
+        .transform(request -> resilient(request, MoviesOperation.GET_MOVIE_BY_ID));
+  }
+
+  public Flux<MovieBatchResult<Long>> getMoviesByIds(@NonNull Collection<Long> ids) {
+    return getMoviesByIds(ids, batchConcurrency);
+  }
+
+  /**
+   * Looks up every id with at most {@code concurrency} requests in flight. Results are emitted in the order of the
+   * given ids and a failed lookup is reported in its result rather than failing the batch.
+   */
+  public Flux<MovieBatchResult<Long>> getMoviesByIds(@NonNull Collection<Long> ids, int concurrency) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("Batch concurrency must be at least 1");
+    }
+    if (ids.stream().anyMatch(Objects::isNull)) {
+      throw new NullPointerException("ids must not contain null");
+    }
+    return Flux.fromIterable(ids)
+        .flatMapSequential(id -> getMovieById(id)
+                .map(movie -> MovieBatchResult.success(id, movie))
+                .switchIfEmpty(Mono.fromSupplier(() -> MovieBatchResult.success(id, null)))
+                .onErrorResume(MovieErrorResponse.class, e -> Mono.just(MovieBatchResult.failure(id, e))),
+            concurrency);
+  }
+
+  public Flux<Movie> getMoviesByName(@NonNull String name) {
+    if (name.isBlank()) {
+      throw new IllegalArgumentException("Name argument in get movies by name must not be blank");
+    }
+    return withinDeadline(coalescedMovies("name:" + name, MoviesOperation.GET_MOVIES_BY_NAME,
+        () -> requestMoviesByName(name)),
+        MoviesOperation.GET_MOVIES_BY_NAME);
+  }
+
+  private Flux<Movie> requestMoviesByName(String name) {
+    final String uri = MoviesAppConstants.V1_GET_MOVIE_BY_NAME + "?" + MoviesAppConstants.V1_GET_MOVIE_BY_NAME_QUERY_PARAM_MOVIE_NAME + "=" + name;
+    return retrieveMovies(uri, MoviesOperation.GET_MOVIES_BY_NAME, name,
+        () -> webClient.get()
+            .uri(builder -> builder
+                .path(MoviesAppConstants.V1_GET_MOVIE_BY_NAME)
+                .queryParam(MoviesAppConstants.V1_GET_MOVIE_BY_NAME_QUERY_PARAM_MOVIE_NAME, name)
+                .build())
+            .attribute(MoviesOperation.ATTRIBUTE, MoviesOperation.GET_MOVIES_BY_NAME))
+        .onErrorMap(errorHandler.onFailure(MoviesOperation.GET_MOVIES_BY_NAME, name))
+        .transform(request -> resilient(request, MoviesOperation.GET_MOVIES_BY_NAME));
+  }
+
+  public Flux<Movie> getMoviesByYear(@NonNull Integer year) {
+    return withinDeadline(coalescedMovies("year:" + year, MoviesOperation.GET_MOVIES_BY_YEAR,
+        () -> requestMoviesByYear(year)),
+        MoviesOperation.GET_MOVIES_BY_YEAR);
+  }
+
+  private Flux<Movie> requestMoviesByYear(Integer year) {
+    final String uri = MoviesAppConstants.V1_GET_MOVIE_BY_YEAR + "?" + MoviesAppConstants.V1_GET_MOVIE_BY_YEAR_QUERY_PARAM_YEAR + "=" + year;
+    return retrieveMovies(uri, MoviesOperation.GET_MOVIES_BY_YEAR, year,
+        () -> webClient.get()
+            .uri(builder -> builder
+                .path(MoviesAppConstants.V1_GET_MOVIE_BY_YEAR)
+                .queryParam(MoviesAppConstants.V1_GET_MOVIE_BY_YEAR_QUERY_PARAM_YEAR, year)
+                .build())
+            .attribute(MoviesOperation.ATTRIBUTE, MoviesOperation.GET_MOVIES_BY_YEAR))
+        .onErrorMap(errorHandler.onFailure(MoviesOperation.GET_MOVIES_BY_YEAR, year))
+        .transform(request -> resilient(request, MoviesOperation.GET_MOVIES_BY_YEAR));
+  }
+
+  /*
+   * Sends the request conditionally when the validator cache has a response for the URI. A 304 replays copies of
+   * its movies, while a 200 with validators is decoded as it streams in and cached once the array is complete. The
+   * cache takes over the one copy of each movie collected for it, the movies emitted stay the caller's.
+   * The body is decoded as Smile or JSON according to its content type.
+   */
+  private Flux<Movie> retrieveMovies(String uri, MoviesOperation operation, Object subject,
+      Supplier<WebClient.RequestHeadersSpec<?>> request) {
+    return Flux.defer(() -> {
+      final ValidatorCache.CachedResponse cached = validatorCache == null ? null : validatorCache.get(uri);
+      final WebClient.RequestHeadersSpec<?> spec = request.get();
+      if (cached != null) {
+        spec.headers(headers -> {
+          if (cached.getEtag() != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+          }
+          if (cached.getLastModified() != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+          }
+        });
+      }
+      return spec.exchange().flatMapMany(response -> {
+        if (response.rawStatusCode() != HttpStatus.NOT_MODIFIED.value()) {
+          return decodeMovies(response, uri, operation, subject);
+        }
+        if (cached == null) {
+          // the validators were not the cache's, so there is nothing to replay: ask again, and fail on another 304
+          return response.bodyToMono(Void.class)
+              .then(request.get().exchange())
+              .flatMapMany(resent -> resent.rawStatusCode() == HttpStatus.NOT_MODIFIED.value()
+                  ? errorHandler.onErrorStatus(operation, subject).apply(resent).flatMapMany(Flux::error)
+                  : decodeMovies(resent, uri, operation, subject));
+        }
+        return response.bodyToMono(Void.class)
+            .thenMany(Flux.defer(() -> {
+              metrics.responseNotModified(operation.getMetricName(), cached.getDecodedBodyBytes());
+              return Flux.fromStream(cached::streamMovies);
+            }));
+      });
+    });
+  }
+
+  /*
+   * Responses with more movies than the validator cache keeps for one are streamed without being cached, and the
+   * movies collected up to that point are dropped, so that a large list is never held in full.
+   */
+  private Flux<Movie> decodeMovies(ClientResponse response, String uri, MoviesOperation operation, Object subject) {
+    if (response.rawStatusCode() >= 400) {
+      return errorHandler.onErrorStatus(operation, subject).apply(response).flatMapMany(Flux::error);
+    }
+    final MovieArrayDecoder decoder = arrayDecoderFor(response);
+    if (validatorCache == null) {
+      return response.bodyToFlux(DataBuffer.class).transform(decoder::decode);
+    }
+    final HttpHeaders headers = response.headers().asHttpHeaders();
+    final String etag = headers.getETag();
+    final String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+    if (etag == null && lastModified == null) {
+      validatorCache.invalidate(uri);
+      return response.bodyToFlux(DataBuffer.class).transform(decoder::decode);
+    }
+    final int maximumMovies = validatorCache.getMaximumMoviesPerResponse();
+    final LongAdder decodedBytes = new LongAdder();
+    final AtomicReference<List<Movie>> movies = new AtomicReference<>(new ArrayList<>());
+    return response.bodyToFlux(DataBuffer.class)
+        .doOnNext(buffer -> decodedBytes.add(buffer.readableByteCount()))
+        .transform(decoder::decode)
+        .doOnNext(movie -> {
+          final List<Movie> collected = movies.get();
+          if (collected == null) {
+            return;
+          }
+          if (collected.size() == maximumMovies) {
+            movies.set(null);
+          } else {
+            collected.add(new Movie(movie));
+          }
+        })
+        .doOnComplete(() -> {
+          final List<Movie> collected = movies.get();
+          if (collected == null) {
+            validatorCache.invalidate(uri);
+          } else {
+            validatorCache.put(uri, etag, lastModified, collected, decodedBytes.sum());
+          }
+        });
+  }
+
+  private MovieArrayDecoder arrayDecoderFor(ClientResponse response) {
+    final boolean smile = smileArrayDecoder != null && response.headers().contentType()
+        .filter(MovieSmile.MEDIA_TYPE::isCompatibleWith)
+        .isPresent();
+    return smile ? smileArrayDecoder : movieArrayDecoder;
+  }
+
+  /* A coalesced list lookup is collected once and replayed to every caller as copies */
+  private Flux<Movie> coalescedMovies(String lookup, MoviesOperation operation, Supplier<Flux<Movie>> request) {
+    if (readCoalescer == null) {
+      return request.get();
+    }
+    return readCoalescer.coalesce(coalescingKey(lookup, operation), () -> request.get().collectList())
+        .flatMapIterable(movies -> movies)
+        .map(Movie::new);
+  }
+
+  /*
+   * The shared request runs in the Reactor context, and so under the deadline, of the caller which started it. Only
+   * callers with the same deadline share one, so a caller with a short deadline cannot expire the others.
+   */
+  private String coalescingKey(String lookup, MoviesOperation operation) {
+    final Duration deadline = deadlines.get(operation);
+    return deadline == null ? lookup : lookup + "@" + deadline;
+  }
+
+  /** The number of lookups served by an identical lookup that was already in flight */
+  public long getCoalescedRequestCount() {
+    return readCoalescer == null ? 0 : readCoalescer.coalescedCount();
+  }
+
+  /** The number of reads which were sent a second time because the first request was slow */
+  public long getHedgedRequestCount() {
+    return hedgers.values().stream().mapToLong(RequestHedger::hedgedCount).sum();
+  }
+
+  /** Null when circuit breaking is disabled */
+  public CircuitBreaker.State getCircuitBreakerState(@NonNull MoviesOperation operation) {
+    return circuitBreakers == null ? null : circuitBreakers.get(operation).getState();
+  }
+
+  /** Adds a listener told about the writes of this client and of its views, see {@link MovieWriteListener}. */
+  public void addWriteListener(@NonNull MovieWriteListener listener) {
+    writeListeners.add(listener);
+  }
+
+  public void removeWriteListener(@NonNull MovieWriteListener listener) {
+    writeListeners.remove(listener);
+  }
+
+  public Mono<Movie> createMovie(@NonNull Movie movie) {
+    return webClient.post()
+        .uri(MoviesAppConstants.V1_POST_MOVIE)
+        .attribute(MoviesOperation.ATTRIBUTE, MoviesOperation.CREATE_MOVIE)
+        .syncBody(movie)
+        .retrieve()
+        .onStatus(HttpStatus::isError, errorHandler.onErrorStatus(MoviesOperation.CREATE_MOVIE, movie))
+        .bodyToMono(Movie.class)
+        .onErrorMap(errorHandler.onFailure(MoviesOperation.CREATE_MOVIE, movie))
+        .transform(request -> resilient(request, MoviesOperation.CREATE_MOVIE))
+        .doOnSuccess(created -> {
+          if (created != null) {
+            writeListeners.forEach(listener -> listener.movieCreated(created));
+          }
+        })
+        .transform(call -> withinDeadline(call, MoviesOperation.CREATE_MOVIE));
+  }
+
+  public Flux<MovieBatchResult<Movie>> createMovies(@NonNull Publisher<Movie> movies) {
+    return createMovies(movies, batchConcurrency);
+  }
+
+  /**
+   * Pipelines a create request per movie with at most {@code concurrency} in flight. Movies are only requested from
+   * the source as requests complete, and each result is emitted as soon as its request finishes.
+   */
+  public Flux<MovieBatchResult<Movie>> createMovies(@NonNull Publisher<Movie> movies, int concurrency) {
+    return bulkWrite(movies, concurrency, this::createMovie);
+  }
+
+  public Flux<MovieBatchResult<Movie>> updateMovies(@NonNull Publisher<Movie> movies) {
+    return updateMovies(movies, batchConcurrency);
+  }
+
+  /** Like {@link #createMovies(Publisher, int)}, updating each movie by its {@code movie_id}. */
+  public Flux<MovieBatchResult<Movie>> updateMovies(@NonNull Publisher<Movie> movies, int concurrency) {
+    return bulkWrite(movies, concurrency, movie -> movie.getMovie_id() == null
+        ? Mono.error(new MovieErrorResponse(new IllegalArgumentException("Movie id must not be null for update")))
+        : updateMovie(movie.getMovie_id(), movie));
+  }
+
+  private Flux<MovieBatchResult<Movie>> bulkWrite(Publisher<Movie> movies, int concurrency,
+      Function<Movie, Mono<Movie>> write) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("Batch concurrency must be at least 1");
+    }
+    return Flux.from(movies)
+        .flatMap(movie -> write.apply(movie)
+                .map(written -> MovieBatchResult.success(movie, written))
+                .switchIfEmpty(Mono.fromSupplier(() -> MovieBatchResult.success(movie, null)))
+                .onErrorResume(MovieErrorResponse.class, e -> Mono.just(MovieBatchResult.failure(movie, e))),
+            concurrency);
+  }
+
+  public Mono<Movie> updateMovie(@NonNull Long id, @NonNull Movie movie) {
+    return webClient.put()
+        .uri(MoviesAppConstants.V1_PUT_MOVIE_BY_ID, id)
+        .attribute(MoviesOperation.ATTRIBUTE, MoviesOperation.UPDATE_MOVIE)
+        .syncBody(movie)
+        .retrieve()
+        .onStatus(HttpStatus::isError, errorHandler.onErrorStatus(MoviesOperation.UPDATE_MOVIE, id))
+        .bodyToMono(Movie.class)
+        .onErrorMap(errorHandler.onFailure(MoviesOperation.UPDATE_MOVIE, id))
+        .transform(request -> resilient(request, MoviesOperation.UPDATE_MOVIE))
+        .transform(write -> invalidatingCachedMovie(write, id))
+        .doOnSuccess(updated -> {
+          // services which answer without a body updated the movie as sent
+          final Movie written = new Movie(updated == null ? movie : updated);
+          written.setMovie_id(id);
+          writeListeners.forEach(listener -> listener.movieUpdated(id, written));
+        })
+        .transform(call -> withinDeadline(call, MoviesOperation.UPDATE_MOVIE));
+  }
+
+  public Mono<String> deleteMovie(@NonNull Long id) {
+    return webClient.delete()
+        .uri(MoviesAppConstants.V1_DELETE_MOVIE_BY_ID, id)
+        .attribute(MoviesOperation.ATTRIBUTE, MoviesOperation.DELETE_MOVIE)
+        .retrieve()
+        .onStatus(HttpStatus::isError, errorHandler.onErrorStatus(MoviesOperation.DELETE_MOVIE, id))
+        .bodyToMono(String.class)
+        .onErrorMap(errorHandler.onFailure(MoviesOperation.DELETE_MOVIE, id))
+        .transform(request -> resilient(request, MoviesOperation.DELETE_MOVIE))
+        .transform(write -> invalidatingCachedMovie(write, id))
+        .doOnSuccess(deleted -> writeListeners.forEach(listener -> listener.movieDeleted(id)))
+        .transform(call -> withinDeadline(call, MoviesOperation.DELETE_MOVIE));
+  }
+
+  /*
+   * Every request is admitted by the limiters and then passes the circuit breaker, so that hedges and retries stay
+   * within the limits, count towards opening the breaker and stop once it has opened. Time spent queued by the
+   * limiters does not make a call slow to the breaker. A hedged call is retried as a whole, and only idempotent
+   * operations are retried.
+   */
+  private <T> Mono<T> resilient(Mono<T> request, MoviesOperation operation) {
+    final Mono<T> guarded = circuitBreakers == null ? request : Mono.subscriberContext().flatMap(context -> {
+      final CircuitBreaker circuitBreaker = circuitBreakers.get(operation);
+      if (!circuitBreaker.tryAcquirePermission()) {
+        metrics.circuitBreakerRejected(operation.getMetricName());
+        return Mono.error(new CircuitBreakerOpenException(operation.getMetricName()));
+      }
+      final long started = System.nanoTime();
+      return request
+          .doOnSuccess(result -> circuitBreaker.onSuccess(System.nanoTime() - started))
+          .doOnError(e -> circuitBreaker.onError(System.nanoTime() - started, e))
+          .doOnCancel(() -> onCancel(circuitBreaker, started, context));
+    });
+    final Mono<T> limited = requestLimiter == null ? guarded : requestLimiter.limit(guarded, operation);
+    final RequestHedger hedger = hedgers.get(operation);
+    final Mono<T> attempt = hedger == null ? limited : hedger.hedge(limited);
+    if (retryPolicy == null || !operation.isIdempotent()) {
+      return attempt;
+    }
+    return Mono.defer(() -> {
+      retryPolicy.getRetryBudget().recordRequest();
+      return Mono.subscriberContext()
+          .flatMap(context -> attempt.doOnError(e -> DeadlineTracker.enter(context, null)))
+          .retryWhen(retries(operation, () -> true));
+    });
+  }
+
+  /* A list is only retried while none of it has been emitted, as the subscriber would otherwise see movies twice */
+  private <T> Flux<T> resilient(Flux<T> request, MoviesOperation operation) {
+    final Flux<T> guarded = circuitBreakers == null ? request : Mono.subscriberContext().flatMapMany(context -> {
+      final CircuitBreaker circuitBreaker = circuitBreakers.get(operation);
+      if (!circuitBreaker.tryAcquirePermission()) {
+        metrics.circuitBreakerRejected(operation.getMetricName());
+        return Flux.error(new CircuitBreakerOpenException(operation.getMetricName()));
+      }
+      final long started = System.nanoTime();
+      return request
+          .doOnComplete(() -> circuitBreaker.onSuccess(System.nanoTime() - started))
+          .doOnError(e -> circuitBreaker.onError(System.nanoTime() - started, e))
+          .doOnCancel(() -> onCancel(circuitBreaker, started, context));
+    });
+    final Flux<T> limited = requestLimiter == null ? guarded : requestLimiter.limit(guarded, operation);
+    final RequestHedger hedger = hedgers.get(operation);
+    final Flux<T> attempt = hedger == null ? limited : hedger.hedge(limited);
+    if (retryPolicy == null || !operation.isIdempotent()) {
+      return attempt;
+    }
+    return Flux.defer(() -> {
+      retryPolicy.getRetryBudget().recordRequest();
+      final AtomicBoolean emitted = new AtomicBoolean();
+      return Mono.subscriberContext()
+          .flatMapMany(context -> attempt.doOnError(e -> DeadlineTracker.enter(context, null)))
+          .doOnNext(item -> emitted.set(true))
+          .retryWhen(retries(operation, () -> !emitted.get()));
+    });
+  }
+
+  /*
+   * A request cancelled by its call's deadline failed as far as the breaker is concerned, any other cancellation is
+   * the caller's or that of a hedge which lost, and says nothing about the movies service.
+   */
+  private static void onCancel(CircuitBreaker circuitBreaker, long started, Context context) {
+    final MovieDeadlineExceededException exceeded = DeadlineTracker.exceeded(context);
+    if (exceeded == null) {
+      circuitBreaker.onCancel();
+    } else {
+      circuitBreaker.onError(System.nanoTime() - started, exceeded);
+    }
+  }
+
+  /* Applied per subscription, so the retry count starts afresh for every call */
+  private Function<Flux<Throwable>, Publisher<?>> retries(MoviesOperation operation, BooleanSupplier resumable) {
+    return errors -> {
+      final AtomicInteger retries = new AtomicInteger();
+      return errors.concatMap(e -> {
+        final int retry = retries.incrementAndGet();
+        if (retry >= retryPolicy.getMaxAttempts() || !resumable.getAsBoolean() || !retryPolicy.isRetryable(e)) {
+          return Mono.error(e);
+        }
+        if (!retryPolicy.getRetryBudget().tryAcquireRetry()) {
+          metrics.retryBudgetExhausted(operation.getMetricName());
+          return Mono.error(e);
+        }
+        metrics.requestRetried(operation.getMetricName(), retry);
+        return Mono.delay(retryPolicy.backoff(retry));
+      });
+    };
+  }
+
+  /*
+   * The deadline covers the whole call, retries and waiting on a coalesced lookup included. Running out of time
+   * marks the call as expired and then cancels it, which closes the connection of any exchange in progress.
+   */
+  private <T> Mono<T> withinDeadline(Mono<T> call, MoviesOperation operation) {
+    final Duration deadline = deadlines.get(operation);
+    if (deadline == null) {
+      return call;
+    }
+    return Mono.defer(() -> {
+      final DeadlineTracker tracker = new DeadlineTracker(operation, deadline);
+      return call
+          .timeout(Mono.delay(deadline).doOnNext(tick -> tracker.expire()),
+              Mono.defer(() -> Mono.error(tracker.expire())))
+          .subscriberContext(tracker::putInto);
+    });
+  }
+
+  /* Flux.timeout only bounds the gaps between movies, so a single timer bounds the whole list instead */
+  private <T> Flux<T> withinDeadline(Flux<T> call, MoviesOperation operation) {
+    final Duration deadline = deadlines.get(operation);
+    if (deadline == null) {
+      return call;
+    }
+    return Flux.defer(() -> {
+      final DeadlineTracker tracker = new DeadlineTracker(operation, deadline);
+      final AtomicBoolean completed = new AtomicBoolean();
+      final AtomicBoolean expired = new AtomicBoolean();
+      return call
+          .doOnComplete(() -> completed.set(true))
+          .takeUntilOther(Mono.delay(deadline).doOnNext(tick -> {
+            expired.set(true);
+            tracker.expire();
+          }))
+          .concatWith(Mono.defer(() -> expired.get() && !completed.get()
+              ? Mono.error(tracker.expire())
+              : Mono.empty()))
+          .subscriberContext(tracker::putInto);
+    });
+  }
+
+  /*
+   * Invalidated whatever the outcome, as a failed or cancelled write may still have reached the server. This happens
+   * before the result is signalled so that a caller reading straight after the write never sees the cached movie.
+   */
+  private <T> Mono<T> invalidatingCachedMovie(Mono<T> write, Long id) {
+    if (movieCache == null) {
+      return write;
+    }
+    return write
+        .doOnSuccess(result -> movieCache.invalidate(id))
+        .doOnError(e -> movieCache.invalidate(id))
+        .doOnCancel(() -> movieCache.invalidate(id));
+  }
+}
@@ -0,0 +1,72 @@
+package com.learnwiremock.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import reactor.core.publisher.Mono;
+
+/**
+ * Single-flight deduplication of identical requests: while a request for a key is outstanding, later callers for
+ * the same key subscribe to the same {@link Mono} instead of issuing their own request.
+ *
+ * <p>The shared request is not cancelled when one of its callers cancels, it runs to completion for the others. It
+ * is cancelled once every caller has cancelled, and the next caller for the key then issues a new one.
+ *
+ * <p>The shared request runs in the Reactor context of the caller which started it, so callers are only to share a
+ * key when whatever that context carries, such as a deadline, is the same for all of them.
+ */
+class RequestCoalescer {
+
+  private final ConcurrentHashMap<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  @SuppressWarnings("unchecked")
+  <T> Mono<T> coalesce(String key, Supplier<Mono<T>> request) {
+    // publish() connects without a context, so the shared request is handed the one of the caller starting it
+    return Mono.subscriberContext().flatMap(context -> {
+      final AtomicBoolean started = new AtomicBoolean();
+      final Mono<T> shared = (Mono<T>) inFlight.computeIfAbsent(key, k -> {
+        started.set(true);
+        return share(k, request.get().subscriberContext(context));
+      });
+      requests.increment();
+      if (!started.get()) {
+        coalesced.increment();
+      }
+      return shared;
+    });
+  }
+
+  private <T> Mono<T> share(String key, Mono<T> request) {
+    final AtomicReference<Mono<T>> self = new AtomicReference<>();
+    // removed before the result reaches any caller, so a caller issuing the next lookup never gets this one replayed
+    final Mono<T> shared = request
+        .doOnSuccess(result -> inFlight.remove(key, self.get()))
+        .doOnError(e -> inFlight.remove(key, self.get()))
+        .doOnCancel(() -> inFlight.remove(key, self.get()))
+        .flux()
+        .publish()
+        .refCount()
+        // unlike next(), waits for completion rather than cancelling the shared request on its result
+        .singleOrEmpty();
+    self.set(shared);
+    return shared;
+  }
+
+  /** The number of calls which went through the coalescer */
+  long requestCount() {
+    return requests.sum();
+  }
+
+  /** The number of calls which were served by another caller's outstanding request */
+  long coalescedCount() {
+    return coalesced.sum();
+  }
+
+  int inFlightCount() {
+    return inFlight.size();
+  }
+}
@@ -0,0 +1,81 @@
+package com.learnwiremock.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends request bodies of at least the threshold size gzip compressed with {@code Content-Encoding: gzip}. A body is
+ * joined before it is compressed, since its length and encoding headers have to be set before the first byte is
+ * written, which suits the single movie bodies of create and update calls.
+ */
+class RequestCompressionFilter implements ExchangeFilterFunction {
+
+  private final int threshold;
+
+  RequestCompressionFilter(int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("Request compression threshold must not be negative");
+    }
+    this.threshold = threshold;
+  }
+
+  @Override
+  public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+    final BodyInserter<?, ? super ClientHttpRequest> body = request.body();
+    return next.exchange(ClientRequest.from(request)
+        .body((outputMessage, context) -> body.insert(new CompressingRequest(outputMessage), context))
+        .build());
+  }
+
+  private class CompressingRequest extends ClientHttpRequestDecorator {
+
+    private CompressingRequest(ClientHttpRequest delegate) {
+      super(delegate);
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+      return DataBufferUtils.join(Flux.from(body))
+          .flatMap(buffer -> {
+            if (buffer.readableByteCount() < threshold) {
+              return super.writeWith(Mono.just(buffer));
+            }
+            final DataBuffer compressed = gzip(buffer);
+            getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            getHeaders().setContentLength(compressed.readableByteCount());
+            return super.writeWith(Mono.just(compressed));
+          })
+          .switchIfEmpty(Mono.defer(() -> super.writeWith(Mono.empty())));
+    }
+
+    private DataBuffer gzip(DataBuffer buffer) {
+      final DataBuffer compressed = buffer.factory().allocateBuffer(buffer.readableByteCount() / 2 + 64);
+      try (InputStream in = buffer.asInputStream();
+          OutputStream out = new GZIPOutputStream(compressed.asOutputStream())) {
+        in.transferTo(out);
+        return compressed;
+      } catch (IOException e) {
+        DataBufferUtils.release(compressed);
+        throw new UncheckedIOException(e);
+      } finally {
+        DataBufferUtils.release(buffer);
+      }
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package com.learnwiremock.service;
+
+import com.learnwiremock.metrics.Histogram;
+import com.learnwiremock.metrics.MoviesClientMetrics;
+import com.learnwiremock.resilience.HedgingPolicy;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Hedges the requests of one operation as set out by a {@link HedgingPolicy}. Whichever request answers first wins
+ * and the other one is cancelled, which closes its connection. A failed hedge is ignored in favour of the original
+ * request, while a failed original request fails the call as it would have without hedging.
+ *
+ * <p>Latencies, requests and hedges are counted in windows of {@link HedgingPolicy#getLatencyWindow()}, and only the
+ * current and previous window are kept, so that the delay and the hedge cap follow a change in latency within two
+ * windows instead of being outweighed by everything recorded before it.
+ */
+class RequestHedger {
+
+  private final HedgingPolicy policy;
+  private final String operation;
+  private final MoviesClientMetrics metrics;
+  private final long windowNanos;
+  private final AtomicReference<Window> window;
+  private final LongAdder hedged = new LongAdder();
+
+  RequestHedger(HedgingPolicy policy, MoviesOperation operation, MoviesClientMetrics metrics) {
+    this.policy = policy;
+    this.operation = operation.getMetricName();
+    this.metrics = metrics;
+    this.windowNanos = policy.getLatencyWindow().toNanos();
+    this.window = new AtomicReference<>(new Window(System.nanoTime(), null));
+  }
+
+  <T> Mono<T> hedge(Mono<T> request) {
+    return Mono.defer(() -> {
+      currentWindow().requests.increment();
+      final Duration delay = hedgeDelay();
+      if (delay == null) {
+        return measured(request);
+      }
+      return Mono.first(measured(request), Mono.delay(delay)
+          .flatMap(tick -> tryHedge() ? measured(request).onErrorResume(e -> Mono.never()) : Mono.never()));
+    });
+  }
+
+  /* A list is hedged if its first movie has not arrived in time, whichever list emits first is the one taken */
+  <T> Flux<T> hedge(Flux<T> request) {
+    return Flux.defer(() -> {
+      currentWindow().requests.increment();
+      final Duration delay = hedgeDelay();
+      if (delay == null) {
+        return measured(request);
+      }
+      return Flux.first(measured(request), Mono.delay(delay)
+          .flatMapMany(tick -> tryHedge() ? measured(request).onErrorResume(e -> Flux.never()) : Flux.never()));
+    });
+  }
+
+  long hedgedCount() {
+    return hedged.sum();
+  }
+
+  /*
+   * Taken from the current window once it has enough samples and from the previous one until then. Null while
+   * neither has, as too few requests have completed lately to tell how long they usually take.
+   */
+  private Duration hedgeDelay() {
+    final Window current = currentWindow();
+    final Window previous = current.previous;
+    final Histogram latency;
+    if (current.latency.getCount() >= policy.getMinSamples()) {
+      latency = current.latency;
+    } else if (previous != null && previous.latency.getCount() >= policy.getMinSamples()) {
+      latency = previous.latency;
+    } else {
+      return null;
+    }
+    final long nanos = latency.percentile(policy.getPercentile());
+    return Duration.ofNanos(Math.max(policy.getMinDelay().toNanos(), Math.min(policy.getMaxDelay().toNanos(), nanos)));
+  }
+
+  /* The cap is taken over the requests and hedges of the current and previous window */
+  private boolean tryHedge() {
+    final Window current = currentWindow();
+    final Window previous = current.previous;
+    final long requests = current.requests.sum() + (previous == null ? 0 : previous.requests.sum());
+    final long previousHedges = previous == null ? 0 : previous.hedges.get();
+    if (current.hedges.incrementAndGet() + previousHedges > policy.getMaxHedgeRatio() * requests) {
+      current.hedges.decrementAndGet();
+      return false;
+    }
+    hedged.increment();
+    metrics.requestHedged(operation);
+    return true;
+  }
+
+  /* Starts a new window once the current one has run its time, keeping the current one only if it just ended */
+  private Window currentWindow() {
+    final long now = System.nanoTime();
+    Window current = window.get();
+    while (now - current.startedAt >= windowNanos) {
+      final Window next = new Window(now, now - current.startedAt < 2 * windowNanos ? current : null);
+      if (window.compareAndSet(current, next)) {
+        current.previous = null;
+        return next;
+      }
+      current = window.get();
+    }
+    return current;
+  }
+
+  private <T> Mono<T> measured(Mono<T> request) {
+    return Mono.defer(() -> {
+      final long started = System.nanoTime();
+      return request.doOnSuccess(result -> currentWindow().latency.record(System.nanoTime() - started));
+    });
+  }
+
+  private <T> Flux<T> measured(Flux<T> request) {
+    return Flux.defer(() -> {
+      final long started = System.nanoTime();
+      return request.doOnComplete(() -> currentWindow().latency.record(System.nanoTime() - started));
+    });
+  }
+
+  private static final class Window {
+
+    private final long startedAt;
+    /** Nanoseconds taken by each successful request, hedges included */
+    private final Histogram latency = new Histogram();
+    private final LongAdder requests = new LongAdder();
+    private final AtomicLong hedges = new AtomicLong();
+    /** The window before this one while this one is current, cleared once it is replaced so windows do not chain */
+    private volatile Window previous;
+
+    private Window(long startedAt, Window previous) {
+      this.startedAt = startedAt;
+      this.previous = previous;
+    }
+  }
+}
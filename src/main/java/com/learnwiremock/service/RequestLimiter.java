@@ -0,0 +1,209 @@
+package com.learnwiremock.service;
+
+import com.learnwiremock.exception.MovieDeadlineExceededException;
+import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.exception.RequestRejectedException;
+import com.learnwiremock.metrics.MoviesClientMetrics;
+import com.learnwiremock.resilience.AdaptiveConcurrencyLimiter;
+import com.learnwiremock.resilience.RateLimiter;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.core.codec.CodecException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.context.Context;
+
+/**
+ * Puts a {@link RateLimiter} and an {@link AdaptiveConcurrencyLimiter}, either of which may be absent, in front of
+ * requests. A request first waits for a token, then queues in order for a free slot, and is refused with a
+ * {@link RequestRejectedException} when the token is too far off or the queue is full. The outcome of every request
+ * that was let through is fed back to the concurrency limiter.
+ */
+class RequestLimiter {
+
+  static final String RATE_LIMITER = "rate";
+  static final String CONCURRENCY_LIMITER = "concurrency";
+
+  private static final int TOO_MANY_REQUESTS = 429;
+  private static final int SERVICE_UNAVAILABLE = 503;
+
+  private final RateLimiter rateLimiter;
+  private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+  private final MoviesClientMetrics metrics;
+  private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();
+
+  RequestLimiter(RateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter, MoviesClientMetrics metrics) {
+    this.rateLimiter = rateLimiter;
+    this.concurrencyLimiter = concurrencyLimiter;
+    this.metrics = metrics;
+  }
+
+  <T> Mono<T> limit(Mono<T> request, MoviesOperation operation) {
+    return Mono.subscriberContext().flatMap(context -> admit(operation).flatMap(permit -> request
+        .doOnSuccess(result -> permit.release(null))
+        .doOnError(permit::release)
+        .doOnCancel(() -> permit.cancel(context))));
+  }
+
+  <T> Flux<T> limit(Flux<T> request, MoviesOperation operation) {
+    return Mono.subscriberContext().flatMapMany(context -> admit(operation).flatMapMany(permit -> request
+        .doOnComplete(() -> permit.release(null))
+        .doOnError(permit::release)
+        .doOnCancel(() -> permit.cancel(context))));
+  }
+
+  private Mono<Permit> admit(MoviesOperation operation) {
+    final long queuedAt = System.nanoTime();
+    if (rateLimiter != null) {
+      final long wait = rateLimiter.reserve();
+      if (wait < 0) {
+        metrics.requestRejected(operation.getMetricName(), RATE_LIMITER);
+        return Mono.error(new RequestRejectedException(String.format(
+            "%s refused, the rate limit of %s requests per second would be exceeded for longer than %dms",
+            operation.getMetricName(), rateLimiter.getPermitsPerSecond(), rateLimiter.getMaxWait().toMillis())));
+      }
+      if (wait > 0) {
+        return Mono.delay(Duration.ofNanos(wait)).then(Mono.defer(() -> acquireSlot(operation, queuedAt, true)));
+      }
+    }
+    return acquireSlot(operation, queuedAt, false);
+  }
+
+  /* Only the time of requests which were held back is reported, not of those which went straight through */
+  private Mono<Permit> acquireSlot(MoviesOperation operation, long queuedAt, boolean heldBack) {
+    // queued requests go first, so that a request arriving as a slot frees up does not overtake them
+    if (concurrencyLimiter == null || waiters.isEmpty() && concurrencyLimiter.tryAcquire()) {
+      if (heldBack) {
+        reportQueued(operation, queuedAt);
+      }
+      return Mono.just(new Permit());
+    }
+    if (queued.incrementAndGet() > concurrencyLimiter.getMaxQueueSize()) {
+      queued.decrementAndGet();
+      metrics.requestRejected(operation.getMetricName(), CONCURRENCY_LIMITER);
+      return Mono.error(new RequestRejectedException(String.format(
+          "%s refused, %d requests are in flight and %d more are queued", operation.getMetricName(),
+          concurrencyLimiter.getInFlight(), concurrencyLimiter.getMaxQueueSize())));
+    }
+    return Mono.create(sink -> {
+      final Waiter waiter = new Waiter(operation, queuedAt, sink);
+      sink.onCancel(waiter::cancel);
+      waiters.add(waiter);
+      drain();
+    });
+  }
+
+  /* Hands free slots to queued requests, called whenever a slot may have freed up */
+  private void drain() {
+    while (!waiters.isEmpty() && concurrencyLimiter.tryAcquire()) {
+      final Waiter waiter = waiters.poll();
+      if (waiter == null || !waiter.grant()) {
+        concurrencyLimiter.onIgnored();
+      }
+    }
+  }
+
+  private void reportQueued(MoviesOperation operation, long queuedAt) {
+    metrics.requestQueued(operation.getMetricName(), System.nanoTime() - queuedAt);
+  }
+
+  private final class Waiter {
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int CANCELLED = 2;
+
+    private final MoviesOperation operation;
+    private final long queuedAt;
+    private final MonoSink<Permit> sink;
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+    private volatile Permit permit;
+
+    private Waiter(MoviesOperation operation, long queuedAt, MonoSink<Permit> sink) {
+      this.operation = operation;
+      this.queuedAt = queuedAt;
+      this.sink = sink;
+    }
+
+    /* Hands over the slot just acquired, false if the request has been cancelled meanwhile */
+    private boolean grant() {
+      permit = new Permit();
+      if (!state.compareAndSet(WAITING, GRANTED)) {
+        return false;
+      }
+      queued.decrementAndGet();
+      reportQueued(operation, queuedAt);
+      sink.success(permit);
+      return true;
+    }
+
+    private void cancel() {
+      if (state.compareAndSet(WAITING, CANCELLED)) {
+        waiters.remove(this);
+        queued.decrementAndGet();
+      } else if (state.get() == GRANTED) {
+        // cancelled while the slot was being handed over, before the request could release it
+        permit.cancel();
+      }
+    }
+  }
+
+  /** A slot held by one request, released exactly once */
+  private final class Permit {
+
+    private final long sentAt = System.nanoTime();
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    /* Null for a successful request */
+    private void release(Throwable error) {
+      if (concurrencyLimiter == null || !released.compareAndSet(false, true)) {
+        return;
+      }
+      if (error == null) {
+        concurrencyLimiter.onResponse(System.nanoTime() - sentAt);
+      } else if (isOverload(error)) {
+        concurrencyLimiter.onOverload();
+      } else if (error instanceof MovieErrorResponse && ((MovieErrorResponse) error).getStatusCode() != null) {
+        concurrencyLimiter.onResponse(System.nanoTime() - sentAt);
+      } else {
+        concurrencyLimiter.onIgnored();
+      }
+      drain();
+    }
+
+    /* A request cancelled by its call's deadline got no response in time, which is an overload signal */
+    private void cancel(Context context) {
+      final MovieDeadlineExceededException exceeded = DeadlineTracker.exceeded(context);
+      if (exceeded != null) {
+        release(exceeded);
+      } else {
+        cancel();
+      }
+    }
+
+    private void cancel() {
+      if (concurrencyLimiter == null || !released.compareAndSet(false, true)) {
+        return;
+      }
+      concurrencyLimiter.onIgnored();
+      drain();
+    }
+  }
+
+  /* Throttling, an unavailable service, or no response at all other than one refused by the client itself */
+  private static boolean isOverload(Throwable error) {
+    if (!(error instanceof MovieErrorResponse) || error instanceof RequestRejectedException) {
+      return false;
+    }
+    final Integer statusCode = ((MovieErrorResponse) error).getStatusCode();
+    if (statusCode == null) {
+      return !(error.getCause() instanceof CodecException);
+    }
+    return statusCode == TOO_MANY_REQUESTS || statusCode == SERVICE_UNAVAILABLE;
+  }
+}
@@ -0,0 +1,109 @@
+package com.learnwiremock.cache;
+
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.utils.MoviesTestRandomUtils;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieCacheTest {
+
+  private final AtomicLong ticker = new AtomicLong();
+
+  private Movie movie(long id) {
+    final Movie movie = MoviesTestRandomUtils.getRandomMovie();
+    movie.setMovie_id(id);
+    return movie;
+  }
+
+  @Test
+  void evictsLeastRecentlyUsed() {
+    final MovieCache cache = MovieCache.builder().maximumSize(2).ticker(ticker::get).build();
+    cache.put(1L, movie(1L));
+    cache.put(2L, movie(2L));
+    // touch 1 so that 2 becomes the least recently used
+    assertNotNull(cache.get(1L));
+    cache.put(3L, movie(3L));
+
+    assertNotNull(cache.get(1L));
+    assertNull(cache.get(2L));
+    assertNotNull(cache.get(3L));
+    final MovieCacheStats stats = cache.stats();
+    assertEquals(1, stats.getEvictionCount());
+    assertEquals(3, stats.getHitCount());
+    assertEquals(1, stats.getMissCount());
+    assertEquals(2, stats.getSize());
+  }
+
+  @Test
+  void expiresAfterWrite() {
+    final MovieCache cache = MovieCache.builder().expireAfterWrite(Duration.ofSeconds(10)).ticker(ticker::get).build();
+    cache.put(1L, movie(1L));
+    ticker.addAndGet(Duration.ofSeconds(9).toNanos());
+    assertNotNull(cache.get(1L));
+    ticker.addAndGet(Duration.ofSeconds(1).toNanos());
+    assertNull(cache.get(1L));
+    assertEquals(1, cache.stats().getExpirationCount());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void returnsCopies() {
+    final MovieCache cache = MovieCache.builder().build();
+    final Movie original = movie(1L);
+    cache.put(1L, original);
+    cache.get(1L).setName("mutated by a caller");
+    original.setCast("mutated after caching");
+    final Movie cached = cache.get(1L);
+    assertNotEquals("mutated by a caller", cached.getName());
+    assertNotEquals("mutated after caching", cached.getCast());
+  }
+
+  @Test
+  void loadsStartedBeforeAnInvalidationAreNotCached() {
+    final MovieCache cache = MovieCache.builder().build();
+    final long loadStamp = cache.loadStamp();
+    cache.invalidate(1L);
+    cache.putIfNotInvalidated(1L, movie(1L), loadStamp);
+    assertNull(cache.get(1L));
+
+    cache.putIfNotInvalidated(1L, movie(1L), cache.loadStamp());
+    assertNotNull(cache.get(1L));
+  }
+
+  @Test
+  void invalidationsOfOtherMoviesDoNotPreventCaching() {
+    final MovieCache cache = MovieCache.builder().build();
+    final long loadStamp = cache.loadStamp();
+    for (long id = 2; id < 10; id++) {
+      cache.invalidate(id);
+    }
+    cache.putIfNotInvalidated(1L, movie(1L), loadStamp);
+    assertNotNull(cache.get(1L));
+
+    // forgetting the per movie stamps drops loads that were already running
+    final long laterStamp = cache.loadStamp();
+    cache.invalidateAll();
+    cache.putIfNotInvalidated(1L, movie(1L), laterStamp);
+    assertNull(cache.get(1L));
+  }
+
+  @Test
+  void largeCachesAreSegmentedWithinTheMaximumSize() {
+    final MovieCache cache = MovieCache.builder().maximumSize(1_000).build();
+    for (long id = 0; id < 5_000; id++) {
+      cache.put(id, movie(id));
+    }
+    assertTrue(cache.size() <= 1_000);
+    assertTrue(cache.size() > 900);
+    assertEquals(5_000 - cache.size(), cache.stats().getEvictionCount());
+  }
+
+  @Test
+  void invalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> MovieCache.builder().maximumSize(0).build());
+    assertThrows(NullPointerException.class, () -> MovieCache.builder().build().get(null));
+  }
+}
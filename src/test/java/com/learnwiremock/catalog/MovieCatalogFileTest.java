@@ -0,0 +1,82 @@
+package com.learnwiremock.catalog;
+
+import com.learnwiremock.dto.Movie;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieCatalogFileTest {
+
+  @TempDir
+  Path directory;
+
+  private final MovieCatalog catalog = MovieCatalog.of(List.of(
+      new Movie("Christian Bale, Katie Holmes , Liam Neeson", 1L, "Batman Begins", LocalDate.of(2005, 6, 15), 2005),
+      new Movie("Christian Bale, Heath Ledger , Michael Caine", 2L, "Dark Knight", LocalDate.of(2008, 7, 18), 2008),
+      new Movie("Zo\u00eb Salda\u00f1a", 3L, "Avatar", LocalDate.of(2009, 12, 18), 2009),
+      new Movie(null, 4L, "Untitled Project", null, null)));
+
+  @Test
+  void catalogueIsReadAsWritten() throws IOException {
+    final Path file = directory.resolve("movies.catalog");
+
+    MovieCatalogFile.write(catalog, file);
+    MovieCatalogFile.write(catalog, file);
+
+    assertEquals(catalog.toMovies(), MovieCatalogFile.read(file).toMovies());
+    try (var files = Files.list(directory)) {
+      assertEquals(List.of(file), files.toList());
+    }
+  }
+
+  @Test
+  void emptyCatalogueIsReadAsWritten() throws IOException {
+    final Path file = directory.resolve("movies.catalog");
+
+    MovieCatalogFile.write(MovieCatalog.of(List.of()), file);
+
+    assertEquals(0, MovieCatalogFile.read(file).size());
+  }
+
+  @Test
+  void damagedFilesAreRejected() throws IOException {
+    final Path file = directory.resolve("movies.catalog");
+    MovieCatalogFile.write(catalog, file);
+    final long length = Files.size(file);
+
+    overwrite(file, length - 3, (byte) 'x');
+    assertThrows(IOException.class, () -> MovieCatalogFile.read(file), "checksum");
+
+    MovieCatalogFile.write(catalog, file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(length - 1);
+    }
+    assertThrows(IOException.class, () -> MovieCatalogFile.read(file), "truncated");
+  }
+
+  @Test
+  void otherFormatVersionsAreRejected() throws IOException {
+    final Path file = directory.resolve("movies.catalog");
+    MovieCatalogFile.write(catalog, file);
+
+    overwrite(file, 4, (byte) (MovieCatalogFile.FORMAT_VERSION + 1));
+
+    final IOException e = assertThrows(IOException.class, () -> MovieCatalogFile.read(file));
+    assertTrue(e.getMessage().contains("format version"), e.getMessage());
+  }
+
+  private static void overwrite(Path file, long position, byte value) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {value}), position);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package com.learnwiremock.catalog;
+
+import com.learnwiremock.dto.Movie;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+public class MovieCatalogTest {
+
+  private static final int MILLION = 1_000_000;
+  /** What each movie may take up in the catalogue, a list of Movie objects needs well over 200 bytes */
+  private static final long maxBytesPerMovie = 64;
+
+  private final Movie batmanBegins =
+      new Movie("Christian Bale, Katie Holmes , Liam Neeson", 1L, "Batman Begins", LocalDate.of(2005, 6, 15), 2005);
+  private final Movie darkKnight =
+      new Movie("Christian Bale, Heath Ledger , Michael Caine", 2L, "Dark Knight", LocalDate.of(2008, 7, 18), 2008);
+  private final Movie untitled = new Movie(null, 3L, "Untitled Project", null, null);
+
+  @Test
+  void moviesAreLookedUpById() {
+    final MovieCatalog catalog = MovieCatalog.of(List.of(batmanBegins, darkKnight, untitled));
+
+    assertEquals(3, catalog.size());
+    assertEquals(batmanBegins, catalog.get(1L));
+    assertEquals(darkKnight, catalog.get(2L));
+    assertEquals(untitled, catalog.get(3L));
+    assertNull(catalog.get(4L));
+    assertFalse(catalog.contains(0L));
+  }
+
+  @Test
+  void rowsAreReadWithoutCreatingMovies() {
+    final MovieCatalog catalog = MovieCatalog.of(List.of(batmanBegins, untitled));
+    final int row = catalog.rowOf(1L);
+
+    assertEquals(1L, catalog.idAt(row));
+    assertEquals(2005, catalog.yearAt(row));
+    assertEquals(LocalDate.of(2005, 6, 15).toEpochDay(), catalog.releaseEpochDayAt(row));
+    assertEquals("Batman Begins", catalog.nameAt(row));
+    assertEquals(MovieCatalog.NO_YEAR, catalog.yearAt(catalog.rowOf(3L)));
+    assertEquals(MovieCatalog.NO_RELEASE_DATE, catalog.releaseEpochDayAt(catalog.rowOf(3L)));
+    assertNull(catalog.castAt(catalog.rowOf(3L)));
+  }
+
+  @Test
+  void rowsAreOrderedById() {
+    final MovieCatalog catalog = MovieCatalog.of(List.of(untitled, batmanBegins, darkKnight));
+
+    assertEquals(List.of(batmanBegins, darkKnight, untitled), catalog.toMovies());
+  }
+
+  @Test
+  void duplicateAndMissingIdsAreRejected() {
+    assertThrows(IllegalArgumentException.class, () -> MovieCatalog.of(List.of(batmanBegins, darkKnight, batmanBegins)));
+    assertThrows(IllegalArgumentException.class,
+        () -> MovieCatalog.builder().add(new Movie("cast", "name", LocalDate.now(), 2020)));
+  }
+
+  @Test
+  void repeatedStringsAreStoredOnce() {
+    final PackedStrings.Builder builder = new PackedStrings.Builder();
+    final int first = builder.add("Christian Bale");
+    final int unicode = builder.add("Zo\u00eb Salda\u00f1a");
+    final int repeated = builder.add("Christian Bale");
+    final PackedStrings strings = builder.build();
+
+    assertEquals(first, repeated);
+    assertEquals(2, strings.distinctCount());
+    assertEquals("Zo\u00eb Salda\u00f1a", strings.get(unicode));
+    assertEquals(PackedStrings.NULL, builder.add(null));
+  }
+
+  @Test
+  void stringsAreInternedBeyondTheInitialTable() {
+    final PackedStrings.Builder builder = new PackedStrings.Builder();
+    final int[] refs = new int[10_000];
+    for (int i = 0; i < refs.length; i++) {
+      refs[i] = builder.add("Actor " + i);
+    }
+    for (int i = 0; i < refs.length; i++) {
+      assertEquals(refs[i], builder.add("Actor " + i));
+    }
+    final int empty = builder.add("");
+    final PackedStrings strings = builder.build();
+
+    assertEquals(refs.length + 1, strings.distinctCount());
+    assertEquals("Actor 9999", strings.get(refs[9_999]));
+    assertEquals("", strings.get(empty));
+  }
+
+  @Test
+  void millionMoviesFitInCompactMemory() {
+    final long baselineHeap = usedHeapAfterGc();
+    final MovieCatalog catalog = millionMovies();
+    final long retainedHeap = usedHeapAfterGc() - baselineHeap;
+
+    log.info("{} movies take {} bytes by array sizes, {} bytes of retained heap",
+        catalog.size(), catalog.sizeInBytes(), retainedHeap);
+    assertEquals(MILLION, catalog.size());
+    assertEquals("Movie 500000", catalog.nameAt(catalog.rowOf(500_000L)));
+    assertTrue(catalog.sizeInBytes() < maxBytesPerMovie * MILLION,
+        "Catalogue takes " + catalog.sizeInBytes() + " bytes");
+    // allows for heap noise, a list of movies would retain several times as much
+    assertTrue(retainedHeap < 2 * maxBytesPerMovie * MILLION, "Catalogue retains " + retainedHeap + " bytes");
+  }
+
+  /* Streams the movies into the builder, which is garbage once this returns. Casts repeat as they do in practice */
+  private static MovieCatalog millionMovies() {
+    final MovieCatalog.Builder builder = MovieCatalog.builder();
+    for (int i = 0; i < MILLION; i++) {
+      final LocalDate releaseDate = LocalDate.ofEpochDay(i % 20_000);
+      builder.add(new Movie("Lead actor " + i % 5_000 + ", Supporting actor " + i % 5_000, (long) i + 1,
+          "Movie " + (i + 1), releaseDate, releaseDate.getYear()));
+    }
+    return builder.build();
+  }
+
+  private static long usedHeapAfterGc() {
+    final Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,116 @@
+package com.learnwiremock.catalog;
+
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieIndexTest {
+
+  private final MovieCatalog catalog = MovieCatalog.of(List.of(
+      new Movie("Christian Bale", 1L, "Batman Begins", LocalDate.of(2005, 6, 15), 2005),
+      new Movie("Christian Bale", 2L, "Dark Knight", LocalDate.of(2008, 7, 18), 2008),
+      new Movie("Christian Bale", 3L, "The Dark Knight Rises", LocalDate.of(2012, 7, 20), 2012),
+      new Movie("Robert Downey Jr", 4L, "The Avengers", LocalDate.of(2012, 5, 4), 2012),
+      new Movie("Lumiere", 5L, "Workers Leaving", null, 1800),
+      new Movie(null, 6L, null, null, null)));
+
+  @Test
+  void moviesAreFoundByYear() {
+    final MovieYearIndex index = MovieYearIndex.of(catalog);
+
+    assertArrayEquals(new int[] {catalog.rowOf(3L), catalog.rowOf(4L)}, index.rowsOf(2012));
+    assertArrayEquals(new int[] {catalog.rowOf(1L)}, index.rowsOf(2005));
+    assertEquals(0, index.rowsOf(2006).length);
+    assertEquals(0, index.rowsOf(2100).length);
+  }
+
+  @Test
+  void yearsBeforeTheFirstMovieAreNotIndexed() {
+    final MovieYearIndex index = MovieYearIndex.of(catalog);
+
+    assertEquals(0, index.rowsOf(1800).length);
+    assertEquals(0, index.rowsOf(MovieCatalog.NO_YEAR).length);
+    assertEquals(0, index.rowsOf(MoviesAppConstants.YEAR_OF_FIRST_MOVIE_EVER_MADE).length);
+  }
+
+  @Test
+  void farFutureYearsAreIndexedWithoutADenseSlotEach() {
+    final MovieCatalog withBadYears = MovieCatalog.of(List.of(
+        new Movie("Christian Bale", 1L, "Batman Begins", LocalDate.of(2005, 6, 15), 2005),
+        new Movie("Typo", 2L, "Far Future", null, 2_000_000_000),
+        new Movie("Typo", 3L, "Last Year", null, Integer.MAX_VALUE),
+        new Movie("Typo", 4L, "Far Future Again", null, 2_000_000_000)));
+
+    final MovieYearIndex index = MovieYearIndex.of(withBadYears);
+
+    assertArrayEquals(new int[] {withBadYears.rowOf(2L), withBadYears.rowOf(4L)}, index.rowsOf(2_000_000_000));
+    assertArrayEquals(new int[] {withBadYears.rowOf(3L)}, index.rowsOf(Integer.MAX_VALUE));
+    assertArrayEquals(new int[] {withBadYears.rowOf(1L)}, index.rowsOf(2005));
+    assertEquals(0, index.rowsOf(MovieYearIndex.LAST_DENSE_YEAR + 1).length);
+    assertTrue(index.sizeInBytes() < 1024, "index takes " + index.sizeInBytes() + " bytes");
+  }
+
+  @Test
+  void namesAreMatchedAnywhereAndCaseSensitively() {
+    final MovieNameIndex index = MovieNameIndex.of(catalog);
+
+    assertArrayEquals(new int[] {catalog.rowOf(2L), catalog.rowOf(3L)}, index.rowsContaining("Dark Knight"));
+    assertArrayEquals(new int[] {catalog.rowOf(3L)}, index.rowsContaining("Rises"));
+    assertArrayEquals(new int[] {catalog.rowOf(4L)}, index.rowsContaining("ve"));
+    assertEquals(0, index.rowsContaining("dark knight").length);
+    assertEquals(0, index.rowsContaining("Knight Dark").length);
+  }
+
+  @Test
+  void shortQueriesAreMatchedAgainstThePackedNames() {
+    final MovieCatalog accented = MovieCatalog.of(List.of(
+        new Movie(null, 1L, "Am\u00e9lie", null, 2001),
+        new Movie(null, 2L, "Ame", null, 2001),
+        new Movie(null, 3L, "\ud83c\udfac Premiere", null, 2001),
+        new Movie(null, 4L, "", null, 2001)));
+    final MovieNameIndex index = MovieNameIndex.of(accented);
+
+    assertArrayEquals(new int[] {accented.rowOf(1L)}, index.rowsContaining("\u00e9"));
+    assertArrayEquals(new int[] {accented.rowOf(1L)}, index.rowsContaining("m\u00e9"));
+    assertArrayEquals(new int[] {accented.rowOf(1L), accented.rowOf(2L)}, index.rowsContaining("Am"));
+    assertArrayEquals(new int[] {accented.rowOf(3L)}, index.rowsContaining("\ud83c\udfac"));
+    // half of a surrogate pair matches as String.contains would
+    assertArrayEquals(new int[] {accented.rowOf(3L)}, index.rowsContaining("\ud83c"));
+    assertEquals(4, index.rowsContaining("").length);
+  }
+
+  @Test
+  void nameIndexAgreesWithScanningEveryName() {
+    final Random random = new Random(42);
+    final List<Movie> movies = new ArrayList<>();
+    for (long id = 1; id <= 2_000; id++) {
+      movies.add(new Movie(null, id, randomName(random, 4 + random.nextInt(20)), null, null));
+    }
+    final MovieCatalog randomCatalog = MovieCatalog.of(movies);
+    final MovieNameIndex index = MovieNameIndex.of(randomCatalog);
+
+    for (int query = 0; query < 500; query++) {
+      final String name = randomName(random, 1 + random.nextInt(5));
+      final int[] scanned = IntStream.range(0, randomCatalog.size())
+          .filter(row -> randomCatalog.nameAt(row).contains(name))
+          .toArray();
+      assertArrayEquals(scanned, index.rowsContaining(name), name);
+    }
+  }
+
+  /* A small alphabet so that queries match often */
+  private static String randomName(Random random, int length) {
+    final StringBuilder name = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      name.append("abcde ".charAt(random.nextInt(6)));
+    }
+    return name.toString();
+  }
+}
@@ -0,0 +1,50 @@
+package com.learnwiremock.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.learnwiremock.dto.Movie;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieJsonTest {
+
+  @Test
+  void moviesRoundTrip() throws Exception {
+    //given
+    final ObjectMapper objectMapper = MovieJson.newObjectMapper();
+    final Movie movie = new Movie("Christian Bale", 1L, "Batman Begins", LocalDate.of(2005, 6, 15), 2005);
+
+    //when
+    final String json = objectMapper.writeValueAsString(movie);
+
+    //then
+    assertTrue(json.contains("\"release_date\""));
+    assertEquals(movie, objectMapper.readValue(json, Movie.class));
+  }
+
+  @Test
+  void readsTheDateFormatOfTheMoviesService() throws Exception {
+    final Movie movie = MovieJson.objectMapper().readValue("{\"release_date\":\"2005-06-15\"}", Movie.class);
+
+    assertEquals(LocalDate.of(2005, 6, 15), movie.getReleaseDate());
+  }
+
+  @Test
+  void afterburnerIsRegistered() {
+    assertTrue(MovieJson.objectMapper().getRegisteredModuleIds().contains(new AfterburnerModule().getTypeId()));
+  }
+
+  @Test
+  void unknownPropertiesAreIgnored() throws Exception {
+    final Movie movie = MovieJson.objectMapper().readValue("{\"name\":\"Batman Begins\",\"rating\":8.2}", Movie.class);
+
+    assertEquals("Batman Begins", movie.getName());
+  }
+
+  @Test
+  void sharedMapperIsCreatedOnce() {
+    assertSame(MovieJson.objectMapper(), MovieJson.objectMapper());
+  }
+}
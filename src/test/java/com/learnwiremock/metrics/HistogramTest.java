@@ -0,0 +1,57 @@
+package com.learnwiremock.metrics;
+
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTest {
+
+  @Test
+  void empty() {
+    final Histogram histogram = new Histogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.percentile(0.99));
+    assertEquals(0.0, histogram.getMean());
+  }
+
+  @Test
+  void smallValuesAreExact() {
+    final Histogram histogram = new Histogram();
+    LongStream.rangeClosed(1, 10).forEach(histogram::record);
+    assertEquals(10, histogram.getCount());
+    assertEquals(55, histogram.getSum());
+    assertEquals(5, histogram.percentile(0.5));
+    assertEquals(10, histogram.percentile(1.0));
+    assertEquals(1, histogram.percentile(0.0));
+  }
+
+  @Test
+  void percentilesAreWithinBucketPrecision() {
+    final Histogram histogram = new Histogram();
+    LongStream.rangeClosed(1, 1_000_000).forEach(value -> histogram.record(value * 1_000));
+    assertEquals(1_000_000_000L, histogram.getMax());
+    assertEquals(500_000_000.0, histogram.percentile(0.5), 500_000_000.0 / 16);
+    assertEquals(990_000_000.0, histogram.percentile(0.99), 990_000_000.0 / 16);
+    assertTrue(histogram.percentile(0.99) >= 990_000_000L);
+  }
+
+  @Test
+  void bucketsCoverTheWholeRange() {
+    for (long value : new long[] {0, 31, 32, 33, 1L << 40, Long.MAX_VALUE}) {
+      final int bucket = Histogram.bucketOf(value);
+      assertTrue(Histogram.upperBoundOf(bucket) >= value);
+      assertTrue(bucket == 0 || Histogram.upperBoundOf(bucket - 1) < value);
+    }
+    final Histogram histogram = new Histogram();
+    histogram.record(-1);
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(0, histogram.percentile(0.5));
+    assertEquals(Long.MAX_VALUE, histogram.percentile(1.0));
+  }
+
+  @Test
+  void invalidPercentile() {
+    assertThrows(IllegalArgumentException.class, () -> new Histogram().percentile(1.5));
+  }
+}
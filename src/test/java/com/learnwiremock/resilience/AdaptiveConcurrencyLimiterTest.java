@@ -0,0 +1,45 @@
+package com.learnwiremock.resilience;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+  @Test
+  void concurrencyLimitGrowsWhileResponsesAreFastAndShrinksOnOverload() throws InterruptedException {
+    final AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder()
+        .initialLimit(2)
+        .backoffRatio(0.5)
+        .build();
+    assertTrue(limiter.tryAcquire());
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+    for (int i = 0; i < 20; i++) {
+      limiter.onResponse(Duration.ofMillis(10).toNanos());
+      assertTrue(limiter.tryAcquire());
+    }
+    final int grown = limiter.getLimit();
+    assertTrue(grown > 2, "limit " + grown);
+
+    Thread.sleep(20);
+    limiter.onOverload();
+    assertTrue(limiter.getLimit() < grown);
+    // overload seen by requests in flight together only lowers the limit once
+    final int lowered = limiter.getLimit();
+    limiter.onOverload();
+    assertEquals(lowered, limiter.getLimit());
+    Thread.sleep(20);
+    assertTrue(limiter.tryAcquire());
+    limiter.onResponse(Duration.ofMillis(100).toNanos());
+    assertTrue(limiter.getLimit() < lowered, "slow responses are overload too");
+  }
+
+  @Test
+  void invalidLimiter() {
+    assertThrows(IllegalArgumentException.class,
+        () -> AdaptiveConcurrencyLimiter.builder().minLimit(10).initialLimit(5).build());
+    assertThrows(IllegalArgumentException.class, () -> AdaptiveConcurrencyLimiter.builder().backoffRatio(1.5).build());
+  }
+}
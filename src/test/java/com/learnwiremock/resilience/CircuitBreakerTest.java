@@ -0,0 +1,123 @@
+package com.learnwiremock.resilience;
+
+import com.learnwiremock.exception.MovieErrorResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+  private static final MovieErrorResponse SERVER_ERROR = MovieErrorResponse.withoutStackTrace("", 500, null, null);
+  private static final MovieErrorResponse NOT_FOUND = MovieErrorResponse.withoutStackTrace("", 404, null, null);
+
+  private final List<CircuitBreaker.State> transitions = new ArrayList<>();
+  private CircuitBreaker circuitBreaker;
+
+  @BeforeEach
+  void setUp() {
+    circuitBreaker = new CircuitBreaker("getMovieById", CircuitBreakerPolicy.builder()
+        .slidingWindowSize(4)
+        .minimumCalls(4)
+        .failureRateThreshold(0.5)
+        .slowCallDuration(Duration.ofMillis(100))
+        .openDuration(Duration.ofMillis(50))
+        .halfOpenCalls(2)
+        .build(),
+        (name, from, to) -> transitions.add(to));
+  }
+
+  private void call(Throwable error) {
+    assertTrue(circuitBreaker.tryAcquirePermission());
+    if (error == null) {
+      circuitBreaker.onSuccess(0);
+    } else {
+      circuitBreaker.onError(0, error);
+    }
+  }
+
+  @Test
+  void opensOnceTheFailureRateIsReached() {
+    call(SERVER_ERROR);
+    call(null);
+    call(null);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    call(SERVER_ERROR);
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    assertFalse(circuitBreaker.tryAcquirePermission());
+  }
+
+  @Test
+  void oldCallsSlideOutOfTheWindow() {
+    call(SERVER_ERROR);
+    call(null);
+    call(null);
+    call(null);
+    call(null);
+    call(SERVER_ERROR);
+    // the first failure has left the window, so one failure in four
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+  }
+
+  @Test
+  void clientErrorsAreNotFailures() {
+    for (int i = 0; i < 8; i++) {
+      call(NOT_FOUND);
+    }
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+  }
+
+  @Test
+  void slowCallsOpenTheBreaker() {
+    for (int i = 0; i < 4; i++) {
+      assertTrue(circuitBreaker.tryAcquirePermission());
+      circuitBreaker.onSuccess(Duration.ofMillis(150).toNanos());
+    }
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+  }
+
+  @Test
+  void halfOpenProbesCloseOrReopenTheBreaker() throws InterruptedException {
+    for (int i = 0; i < 4; i++) {
+      call(SERVER_ERROR);
+    }
+    Thread.sleep(60);
+    assertTrue(circuitBreaker.tryAcquirePermission());
+    assertTrue(circuitBreaker.tryAcquirePermission());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    // only the permitted number of probes is let through
+    assertFalse(circuitBreaker.tryAcquirePermission());
+    circuitBreaker.onSuccess(0);
+    circuitBreaker.onError(0, SERVER_ERROR);
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+    Thread.sleep(60);
+    call(null);
+    call(null);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    assertEquals(List.of(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.OPEN,
+        CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.CLOSED), transitions);
+  }
+
+  @Test
+  void cancelledProbesAreGivenBack() throws InterruptedException {
+    for (int i = 0; i < 4; i++) {
+      call(SERVER_ERROR);
+    }
+    Thread.sleep(60);
+    assertTrue(circuitBreaker.tryAcquirePermission());
+    assertTrue(circuitBreaker.tryAcquirePermission());
+    circuitBreaker.onCancel();
+    assertTrue(circuitBreaker.tryAcquirePermission());
+  }
+
+  @Test
+  void invalidPolicy() {
+    assertThrows(IllegalArgumentException.class, () -> CircuitBreakerPolicy.builder().failureRateThreshold(0.0).build());
+    assertThrows(IllegalArgumentException.class,
+        () -> CircuitBreakerPolicy.builder().slidingWindowSize(5).minimumCalls(6).build());
+  }
+}
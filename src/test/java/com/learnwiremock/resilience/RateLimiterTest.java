@@ -0,0 +1,36 @@
+package com.learnwiremock.resilience;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+  @Test
+  void burstGoesAheadAndTheRestIsSpacedOut() {
+    final RateLimiter rateLimiter = RateLimiter.builder().permitsPerSecond(10).burst(3).build();
+    assertEquals(0, rateLimiter.reserve());
+    assertEquals(0, rateLimiter.reserve());
+    assertEquals(0, rateLimiter.reserve());
+    final long fourth = rateLimiter.reserve();
+    final long fifth = rateLimiter.reserve();
+    assertTrue(fourth > 0 && fourth <= Duration.ofMillis(100).toNanos(), "fourth waits " + fourth);
+    assertTrue(fifth - fourth > Duration.ofMillis(90).toNanos(), "fifth waits " + fifth);
+  }
+
+  @Test
+  void requestsWaitingTooLongAreRefused() {
+    final RateLimiter rateLimiter = RateLimiter.builder().permitsPerSecond(10).maxWait(Duration.ofMillis(250)).build();
+    assertEquals(0, rateLimiter.reserve());
+    assertTrue(rateLimiter.reserve() > 0);
+    assertTrue(rateLimiter.reserve() > 0);
+    assertEquals(-1, rateLimiter.reserve());
+  }
+
+  @Test
+  void invalidRateLimiter() {
+    assertThrows(IllegalArgumentException.class, () -> RateLimiter.builder().build());
+    assertThrows(IllegalArgumentException.class, () -> RateLimiter.builder().permitsPerSecond(1).burst(0).build());
+  }
+}
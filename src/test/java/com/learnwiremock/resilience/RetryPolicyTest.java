@@ -0,0 +1,71 @@
+package com.learnwiremock.resilience;
+
+import com.learnwiremock.exception.MovieErrorResponse;
+import java.io.IOException;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryPolicyTest {
+
+  @Test
+  void backoffGrowsExponentiallyUpToTheMaximum() {
+    final RetryPolicy policy = RetryPolicy.builder()
+        .initialBackoff(Duration.ofMillis(100))
+        .maxBackoff(Duration.ofMillis(300))
+        .jitter(0.0)
+        .build();
+    assertEquals(Duration.ofMillis(100), policy.backoff(1));
+    assertEquals(Duration.ofMillis(200), policy.backoff(2));
+    assertEquals(Duration.ofMillis(300), policy.backoff(3));
+  }
+
+  @Test
+  void jitterOnlyShortensTheBackoff() {
+    final RetryPolicy policy = RetryPolicy.builder().initialBackoff(Duration.ofMillis(100)).jitter(0.5).build();
+    for (int i = 0; i < 100; i++) {
+      final long millis = policy.backoff(1).toMillis();
+      assertTrue(millis >= 50 && millis <= 100, "backoff " + millis);
+    }
+  }
+
+  @Test
+  void onlyServerErrorsAndMissingResponsesAreRetryable() {
+    final RetryPolicy policy = RetryPolicy.builder().build();
+    assertTrue(policy.isRetryable(MovieErrorResponse.withoutStackTrace("", 503, null, null)));
+    assertTrue(policy.isRetryable(MovieErrorResponse.withoutStackTrace("", 429, null, null)));
+    assertTrue(policy.isRetryable(new MovieErrorResponse(new IOException("Connection reset"))));
+    assertFalse(policy.isRetryable(MovieErrorResponse.withoutStackTrace("", 404, null, null)));
+    assertFalse(policy.isRetryable(new MovieErrorResponse(new DecodingException("Bad JSON"))));
+    assertFalse(policy.isRetryable(new IllegalStateException()));
+  }
+
+  @Test
+  void retryBudgetIsEarnedByRequests() {
+    final RetryBudget budget = RetryBudget.builder().ratio(0.5).maxRetries(1).build();
+    assertTrue(budget.tryAcquireRetry());
+    assertFalse(budget.tryAcquireRetry());
+    budget.recordRequest();
+    assertFalse(budget.tryAcquireRetry());
+    budget.recordRequest();
+    assertTrue(budget.tryAcquireRetry());
+  }
+
+  @Test
+  void retryBudgetDoesNotSaveUpBeyondItsMaximum() {
+    final RetryBudget budget = RetryBudget.builder().ratio(1.0).maxRetries(2).build();
+    for (int i = 0; i < 10; i++) {
+      budget.recordRequest();
+    }
+    assertEquals(2.0, budget.getAvailableRetries());
+  }
+
+  @Test
+  void invalidPolicy() {
+    assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().maxAttempts(0).build());
+    assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().jitter(1.5).build());
+    assertThrows(IllegalArgumentException.class, () -> RetryBudget.builder().ratio(-1.0).build());
+  }
+}
@@ -0,0 +1,168 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.learnwiremock.catalog.MovieCatalog;
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.exception.MovieErrorResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@ExtendWith(WireMockExtension.class)
+public class LocalMovieQueryEngineWireMockTest {
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .notifier(new ConsoleNotifier(false))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  private static final String allMoviesUrl = "/" + MoviesAppConstants.V1_GET_ALL_MOVIES;
+  private static final String byNameUrl = "/" + MoviesAppConstants.V1_GET_MOVIE_BY_NAME;
+  private static final String byYearUrl = "/" + MoviesAppConstants.V1_GET_MOVIE_BY_YEAR;
+
+  private final AtomicLong now = new AtomicLong();
+
+  private LocalMovieQueryEngine engine() {
+    return LocalMovieQueryEngine.builder()
+        .client(new ReactiveMoviesRestClient(
+            WebClient.create(String.format("http://localhost:%s/", wireMockServer.port())),
+            MoviesRestClientOptions.builder().coalesceReads(false).build()))
+        .maxStaleness(Duration.ofMinutes(1))
+        .ticker(now::get)
+        .build();
+  }
+
+  private void stubAllMovies() {
+    stubFor(get(urlPathEqualTo(allMoviesUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-all-movies.json")));
+  }
+
+  private static List<String> names(List<Movie> movies) {
+    return movies.stream().map(Movie::getName).collect(Collectors.toList());
+  }
+
+  @Test
+  void lookupsAreAnsweredLocallyOnceRefreshed() {
+    //given
+    stubAllMovies();
+    final LocalMovieQueryEngine engine = engine();
+    engine.refresh().block();
+
+    //when
+    final List<Movie> byName = engine.getMoviesByName("Avengers").collectList().block();
+    final List<Movie> byYear = engine.getMoviesByYear(2012).collectList().block();
+
+    //then
+    assertEquals(List.of("The Avengers", "Avengers: Age of Ultron", "Avengers: Infinity War", "Avengers: End Game"),
+        names(byName));
+    assertEquals(List.of("The Dark Knight Rises", "The Avengers"), names(byYear));
+    assertEquals(2, engine.getLocalQueryCount());
+    verify(exactly(0), getRequestedFor(urlPathEqualTo(byNameUrl)));
+    verify(exactly(0), getRequestedFor(urlPathEqualTo(byYearUrl)));
+  }
+
+  @Test
+  void lookupsWithoutMatchesAreNotFound() {
+    //given
+    stubAllMovies();
+    final LocalMovieQueryEngine engine = engine();
+    engine.refresh().block();
+
+    //when
+    final MovieErrorResponse byName = assertThrows(MovieErrorResponse.class,
+        () -> engine.getMoviesByName("avengers").collectList().block());
+    final MovieErrorResponse byYear = assertThrows(MovieErrorResponse.class,
+        () -> engine.getMoviesByYear(1999).collectList().block());
+
+    //then
+    assertEquals(HttpStatus.NOT_FOUND.value(), byName.getStatusCode());
+    assertEquals("No Movie Available with the given name - avengers", byName.getResponseBody());
+    assertEquals(HttpStatus.NOT_FOUND.value(), byYear.getStatusCode());
+    assertThrows(IllegalArgumentException.class, () -> engine.getMoviesByName(" "));
+  }
+
+  @Test
+  void lookupsGoToTheServiceWhenStale() {
+    //given
+    stubAllMovies();
+    stubFor(get(urlPathEqualTo(byYearUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movies-by-year-template.json")));
+    final LocalMovieQueryEngine engine = engine();
+
+    //when
+    engine.getMoviesByYear(2005).collectList().block();
+    engine.refresh().block();
+    engine.getMoviesByYear(2005).collectList().block();
+    now.addAndGet(Duration.ofMinutes(2).toNanos());
+    engine.getMoviesByYear(2005).collectList().block();
+
+    //then
+    assertFalse(engine.isFresh());
+    assertEquals(1, engine.getLocalQueryCount());
+    assertEquals(2, engine.getRemoteQueryCount());
+    verify(exactly(2), getRequestedFor(urlPathEqualTo(byYearUrl)));
+  }
+
+  @Test
+  void writesThroughTheCatalogueSyncAreSeenWithoutIndexingAgain() {
+    //given
+    stubAllMovies();
+    final ReactiveMoviesRestClient client = new ReactiveMoviesRestClient(
+        WebClient.create(String.format("http://localhost:%s/", wireMockServer.port())),
+        MoviesRestClientOptions.builder().coalesceReads(false).build());
+    final MovieCatalogSync sync = MovieCatalogSync.builder().client(client).build();
+    final LocalMovieQueryEngine engine = LocalMovieQueryEngine.builder()
+        .client(client)
+        .catalogSync(sync)
+        .ticker(now::get)
+        .build();
+    final MovieCatalog indexed = engine.refresh().block();
+
+    //when
+    sync.movieCreated(new Movie("Chris Evans", 11L, "Avengers: Civil War", LocalDate.of(2016, 5, 6), 2016));
+    sync.movieUpdated(4L, new Movie("Robert Downey Jr", 4L, "Marvel's The Avengers", LocalDate.of(2012, 5, 4), 2012));
+    sync.movieDeleted(5L);
+    final List<Movie> byName = engine.getMoviesByName("Avengers").collectList().block();
+    final List<Movie> byYear = engine.getMoviesByYear(2016).collectList().block();
+    final MovieCatalog refreshed = engine.refresh().block();
+
+    //then
+    assertEquals(List.of("Marvel's The Avengers", "Avengers: Infinity War", "Avengers: End Game",
+        "Avengers: Civil War"), names(byName));
+    assertEquals(List.of("Avengers: Civil War"), names(byYear));
+    assertSame(indexed, refreshed);
+    assertSame(indexed, engine.getCatalog());
+    assertEquals(0, engine.getRemoteQueryCount());
+    assertThrows(IllegalStateException.class, () -> engine.load(indexed));
+  }
+}
@@ -0,0 +1,267 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.learnwiremock.catalog.MovieCatalog;
+import com.learnwiremock.codec.MovieJson;
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@ExtendWith(WireMockExtension.class)
+public class MovieCatalogSyncWireMockTest {
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .notifier(new ConsoleNotifier(false))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  @TempDir
+  Path directory;
+
+  private static final String allMoviesUrl = "/" + MoviesAppConstants.V1_GET_ALL_MOVIES;
+
+  private final List<Movie> catalogue = readCatalogue();
+
+  private static List<Movie> readCatalogue() {
+    try {
+      return new ArrayList<>(Arrays.asList(MovieJson.objectMapper()
+          .readValue(Paths.get("src/test/resources/__files/get-all-movies.json").toFile(), Movie[].class)));
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private MoviesRestClient client() {
+    return new MoviesRestClient(
+        WebClient.create(String.format("http://localhost:%s/", wireMockServer.port())),
+        MoviesRestClientOptions.builder().coalesceReads(false).build());
+  }
+
+  private void stubAllMovies(List<Movie> movies) throws Exception {
+    stubFor(get(urlPathEqualTo(allMoviesUrl))
+        .willReturn(okForContentType(MediaType.APPLICATION_JSON_VALUE,
+            MovieJson.objectMapper().writeValueAsString(movies))));
+  }
+
+  @Test
+  void writesAreAppliedWithoutRefreshing() throws Exception {
+    //given
+    final Movie created = new Movie("Tom Hardy", 11L, "Dunkirk", LocalDate.of(2017, 7, 21), 2017);
+    final Movie updated = new Movie("Christian Bale", 1L, "Batman Begins Again", LocalDate.of(2005, 6, 15), 2005);
+    stubAllMovies(catalogue);
+    stubFor(post(urlPathEqualTo("/" + MoviesAppConstants.V1_POST_MOVIE))
+        .willReturn(okForContentType(MediaType.APPLICATION_JSON_VALUE,
+            MovieJson.objectMapper().writeValueAsString(created))));
+    stubFor(put(urlPathEqualTo("/movieservice/v1/movie/1"))
+        .willReturn(okForContentType(MediaType.APPLICATION_JSON_VALUE,
+            MovieJson.objectMapper().writeValueAsString(updated))));
+    stubFor(delete(urlPathEqualTo("/movieservice/v1/movie/2"))
+        .willReturn(ok("Movie Deleted Successfully")));
+    final MoviesRestClient client = client();
+    final MovieCatalogSync sync = MovieCatalogSync.builder().client(client.getReactiveClient()).build();
+    sync.refresh().block();
+
+    //when
+    client.createMovie(new Movie("Tom Hardy", "Dunkirk", LocalDate.of(2017, 7, 21), 2017));
+    client.updateMovie(1L, updated);
+    client.deleteMovie(2L);
+
+    //then
+    assertEquals(created, sync.get(11L));
+    assertEquals(updated, sync.get(1L));
+    assertFalse(sync.contains(2L));
+    assertEquals(10, sync.size());
+    assertEquals(3, sync.getAppliedWriteCount());
+    verify(exactly(1), getRequestedFor(urlPathEqualTo(allMoviesUrl)));
+  }
+
+  @Test
+  void refreshKeepsOnlyChangedMovies() throws Exception {
+    //given
+    stubAllMovies(catalogue);
+    final MovieCatalogSync sync = MovieCatalogSync.builder().client(client().getReactiveClient()).build();
+    final int loaded = sync.refresh().block();
+    final int unchanged = sync.refresh().block();
+    catalogue.get(0).setName("Batman Begins Again");
+    catalogue.remove(1);
+    catalogue.add(new Movie("Tom Hardy", 11L, "Dunkirk", LocalDate.of(2017, 7, 21), 2017));
+    stubAllMovies(catalogue);
+
+    //when
+    final int changed = sync.refresh().block();
+
+    //then
+    assertEquals(10, loaded);
+    assertEquals(0, unchanged);
+    assertEquals(3, changed);
+    assertEquals(3, sync.getOverlaySize());
+    assertEquals("Batman Begins Again", sync.get(1L).getName());
+    assertNull(sync.get(2L));
+    assertEquals(catalogue.get(9), sync.get(11L));
+    assertEquals(10, sync.size());
+  }
+
+  @Test
+  void largeOverlaysAreCompacted() throws Exception {
+    //given
+    stubAllMovies(catalogue);
+    final MovieCatalogSync sync = MovieCatalogSync.builder()
+        .client(client().getReactiveClient())
+        .compactionThreshold(2)
+        .build();
+    sync.refresh().block();
+    catalogue.forEach(movie -> movie.setYear(movie.getYear() + 1));
+    stubAllMovies(catalogue);
+
+    //when
+    sync.refresh().block();
+
+    //then
+    assertEquals(1, sync.getCompactionCount());
+    assertEquals(0, sync.getOverlaySize());
+    assertEquals(catalogue, sync.getCatalog().toMovies());
+  }
+
+  @Test
+  void theCatalogueIsOnlyRebuiltWhenCompacted() throws Exception {
+    //given
+    stubAllMovies(catalogue);
+    final MovieCatalogSync sync = MovieCatalogSync.builder().client(client().getReactiveClient()).build();
+    sync.refresh().block();
+    final MovieCatalog listed = sync.getCatalog();
+    sync.movieDeleted(1L);
+    sync.movieCreated(new Movie("Tom Hardy", 11L, "Dunkirk", LocalDate.of(2017, 7, 21), 2017));
+
+    //when
+    final MovieCatalog beforeCompacting = sync.getCatalog();
+    final Map<Long, Movie> overlay = sync.getOverlay();
+    final MovieCatalog compacted = sync.compact();
+
+    //then
+    assertSame(listed, beforeCompacting);
+    assertEquals(2, overlay.size());
+    assertNull(overlay.get(1L));
+    assertEquals("Dunkirk", overlay.get(11L).getName());
+    assertFalse(compacted.contains(1L));
+    assertTrue(compacted.contains(11L));
+    assertSame(compacted, sync.getCatalog());
+    assertSame(compacted, sync.compact());
+    assertEquals(1, sync.getCompactionCount());
+  }
+
+  @Test
+  void writesWithoutRefreshingAreCompacted() throws Exception {
+    //given
+    stubAllMovies(catalogue);
+    final MovieCatalogSync sync = MovieCatalogSync.builder()
+        .client(client().getReactiveClient())
+        .compactionThreshold(2)
+        .build();
+    sync.refresh().block();
+
+    //when
+    for (long id = 11; id <= 60; id++) {
+      sync.movieCreated(new Movie("Tom Hardy", id, "Dunkirk " + id, LocalDate.of(2017, 7, 21), 2017));
+    }
+    sync.movieDeleted(1L);
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (sync.getOverlaySize() > 2 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+
+    //then
+    assertTrue(sync.getCompactionCount() > 0);
+    assertTrue(sync.getOverlaySize() <= 2, "overlay holds " + sync.getOverlaySize() + " movies");
+    assertEquals(59, sync.size());
+    assertEquals("Dunkirk 60", sync.get(60L).getName());
+    assertNull(sync.get(1L));
+    verify(exactly(1), getRequestedFor(urlPathEqualTo(allMoviesUrl)));
+  }
+
+  @Test
+  void restoredCatalogueServesReadsBeforeRefreshing() throws Exception {
+    //given
+    final Path snapshotFile = directory.resolve("movies.catalog");
+    stubAllMovies(catalogue);
+    final MovieCatalogSync previous = MovieCatalogSync.builder().client(client().getReactiveClient()).build();
+    previous.refresh().block();
+    previous.save(snapshotFile);
+    catalogue.get(0).setName("Batman Begins Again");
+    stubAllMovies(catalogue);
+    final MovieCatalogSync sync = MovieCatalogSync.builder().client(client().getReactiveClient()).build();
+
+    //when
+    final boolean restored = sync.restore(snapshotFile);
+    final Movie beforeRefresh = sync.get(1L);
+    final int changed = sync.refresh().block();
+
+    //then
+    assertTrue(restored);
+    assertEquals("Batman Begins", beforeRefresh.getName());
+    assertEquals(1, changed);
+    assertEquals("Batman Begins Again", sync.get(1L).getName());
+    assertFalse(MovieCatalogSync.builder().client(client().getReactiveClient()).build()
+        .restore(directory.resolve("missing.catalog")));
+  }
+
+  @Test
+  void restoredCatalogueAnswersLookupsWhileRefreshing() throws Exception {
+    //given
+    final Path snapshotFile = directory.resolve("movies.catalog");
+    stubAllMovies(catalogue);
+    final MovieCatalogSync previous = MovieCatalogSync.builder().client(client().getReactiveClient()).build();
+    previous.refresh().block();
+    previous.save(snapshotFile);
+    catalogue.get(0).setName("Batman Begins Again");
+    stubFor(get(urlPathEqualTo(allMoviesUrl))
+        .willReturn(okForContentType(MediaType.APPLICATION_JSON_VALUE,
+            MovieJson.objectMapper().writeValueAsString(catalogue)).withFixedDelay(500)));
+    final ReactiveMoviesRestClient client = client().getReactiveClient();
+    final MovieCatalogSync sync = MovieCatalogSync.builder().client(client).build();
+    final LocalMovieQueryEngine engine = LocalMovieQueryEngine.builder().client(client).catalogSync(sync).build();
+
+    //when
+    final Mono<MovieCatalog> refresh = engine.restoreAndRefresh(snapshotFile);
+    final List<Movie> beforeRefresh = engine.getMoviesByName("Batman").collectList().block();
+    refresh.block();
+    final List<Movie> afterRefresh = engine.getMoviesByName("Batman").collectList().block();
+
+    //then
+    assertEquals("Batman Begins", beforeRefresh.get(0).getName());
+    assertEquals("Batman Begins Again", afterRefresh.get(0).getName());
+    assertEquals(1, sync.getRefreshedChangeCount());
+    assertEquals(0, engine.getRemoteQueryCount());
+    // the catalogue was listed once to be saved and once by the refresh
+    verify(exactly(2), getRequestedFor(urlPathEqualTo(allMoviesUrl)));
+  }
+}
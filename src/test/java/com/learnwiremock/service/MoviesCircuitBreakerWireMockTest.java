@@ -0,0 +1,162 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.learnwiremock.exception.CircuitBreakerOpenException;
+import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.metrics.InMemoryMoviesClientMetrics;
+import com.learnwiremock.resilience.CircuitBreaker;
+import com.learnwiremock.resilience.CircuitBreakerPolicy;
+import com.learnwiremock.resilience.RetryPolicy;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@ExtendWith(WireMockExtension.class)
+public class MoviesCircuitBreakerWireMockTest {
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .notifier(new ConsoleNotifier(true))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  private static final String getByIdStubUrl = "/movieservice/v1/movie/\\d+";
+
+  private InMemoryMoviesClientMetrics metrics;
+
+  @BeforeEach
+  void setUp() {
+    metrics = new InMemoryMoviesClientMetrics();
+  }
+
+  private MoviesRestClient client(CircuitBreakerPolicy circuitBreakerPolicy, RetryPolicy retryPolicy) {
+    return new MoviesRestClient(
+        WebClient.create(String.format("http://localhost:%s/", wireMockServer.port())),
+        MoviesRestClientOptions.builder()
+            .metrics(metrics)
+            .circuitBreakerPolicy(circuitBreakerPolicy)
+            .retryPolicy(retryPolicy)
+            .build());
+  }
+
+  private static CircuitBreakerPolicy.CircuitBreakerPolicyBuilder smallWindow() {
+    return CircuitBreakerPolicy.builder().slidingWindowSize(4).minimumCalls(4).openDuration(Duration.ofMinutes(1));
+  }
+
+  private static ResponseDefinitionBuilder movieResponse() {
+    return aResponse()
+        .withStatus(HttpStatus.OK.value())
+        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .withBodyFile("get-movie-by-id-template-parameterized.json")
+        .withTransformerParameter("name", "Batman Begins")
+        .withTransformerParameter("cast", "Christian Bale")
+        .withTransformerParameter("release_date", "2005-06-15")
+        .withTransformerParameter("year", 2005);
+  }
+
+  @Test
+  void opensOnFaultsAndFailsFast() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER)));
+    final MoviesRestClient client = client(smallWindow().build(), null);
+
+    for (int i = 0; i < 4; i++) {
+      final MovieErrorResponse error = assertThrows(MovieErrorResponse.class, () -> client.getMovieById(1L));
+      assertFalse(error instanceof CircuitBreakerOpenException);
+    }
+    // reactor-netty resends a request once by itself when the connection is reset
+    final int sent = findAll(getRequestedFor(urlPathMatching(getByIdStubUrl))).size();
+    assertThrows(CircuitBreakerOpenException.class, () -> client.getMovieById(1L));
+
+    verify(exactly(sent), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+    final InMemoryMoviesClientMetrics.OperationMetrics getMovieById = metrics.operation("getMovieById");
+    assertEquals(CircuitBreaker.State.OPEN, getMovieById.getCircuitBreakerState());
+    assertEquals(1, getMovieById.getCircuitBreakerTransitionCount(CircuitBreaker.State.OPEN));
+    assertEquals(1, getMovieById.getCircuitBreakerRejectedCount());
+  }
+
+  @Test
+  void operationsHaveTheirOwnCircuitBreaker() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(serverError()));
+    stubFor(delete(urlPathMatching(getByIdStubUrl)).willReturn(ok("Movie Deleted Successfully")));
+    final MoviesRestClient client = client(smallWindow().build(), null);
+
+    for (int i = 0; i < 5; i++) {
+      assertThrows(MovieErrorResponse.class, () -> client.getMovieById(1L));
+    }
+    assertEquals("Movie Deleted Successfully", client.deleteMovie(1L));
+    assertEquals(CircuitBreaker.State.OPEN,
+        client.getReactiveClient().getCircuitBreakerState(MoviesOperation.GET_MOVIE_BY_ID));
+    assertEquals(CircuitBreaker.State.CLOSED,
+        client.getReactiveClient().getCircuitBreakerState(MoviesOperation.DELETE_MOVIE));
+  }
+
+  @Test
+  void opensOnSlowCalls() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(movieResponse().withFixedDelay(300)));
+    final MoviesRestClient client = client(smallWindow()
+        .slowCallDuration(Duration.ofMillis(200))
+        .slowCallRateThreshold(1.0)
+        .build(), null);
+
+    for (int i = 0; i < 4; i++) {
+      assertNotNull(client.getMovieById(1L));
+    }
+    final long started = System.nanoTime();
+    assertThrows(CircuitBreakerOpenException.class, () -> client.getMovieById(1L));
+    assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 200, "rejected without waiting");
+  }
+
+  @Test
+  void closesOnceTheServiceRecovers() throws InterruptedException {
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .atPriority(5)
+        .willReturn(aResponse().withStatus(HttpStatus.SERVICE_UNAVAILABLE.value())));
+    final MoviesRestClient client = client(smallWindow()
+        .openDuration(Duration.ofMillis(200))
+        .halfOpenCalls(2)
+        .build(), null);
+
+    for (int i = 0; i < 4; i++) {
+      assertThrows(MovieErrorResponse.class, () -> client.getMovieById(1L));
+    }
+    assertThrows(CircuitBreakerOpenException.class, () -> client.getMovieById(1L));
+    stubFor(get(urlPathMatching(getByIdStubUrl)).atPriority(1).willReturn(movieResponse()));
+    Thread.sleep(300);
+
+    assertNotNull(client.getMovieById(1L));
+    assertEquals(CircuitBreaker.State.HALF_OPEN, metrics.operation("getMovieById").getCircuitBreakerState());
+    assertNotNull(client.getMovieById(1L));
+    assertEquals(CircuitBreaker.State.CLOSED, metrics.operation("getMovieById").getCircuitBreakerState());
+  }
+
+  @Test
+  void retriesStopOnceTheBreakerOpens() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(serverError()));
+    final MoviesRestClient client = client(smallWindow().build(),
+        RetryPolicy.builder().maxAttempts(10).initialBackoff(Duration.ofMillis(1)).build());
+
+    assertThrows(CircuitBreakerOpenException.class, () -> client.getMovieById(1L));
+    verify(exactly(4), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+  }
+}
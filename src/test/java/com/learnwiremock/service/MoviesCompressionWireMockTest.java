@@ -0,0 +1,139 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.metrics.InMemoryMoviesClientMetrics;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@ExtendWith(WireMockExtension.class)
+public class MoviesCompressionWireMockTest {
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .gzipDisabled(true)
+      .notifier(new ConsoleNotifier(false))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  private static final String allMoviesUrl = "/" + MoviesAppConstants.V1_GET_ALL_MOVIES;
+  private static final String postMovieUrl = "/" + MoviesAppConstants.V1_POST_MOVIE;
+
+  private MoviesWebClientFactory factory;
+
+  @AfterEach
+  void tearDown() {
+    if (factory != null) {
+      factory.close();
+    }
+  }
+
+  private MoviesRestClient client(MoviesWebClientFactory factory, MoviesRestClientOptions options) {
+    this.factory = factory;
+    return factory.createRestClient(String.format("http://localhost:%s/", wireMockServer.port()), options);
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(bytes);
+    }
+    return compressed.toByteArray();
+  }
+
+  @Test
+  void gzippedResponseIsDecompressed() throws Exception {
+    //given
+    final byte[] body = Files.readAllBytes(Paths.get("src/test/resources/__files/get-all-movies.json"));
+    stubFor(get(urlPathEqualTo(allMoviesUrl))
+        .withHeader(HttpHeaders.ACCEPT_ENCODING, containing("gzip"))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withHeader(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .withBody(gzip(body))));
+    final InMemoryMoviesClientMetrics metrics = new InMemoryMoviesClientMetrics();
+    final MoviesRestClient client = client(MoviesWebClientFactory.builder().build(),
+        MoviesRestClientOptions.builder().metrics(metrics).build());
+
+    //when
+    final List<Movie> movies = client.getAllMovies();
+
+    //then
+    assertEquals(10, movies.size());
+    assertEquals(body.length, metrics.operation("getAllMovies").getResponseSize().getMax());
+  }
+
+  @Test
+  void compressionCanBeDisabled() {
+    //given
+    stubFor(get(urlPathEqualTo(allMoviesUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-all-movies.json")));
+    final MoviesRestClient client = client(MoviesWebClientFactory.builder().compress(false).build(),
+        MoviesRestClientOptions.defaults());
+
+    //when
+    final List<Movie> movies = client.getAllMovies();
+
+    //then
+    assertEquals(10, movies.size());
+    verify(getRequestedFor(urlPathEqualTo(allMoviesUrl)).withoutHeader(HttpHeaders.ACCEPT_ENCODING));
+  }
+
+  @Test
+  void largeRequestBodiesAreGzipped() {
+    //given
+    stubFor(post(urlPathEqualTo(postMovieUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.CREATED.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBody("{\"movie_id\":1,\"name\":\"Batman Begins\",\"year\":2005}")));
+    final MoviesRestClient client = client(MoviesWebClientFactory.builder().build(),
+        MoviesRestClientOptions.builder().requestCompressionThreshold(512).build());
+    final Movie small = new Movie("Christian Bale", "Batman Begins", LocalDate.of(2005, 6, 15), 2005);
+    final Movie large = new Movie("Christian Bale, ".repeat(100), "Batman Begins", LocalDate.of(2005, 6, 15), 2005);
+
+    //when
+    client.createMovies(List.of(small, large), 1);
+
+    //then
+    final List<LoggedRequest> requests = findAll(postRequestedFor(urlPathEqualTo(postMovieUrl)));
+    assertEquals(2, requests.size());
+    assertFalse(requests.get(0).containsHeader(HttpHeaders.CONTENT_ENCODING));
+    assertTrue(requests.get(0).getBodyAsString().contains("\"cast\":\"Christian Bale\""));
+    assertEquals("gzip", requests.get(1).getHeader(HttpHeaders.CONTENT_ENCODING));
+    // wiremock logs request bodies decompressed
+    assertTrue(Integer.parseInt(requests.get(1).getHeader(HttpHeaders.CONTENT_LENGTH)) < 512);
+    assertTrue(requests.get(1).getBodyAsString().contains("Christian Bale, Christian Bale"));
+  }
+}
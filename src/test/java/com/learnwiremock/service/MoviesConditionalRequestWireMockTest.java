@@ -0,0 +1,215 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.learnwiremock.cache.ValidatorCache;
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.metrics.InMemoryMoviesClientMetrics;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@ExtendWith(WireMockExtension.class)
+public class MoviesConditionalRequestWireMockTest {
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .notifier(new ConsoleNotifier(false))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  private static final String allMoviesUrl = "/" + MoviesAppConstants.V1_GET_ALL_MOVIES;
+
+  private MoviesRestClient client(ValidatorCache validatorCache, InMemoryMoviesClientMetrics metrics) {
+    return new MoviesRestClient(
+        WebClient.create(String.format("http://localhost:%s/", wireMockServer.port())),
+        MoviesRestClientOptions.builder()
+            .coalesceReads(false)
+            .metrics(metrics)
+            .validatorCache(validatorCache)
+            .build());
+  }
+
+  private void stubAllMovies(String etag) {
+    stubFor(get(urlPathEqualTo(allMoviesUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withHeader(HttpHeaders.ETAG, etag)
+            .withBodyFile("get-all-movies.json")));
+  }
+
+  private void stubNotModified(String etag) {
+    stubFor(get(urlPathEqualTo(allMoviesUrl))
+        .atPriority(1)
+        .withHeader(HttpHeaders.IF_NONE_MATCH, equalTo(etag))
+        .willReturn(aResponse().withStatus(HttpStatus.NOT_MODIFIED.value())));
+  }
+
+  @Test
+  void notModifiedServesCachedMovies() throws Exception {
+    //given
+    final InMemoryMoviesClientMetrics metrics = new InMemoryMoviesClientMetrics();
+    final MoviesRestClient client = client(ValidatorCache.builder().build(), metrics);
+    stubAllMovies("\"v1\"");
+    stubNotModified("\"v1\"");
+
+    //when
+    final List<Movie> downloaded = client.getAllMovies();
+    final List<Movie> cached = client.getAllMovies();
+
+    //then
+    assertEquals(10, downloaded.size());
+    assertEquals(downloaded, cached);
+    verify(1, getRequestedFor(urlPathEqualTo(allMoviesUrl)).withoutHeader(HttpHeaders.IF_NONE_MATCH));
+    verify(1, getRequestedFor(urlPathEqualTo(allMoviesUrl)).withHeader(HttpHeaders.IF_NONE_MATCH, equalTo("\"v1\"")));
+    final InMemoryMoviesClientMetrics.OperationMetrics allMovies = metrics.operation("getAllMovies");
+    assertEquals(1, allMovies.getNotModifiedCount());
+    assertEquals(Files.size(Paths.get("src/test/resources/__files/get-all-movies.json")),
+        allMovies.getDecodedBytesSaved());
+  }
+
+  @Test
+  void changedCatalogueReplacesCachedMovies() {
+    //given
+    final MoviesRestClient client = client(ValidatorCache.builder().build(), new InMemoryMoviesClientMetrics());
+    stubAllMovies("\"v1\"");
+    stubFor(get(urlPathEqualTo(allMoviesUrl))
+        .atPriority(1)
+        .withHeader(HttpHeaders.IF_NONE_MATCH, equalTo("\"v1\""))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withHeader(HttpHeaders.ETAG, "\"v2\"")
+            .withBody("[{\"movie_id\":1,\"name\":\"Batman Begins\",\"year\":2005}]")));
+    stubNotModified("\"v2\"");
+
+    //when
+    assertEquals(10, client.getAllMovies().size());
+    final List<Movie> changed = client.getAllMovies();
+    final List<Movie> cached = client.getAllMovies();
+
+    //then
+    assertEquals(1, changed.size());
+    assertEquals("Batman Begins", changed.get(0).getName());
+    assertEquals(changed, cached);
+    verify(1, getRequestedFor(urlPathEqualTo(allMoviesUrl)).withHeader(HttpHeaders.IF_NONE_MATCH, equalTo("\"v2\"")));
+  }
+
+  @Test
+  void lastModifiedValidatorIsSentPerUri() {
+    //given
+    final InMemoryMoviesClientMetrics metrics = new InMemoryMoviesClientMetrics();
+    final MoviesRestClient client = client(ValidatorCache.builder().build(), metrics);
+    final String lastModified = "Wed, 21 Oct 2015 07:28:00 GMT";
+    stubFor(get(urlPathEqualTo("/" + MoviesAppConstants.V1_GET_MOVIE_BY_YEAR))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withHeader(HttpHeaders.LAST_MODIFIED, lastModified)
+            .withBodyFile("get-movies-by-year-template.json")));
+    stubFor(get(urlPathEqualTo("/" + MoviesAppConstants.V1_GET_MOVIE_BY_YEAR))
+        .atPriority(1)
+        .withQueryParam(MoviesAppConstants.V1_GET_MOVIE_BY_YEAR_QUERY_PARAM_YEAR, equalTo("2012"))
+        .withHeader(HttpHeaders.IF_MODIFIED_SINCE, equalTo(lastModified))
+        .willReturn(aResponse().withStatus(HttpStatus.NOT_MODIFIED.value())));
+
+    //when
+    final List<Movie> downloaded = client.getMoviesByYear(2012);
+    final List<Movie> cached = client.getMoviesByYear(2012);
+    final List<Movie> otherYear = client.getMoviesByYear(2008);
+
+    //then
+    assertFalse(downloaded.isEmpty());
+    assertEquals(downloaded, cached);
+    assertEquals(Integer.valueOf(2008), otherYear.get(0).getYear());
+    verify(1, getRequestedFor(urlPathEqualTo("/" + MoviesAppConstants.V1_GET_MOVIE_BY_YEAR))
+        .withHeader(HttpHeaders.IF_MODIFIED_SINCE, equalTo(lastModified)));
+    assertEquals(1, metrics.operation("getMoviesByYear").getNotModifiedCount());
+  }
+
+  @Test
+  void responsesWithMoreMoviesThanTheCacheKeepsAreNotCached() {
+    //given
+    final ValidatorCache validatorCache = ValidatorCache.builder().maximumMoviesPerResponse(9).build();
+    final MoviesRestClient client = client(validatorCache, new InMemoryMoviesClientMetrics());
+    stubAllMovies("\"v1\"");
+    stubNotModified("\"v1\"");
+
+    //when
+    final List<Movie> first = client.getAllMovies();
+    final List<Movie> second = client.getAllMovies();
+
+    //then
+    assertEquals(10, first.size());
+    assertEquals(first, second);
+    assertEquals(0, validatorCache.size());
+    verify(2, getRequestedFor(urlPathEqualTo(allMoviesUrl)).withoutHeader(HttpHeaders.IF_NONE_MATCH));
+  }
+
+  @Test
+  void notModifiedWithoutACachedResponseIsAskedForAgain() {
+    //given
+    final MoviesRestClient client = client(ValidatorCache.builder().build(), new InMemoryMoviesClientMetrics());
+    stubFor(get(urlPathEqualTo(allMoviesUrl))
+        .inScenario("unsolicited")
+        .whenScenarioStateIs(Scenario.STARTED)
+        .willReturn(aResponse().withStatus(HttpStatus.NOT_MODIFIED.value()))
+        .willSetStateTo("answered"));
+    stubFor(get(urlPathEqualTo(allMoviesUrl))
+        .inScenario("unsolicited")
+        .whenScenarioStateIs("answered")
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-all-movies.json")));
+
+    //when
+    final List<Movie> movies = client.getAllMovies();
+    stubFor(get(urlPathEqualTo(allMoviesUrl)).willReturn(aResponse().withStatus(HttpStatus.NOT_MODIFIED.value())));
+
+    //then
+    assertEquals(10, movies.size());
+    final MovieErrorResponse error = assertThrows(MovieErrorResponse.class, client::getAllMovies);
+    assertEquals(HttpStatus.NOT_MODIFIED.value(), error.getStatusCode());
+  }
+
+  @Test
+  void cachedMoviesAreCopies() {
+    //given
+    final MoviesRestClient client = client(ValidatorCache.builder().build(), new InMemoryMoviesClientMetrics());
+    stubAllMovies("\"v1\"");
+    stubNotModified("\"v1\"");
+    final List<Movie> downloaded = client.getAllMovies();
+    final String name = downloaded.get(0).getName();
+
+    //when
+    downloaded.get(0).setName("Changed by the caller");
+    client.getAllMovies().get(0).setName("Changed by the caller");
+
+    //then
+    assertEquals(name, client.getAllMovies().get(0).getName());
+  }
+}
@@ -0,0 +1,185 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.exception.BodyDecodeDeadlineExceededException;
+import com.learnwiremock.exception.CircuitBreakerOpenException;
+import com.learnwiremock.exception.ConnectionAcquireDeadlineExceededException;
+import com.learnwiremock.exception.MovieDeadlineExceededException;
+import com.learnwiremock.exception.RequestSendDeadlineExceededException;
+import com.learnwiremock.resilience.AdaptiveConcurrencyLimiter;
+import com.learnwiremock.resilience.CircuitBreakerPolicy;
+import com.learnwiremock.resilience.RetryPolicy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@ExtendWith(WireMockExtension.class)
+public class MoviesDeadlineWireMockTest {
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .notifier(new ConsoleNotifier(true))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  private static final String getByIdStubUrl = "/movieservice/v1/movie/\\d+";
+  private static final String retrieveAllMoviesStubUrl = "/" + MoviesAppConstants.V1_GET_ALL_MOVIES;
+
+  private MoviesWebClientFactory webClientFactory;
+
+  @BeforeEach
+  void setUp() {
+    webClientFactory = MoviesWebClientFactory.builder().maxConnections(1).build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    webClientFactory.close();
+  }
+
+  private String baseUrl() {
+    return String.format("http://localhost:%s/", wireMockServer.port());
+  }
+
+  private MoviesRestClient client(MoviesRestClientOptions options) {
+    return webClientFactory.createRestClient(baseUrl(), options);
+  }
+
+  private static ResponseDefinitionBuilder movieResponse() {
+    return aResponse()
+        .withStatus(HttpStatus.OK.value())
+        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .withBodyFile("get-movie-by-id-template-parameterized.json")
+        .withTransformerParameter("name", "Batman Begins")
+        .withTransformerParameter("cast", "Christian Bale")
+        .withTransformerParameter("release_date", "2005-06-15")
+        .withTransformerParameter("year", 2005);
+  }
+
+  @Test
+  void callsWithinTheirDeadlineSucceed() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(movieResponse().withFixedDelay(50)));
+    final MoviesRestClient client = client(MoviesRestClientOptions.builder().deadline(Duration.ofSeconds(2)).build());
+
+    assertEquals("Batman Begins", client.getMovieById(1L).getName());
+  }
+
+  @Test
+  void slowResponseExceedsTheSendDeadline() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(movieResponse().withFixedDelay(1000)));
+    final MoviesRestClient client = client(MoviesRestClientOptions.builder()
+        .deadline(Duration.ofMillis(200))
+        .build());
+
+    final long started = System.nanoTime();
+    final MovieDeadlineExceededException error =
+        assertThrows(RequestSendDeadlineExceededException.class, () -> client.getMovieById(1L));
+    assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 800);
+    assertEquals("getMovieById", error.getOperation());
+    assertEquals(Duration.ofMillis(200), error.getDeadline());
+  }
+
+  @Test
+  void slowBodyExceedsTheDecodeDeadline() {
+    stubFor(get(urlEqualTo(retrieveAllMoviesStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-all-movies.json")
+            .withChunkedDribbleDelay(10, 2000)));
+    final MoviesRestClient client = client(MoviesRestClientOptions.defaults()).withDeadline(Duration.ofMillis(500));
+
+    assertThrows(BodyDecodeDeadlineExceededException.class, client::getAllMovies);
+  }
+
+  @Test
+  void busyPoolExceedsTheAcquireDeadline() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(movieResponse().withFixedDelay(1000)));
+    final MoviesRestClient client = client(MoviesRestClientOptions.builder().coalesceReads(false).build());
+    // holds the only connection of the pool
+    final Disposable slowCall = client.getReactiveClient().getMovieById(1L).subscribe();
+    try {
+      assertThrows(ConnectionAcquireDeadlineExceededException.class,
+          () -> client.withDeadline(Duration.ofMillis(300)).getMovieById(2L));
+    } finally {
+      slowCall.dispose();
+    }
+  }
+
+  @Test
+  void deadlineCoversRetries() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(serverError()));
+    final MoviesRestClient client = client(MoviesRestClientOptions.builder()
+        .retryPolicy(RetryPolicy.builder().initialBackoff(Duration.ofSeconds(1)).jitter(0.0).build())
+        .deadline(Duration.ofMillis(300))
+        .build());
+
+    final MovieDeadlineExceededException error =
+        assertThrows(MovieDeadlineExceededException.class, () -> client.getMovieById(1L));
+    // the deadline passed while backing off, not during either request
+    assertEquals(MovieDeadlineExceededException.class, error.getClass());
+    verify(exactly(1), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+  }
+
+  @Test
+  void operationDeadlinesOverrideTheDefault() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(movieResponse().withFixedDelay(300)));
+    stubFor(post(urlPathEqualTo("/" + MoviesAppConstants.V1_POST_MOVIE)).willReturn(movieResponse().withFixedDelay(300)));
+    final MoviesRestClient client = new MoviesRestClient(WebClient.create(baseUrl()), MoviesRestClientOptions.builder()
+        .deadline(Duration.ofMillis(100))
+        .operationDeadlines(Map.of(MoviesOperation.CREATE_MOVIE, Duration.ofSeconds(2)))
+        .build());
+
+    // a WebClient not created by the factory cannot tell acquiring a connection from sending the request
+    assertThrows(RequestSendDeadlineExceededException.class, () -> client.getMovieById(1L));
+    assertNotNull(client.createMovie(new Movie("Christian Bale", "Batman Begins", LocalDate.of(2005, 6, 15), 2005)));
+  }
+
+  @Test
+  void missedDeadlinesOpenTheBreakerAndLowerTheConcurrencyLimit() {
+    // hangs far longer than the deadline, so every request is cancelled rather than answered or timed out
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(movieResponse().withFixedDelay(5000)));
+    final AdaptiveConcurrencyLimiter concurrencyLimiter = AdaptiveConcurrencyLimiter.builder().initialLimit(10).build();
+    final MoviesRestClient client = client(MoviesRestClientOptions.builder()
+        .coalesceReads(false)
+        .circuitBreakerPolicy(CircuitBreakerPolicy.builder().slidingWindowSize(3).build())
+        .concurrencyLimiter(concurrencyLimiter)
+        .deadline(Duration.ofMillis(100))
+        .build());
+
+    for (long id = 1; id <= 3; id++) {
+      final long movieId = id;
+      assertThrows(RequestSendDeadlineExceededException.class, () -> client.getMovieById(movieId));
+    }
+
+    assertThrows(CircuitBreakerOpenException.class, () -> client.getMovieById(4L));
+    assertTrue(concurrencyLimiter.getLimit() < 10, "limit " + concurrencyLimiter.getLimit());
+    assertEquals(0, concurrencyLimiter.getInFlight());
+  }
+}
@@ -0,0 +1,175 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.learnwiremock.metrics.InMemoryMoviesClientMetrics;
+import com.learnwiremock.resilience.HedgingPolicy;
+import java.time.Duration;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@ExtendWith(WireMockExtension.class)
+public class MoviesHedgingWireMockTest {
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .notifier(new ConsoleNotifier(false))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  private static final String getByIdStubUrl = "/movieservice/v1/movie/\\d+";
+
+  private MoviesRestClient client(HedgingPolicy hedgingPolicy, InMemoryMoviesClientMetrics metrics) {
+    return new MoviesRestClient(
+        WebClient.create(String.format("http://localhost:%s/", wireMockServer.port())),
+        MoviesRestClientOptions.builder()
+            .coalesceReads(false)
+            .metrics(metrics)
+            .hedgingPolicy(hedgingPolicy)
+            .build());
+  }
+
+  private static ResponseDefinitionBuilder movieResponse() {
+    return aResponse()
+        .withStatus(HttpStatus.OK.value())
+        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .withBodyFile("get-movie-by-id-template-parameterized.json")
+        .withTransformerParameter("name", "Batman Begins")
+        .withTransformerParameter("cast", "Christian Bale")
+        .withTransformerParameter("release_date", "2005-06-15")
+        .withTransformerParameter("year", 2005);
+  }
+
+  /* Milliseconds taken by each of the calls, sorted */
+  private static long[] sortedLatencies(MoviesRestClient client, int calls) {
+    final long[] latencies = new long[calls];
+    for (int i = 0; i < calls; i++) {
+      final long started = System.nanoTime();
+      assertNotNull(client.getMovieById((long) i));
+      latencies[i] = Duration.ofNanos(System.nanoTime() - started).toMillis();
+    }
+    Arrays.sort(latencies);
+    return latencies;
+  }
+
+  @Test
+  void hedgingCutsTheTailLatency() {
+    // every tenth request is slow, so a hedge sent for it is answered by the fast response that follows
+    final int cycle = 10;
+    final long slowMillis = 2_000;
+    for (int call = 0; call < cycle; call++) {
+      stubFor(get(urlPathMatching(getByIdStubUrl))
+          .inScenario("tail")
+          .whenScenarioStateIs(call == 0 ? Scenario.STARTED : "call " + call)
+          .willReturn(call == cycle - 1 ? movieResponse().withFixedDelay((int) slowMillis) : movieResponse())
+          .willSetStateTo(call == cycle - 1 ? Scenario.STARTED : "call " + (call + 1)));
+    }
+    final long hedgeDelayMillis = 50;
+    final InMemoryMoviesClientMetrics metrics = new InMemoryMoviesClientMetrics();
+    final MoviesRestClient client = client(HedgingPolicy.builder()
+        .minSamples(1)
+        .minDelay(Duration.ofMillis(hedgeDelayMillis))
+        .maxDelay(Duration.ofMillis(hedgeDelayMillis))
+        .maxHedgeRatio(1.0)
+        .build(), metrics);
+
+    final long[] latencies = sortedLatencies(client, 3 * cycle);
+
+    // the slowest call took the hedge delay and a fast response, a generous margin apart from the slow one
+    final long slowestMillis = latencies[latencies.length - 1];
+    assertTrue(slowestMillis < hedgeDelayMillis + 500, "slowest call took " + slowestMillis + "ms");
+    assertTrue(metrics.operation("getMovieById").getHedgedCount() >= 3);
+  }
+
+  @Test
+  void hedgesAreCappedToAFractionOfCalls() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(movieResponse().withFixedDelay(50)));
+    final MoviesRestClient client = client(HedgingPolicy.builder()
+        .minSamples(5)
+        .minDelay(Duration.ofMillis(5))
+        .maxDelay(Duration.ofMillis(5))
+        .maxHedgeRatio(0.1)
+        .build(), new InMemoryMoviesClientMetrics());
+
+    sortedLatencies(client, 40);
+
+    // every call after the first five is slow enough to hedge, but only one call in ten may be
+    final long hedged = client.getReactiveClient().getHedgedRequestCount();
+    assertTrue(hedged > 0 && hedged <= 4, "hedged " + hedged);
+    verify(exactly(40 + (int) hedged), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+  }
+
+  @Test
+  void aFailedHedgeDoesNotFailTheCall() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(movieResponse()));
+    final MoviesRestClient client = client(HedgingPolicy.builder()
+        .minSamples(1)
+        .minDelay(Duration.ofMillis(20))
+        .maxDelay(Duration.ofMillis(20))
+        .maxHedgeRatio(1.0)
+        .build(), new InMemoryMoviesClientMetrics());
+    assertNotNull(client.getMovieById(1L));
+
+    // the original request answers slowly but successfully, the hedge fails at once
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .inScenario("hedge")
+        .whenScenarioStateIs(Scenario.STARTED)
+        .willReturn(movieResponse().withFixedDelay(200))
+        .willSetStateTo("hedged"));
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .inScenario("hedge")
+        .whenScenarioStateIs("hedged")
+        .willReturn(serverError()));
+
+    assertNotNull(client.getMovieById(2L));
+    assertEquals(1, client.getReactiveClient().getHedgedRequestCount());
+  }
+
+  @Test
+  void theDelayFollowsAShiftInLatency() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(movieResponse().withFixedDelay(5)));
+    final MoviesRestClient client = client(HedgingPolicy.builder()
+        .percentile(0.75)
+        .minSamples(3)
+        .minDelay(Duration.ofMillis(1))
+        .maxHedgeRatio(1.0)
+        .latencyWindow(Duration.ofMillis(500))
+        .build(), new InMemoryMoviesClientMetrics());
+    sortedLatencies(client, 100);
+    final long hedgedBeforeShift = client.getReactiveClient().getHedgedRequestCount();
+
+    // the service slows down for good, calls right after the shift are hedged against the fast latencies
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(movieResponse().withFixedDelay(80)));
+    sortedLatencies(client, 3);
+    final long hedgedAfterShift = client.getReactiveClient().getHedgedRequestCount() - hedgedBeforeShift;
+    sortedLatencies(client, 15);
+    final long hedgedBeforeSettled = client.getReactiveClient().getHedgedRequestCount();
+
+    // two windows later the delay follows the slow latencies, while the fast ones still make up most calls made
+    sortedLatencies(client, 10);
+    final long hedgedOnceSettled = client.getReactiveClient().getHedgedRequestCount() - hedgedBeforeSettled;
+
+    assertTrue(hedgedAfterShift > 0, "hedged " + hedgedAfterShift + " of 3 calls after the shift");
+    assertTrue(hedgedOnceSettled <= 4, "hedged " + hedgedOnceSettled + " of 10 calls once settled");
+  }
+}
@@ -0,0 +1,155 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.learnwiremock.dto.MovieBatchResult;
+import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.exception.RequestRejectedException;
+import com.learnwiremock.metrics.InMemoryMoviesClientMetrics;
+import com.learnwiremock.resilience.AdaptiveConcurrencyLimiter;
+import com.learnwiremock.resilience.RateLimiter;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@ExtendWith(WireMockExtension.class)
+public class MoviesLimiterWireMockTest {
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .notifier(new ConsoleNotifier(true))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  private static final String getByIdStubUrl = "/movieservice/v1/movie/\\d+";
+
+  private InMemoryMoviesClientMetrics metrics;
+
+  @BeforeEach
+  void setUp() {
+    metrics = new InMemoryMoviesClientMetrics();
+  }
+
+  private MoviesRestClient client(RateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+    return new MoviesRestClient(
+        WebClient.create(String.format("http://localhost:%s/", wireMockServer.port())),
+        MoviesRestClientOptions.builder()
+            .coalesceReads(false)
+            .metrics(metrics)
+            .rateLimiter(rateLimiter)
+            .concurrencyLimiter(concurrencyLimiter)
+            .build());
+  }
+
+  private static ResponseDefinitionBuilder movieResponse() {
+    return aResponse()
+        .withStatus(HttpStatus.OK.value())
+        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .withBodyFile("get-movie-by-id-template-parameterized.json")
+        .withTransformerParameter("name", "Batman Begins")
+        .withTransformerParameter("cast", "Christian Bale")
+        .withTransformerParameter("release_date", "2005-06-15")
+        .withTransformerParameter("year", 2005);
+  }
+
+  private static List<Long> ids(int count) {
+    return LongStream.rangeClosed(1, count).boxed().collect(Collectors.toList());
+  }
+
+  private static long rejected(List<MovieBatchResult<Long>> results) {
+    return results.stream().filter(result -> result.getError() instanceof RequestRejectedException).count();
+  }
+
+  @Test
+  void rateLimiterSpacesRequestsOut() throws InterruptedException {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(movieResponse()));
+    final MoviesRestClient client = client(RateLimiter.builder().permitsPerSecond(20).build(), null);
+    // warmed up so that building the first request does not take longer than the spacing between requests
+    client.getMovieById(0L);
+    Thread.sleep(100);
+
+    final long started = System.nanoTime();
+    final List<MovieBatchResult<Long>> results = client.getMoviesByIds(ids(10), 10);
+
+    assertTrue(results.stream().allMatch(MovieBatchResult::isSuccess));
+    // the first request goes straight through, the other nine follow 50ms apart
+    assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() >= 400);
+    assertEquals(9, metrics.operation("getMovieById").getQueueTime().getCount());
+  }
+
+  @Test
+  void rateLimiterRefusesRequestsWhichWouldWaitTooLong() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(movieResponse()));
+    final MoviesRestClient client = client(RateLimiter.builder()
+        .permitsPerSecond(10)
+        .maxWait(Duration.ofMillis(250))
+        .build(), null);
+
+    final List<MovieBatchResult<Long>> results = client.getMoviesByIds(ids(6), 6);
+
+    // one request goes straight through and two wait 100 and 200ms, the rest would wait too long
+    assertEquals(3, rejected(results));
+    assertEquals(3, metrics.operation("getMovieById").getRejectedCount(RequestLimiter.RATE_LIMITER));
+    verify(exactly(3), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+  }
+
+  @Test
+  void concurrencyLimiterQueuesAndThenRefusesRequests() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(movieResponse().withFixedDelay(200)));
+    final AdaptiveConcurrencyLimiter concurrencyLimiter = AdaptiveConcurrencyLimiter.builder()
+        .initialLimit(2)
+        .maxLimit(2)
+        .maxQueueSize(3)
+        .build();
+    final MoviesRestClient client = client(null, concurrencyLimiter);
+
+    final List<MovieBatchResult<Long>> results = client.getMoviesByIds(ids(8), 8);
+
+    // two in flight and three queued, the other three are refused
+    assertEquals(3, rejected(results));
+    assertEquals(5, results.stream().filter(MovieBatchResult::isSuccess).count());
+    assertEquals(3, metrics.operation("getMovieById").getQueueTime().getCount());
+    assertEquals(3, metrics.operation("getMovieById").getRejectedCount(RequestLimiter.CONCURRENCY_LIMITER));
+    assertEquals(0, concurrencyLimiter.getInFlight());
+  }
+
+  @Test
+  void throttlingLowersTheConcurrencyLimit() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(aResponse().withStatus(429)));
+    final AdaptiveConcurrencyLimiter concurrencyLimiter = AdaptiveConcurrencyLimiter.builder()
+        .initialLimit(10)
+        .build();
+    final MoviesRestClient client = client(null, concurrencyLimiter);
+
+    for (long id = 1; id <= 5; id++) {
+      final long movieId = id;
+      final MovieErrorResponse error = assertThrows(MovieErrorResponse.class, () -> client.getMovieById(movieId));
+      assertEquals(429, error.getStatusCode());
+    }
+
+    assertTrue(concurrencyLimiter.getLimit() < 10, "limit " + concurrencyLimiter.getLimit());
+    assertEquals(0, concurrencyLimiter.getInFlight());
+  }
+}
@@ -0,0 +1,138 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.metrics.InMemoryMoviesClientMetrics;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@ExtendWith(WireMockExtension.class)
+public class MoviesRestClientAsyncWireMockTest {
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .notifier(new ConsoleNotifier(false))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  private static final String getByIdStubUrl = "/movieservice/v1/movie/\\d+";
+  private static final String allMoviesUrl = "/" + MoviesAppConstants.V1_GET_ALL_MOVIES;
+
+  private final InMemoryMoviesClientMetrics metrics = new InMemoryMoviesClientMetrics();
+
+  private MoviesRestClient client() {
+    return new MoviesRestClient(
+        WebClient.create(String.format("http://localhost:%s/", wireMockServer.port())),
+        MoviesRestClientOptions.builder().coalesceReads(false).metrics(metrics).build());
+  }
+
+  private void stubGetMovieById(int delayMillis) {
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movie-by-id-template-parameterized.json")
+            .withTransformerParameter("name", "Batman Begins")
+            .withTransformerParameter("cast", "Christian Bale")
+            .withTransformerParameter("release_date", "2005-06-15")
+            .withTransformerParameter("year", 2005)
+            .withFixedDelay(delayMillis)));
+  }
+
+  @Test
+  void callsCompleteWithoutBlockingTheCaller() throws Exception {
+    //given
+    stubGetMovieById(300);
+    stubFor(get(urlPathEqualTo(allMoviesUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-all-movies.json")));
+    final MoviesRestClient client = client();
+
+    //when
+    final CompletableFuture<Movie> movie = client.getMovieByIdAsync(1L);
+    final CompletableFuture<List<Movie>> movies = client.getAllMoviesAsync();
+    final boolean doneOnReturn = movie.isDone();
+    final String combined = movie
+        .thenCombine(movies, (first, all) -> first.getName() + " of " + all.size())
+        .get(5, TimeUnit.SECONDS);
+
+    //then
+    assertFalse(doneOnReturn);
+    assertEquals("Batman Begins of 10", combined);
+  }
+
+  @Test
+  void failuresAreTheMovieErrorResponse() {
+    //given
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.NOT_FOUND.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movie-by-id-template-not-found.json")));
+    final MoviesRestClient client = client();
+
+    //when
+    final CompletableFuture<Movie> movie = client.getMovieByIdAsync(1L);
+
+    //then
+    final ExecutionException viaGet = assertThrows(ExecutionException.class, () -> movie.get(5, TimeUnit.SECONDS));
+    final CompletionException viaJoin = assertThrows(CompletionException.class, movie::join);
+    assertTrue(viaGet.getCause() instanceof MovieErrorResponse, viaGet.getCause().toString());
+    assertEquals(HttpStatus.NOT_FOUND.value(), ((MovieErrorResponse) viaJoin.getCause()).getStatusCode());
+    assertThrows(IllegalArgumentException.class, () -> client.getMoviesByNameAsync(" "));
+  }
+
+  @Test
+  void cancellingTheFutureCancelsTheExchange() throws Exception {
+    //given
+    stubGetMovieById(3_000);
+    final MoviesRestClient client = client();
+    final CompletableFuture<Movie> movie = client.getMovieByIdAsync(1L);
+    awaitInFlight(1);
+
+    //when
+    final boolean cancelled = movie.cancel(true);
+
+    //then
+    assertTrue(cancelled);
+    assertThrows(CancellationException.class, movie::join);
+    awaitInFlight(0);
+    assertEquals(1, metrics.operation(MoviesOperation.GET_MOVIE_BY_ID.getMetricName()).getFailureCount());
+  }
+
+  private void awaitInFlight(int inFlight) throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+    while (metrics.operation(MoviesOperation.GET_MOVIE_BY_ID.getMetricName()).getInFlight() != inFlight) {
+      assertTrue(System.nanoTime() < deadline, "Expected " + inFlight + " getMovieById calls in flight");
+      Thread.sleep(10);
+    }
+  }
+}
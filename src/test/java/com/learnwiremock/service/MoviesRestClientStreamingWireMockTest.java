@@ -0,0 +1,130 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+/**
+ * Streams a generated multi-hundred-megabyte catalogue through the client and asserts that heap usage stays flat.
+ * Run with {@code ./gradlew test -PincludeLargeTests}.
+ */
+@Slf4j
+@Tag("large")
+@ExtendWith(WireMockExtension.class)
+public class MoviesRestClientStreamingWireMockTest {
+
+  MoviesRestClient moviesRestClient;
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  private static final Path wireMockRoot = Paths.get("build", "wiremock-large");
+  private static final String largeCatalogueFileName = "get-all-movies-large.json";
+  /** The minimum size of the generated catalogue body */
+  private static final long largeCatalogueBytes = 256L * 1024 * 1024;
+  /** The allowed growth of the used heap while streaming, far below what a materialized list would need */
+  private static final long allowedHeapGrowthBytes = 64L * 1024 * 1024;
+  private static final long heapSampleInterval = 250_000;
+
+  /* The response templating extension is deliberately not registered, it would render the body into a String */
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .usingFilesUnderDirectory(wireMockRoot.toString());
+
+  private static long generatedMovieCount;
+
+  @BeforeAll
+  static void generateLargeCatalogue() throws IOException {
+    final Path file = wireMockRoot.resolve("__files").resolve(largeCatalogueFileName);
+    Files.createDirectories(file.getParent());
+    long count = 0;
+    long written = 0;
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      writer.write('[');
+      while (written < largeCatalogueBytes) {
+        final LocalDate releaseDate = LocalDate.ofEpochDay(count % 40_000);
+        final String entry = String.format(
+            "%s{\"movie_id\":%d,\"name\":\"Generated movie number %d\",\"year\":%d,"
+                + "\"cast\":\"Generated lead %d, Generated support %d\",\"release_date\":\"%s\"}",
+            count == 0 ? "" : ",", count + 1, count + 1, releaseDate.getYear(), count % 977, count % 1_471, releaseDate);
+        writer.write(entry);
+        written += entry.length();
+        count++;
+      }
+      writer.write(']');
+    }
+    generatedMovieCount = count;
+    log.info("Generated {} movies in {} bytes", count, Files.size(file));
+  }
+
+  @BeforeEach
+  void setUp() {
+    final String clientBaseUrl = String.format("http://localhost:%s/", wireMockServer.port());
+    moviesRestClient = new MoviesRestClient(WebClient.create(clientBaseUrl));
+  }
+
+  @Test
+  void streamAllMoviesKeepsHeapFlat() {
+    stubFor(get("/" + MoviesAppConstants.V1_GET_ALL_MOVIES)
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile(largeCatalogueFileName)
+        )
+    );
+
+    final AtomicLong received = new AtomicLong();
+    final AtomicLong baselineHeap = new AtomicLong();
+    final AtomicLong maxHeap = new AtomicLong();
+    moviesRestClient.forEachMovie(movie -> {
+      final long count = received.incrementAndGet();
+      assertEquals(count, movie.getMovie_id());
+      // the baseline is taken well into the response, once the server's own copies of the body file exist
+      if (count == heapSampleInterval) {
+        baselineHeap.set(usedHeapAfterGc());
+      } else if (count % heapSampleInterval == 0) {
+        maxHeap.accumulateAndGet(usedHeapAfterGc(), Math::max);
+      }
+    });
+
+    log.info("Streamed {} movies, baseline heap {} bytes, max sampled heap {} bytes",
+        received.get(), baselineHeap.get(), maxHeap.get());
+    assertEquals(generatedMovieCount, received.get());
+    assertTrue(maxHeap.get() - baselineHeap.get() < allowedHeapGrowthBytes,
+        "Heap grew by " + (maxHeap.get() - baselineHeap.get()) + " bytes while streaming");
+  }
+
+  private static long usedHeapAfterGc() {
+    final Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -9,34 +9,40 @@ import com.github.tomakehurst.wiremock.core.Options;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
 import com.github.tomakehurst.wiremock.http.Fault;
+import com.learnwiremock.cache.MovieCache;
+import com.learnwiremock.cache.MovieCacheStats;
 import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.catalog.MovieCatalog;
 import com.learnwiremock.dto.Movie;
+import com.learnwiremock.dto.MovieBatchResult;
 import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.metrics.InMemoryMoviesClientMetrics;
 import com.learnwiremock.utils.MoviesTestRandomUtils;
-import io.netty.channel.ChannelOption;
-import io.netty.handler.timeout.ReadTimeoutHandler;
-import io.netty.handler.timeout.WriteTimeoutHandler;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.Month;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.LongStream;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.RandomUtils;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.netty.http.client.HttpClient;
-import reactor.netty.tcp.TcpClient;
+import reactor.core.publisher.Mono;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
@@ -69,12 +75,11 @@ public class MoviesRestClientWireMockTest {
       .notifier(new ConsoleNotifier(true))
       .extensions(new ResponseTemplateTransformer(true));
 
-  private final TcpClient tcpClient = TcpClient.create()
-      .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CLIENT_TIMEOUT_MILLIS)
-      .doOnConnected(connection -> connection
-          .addHandlerLast(new ReadTimeoutHandler(CLIENT_TIMEOUT_SECONDS))
-          .addHandlerLast(new WriteTimeoutHandler(CLIENT_TIMEOUT_SECONDS))
-      );
+  private final MoviesWebClientFactory webClientFactory = MoviesWebClientFactory.builder()
+      .connectTimeout(Duration.ofMillis(CLIENT_TIMEOUT_MILLIS))
+      .readTimeout(Duration.ofSeconds(CLIENT_TIMEOUT_SECONDS))
+      .writeTimeout(Duration.ofSeconds(CLIENT_TIMEOUT_SECONDS))
+      .build();
 
   private static final Random random = new Random();
   private static final String wireMockBaseUrl = "http://localhost";
@@ -119,13 +124,15 @@ public class MoviesRestClientWireMockTest {
   @BeforeEach
   void setUp() {
     final String clientBaseUrl = String.format(wireMockBaseUrl + ":%s/", wireMockServer.port());
-    webClient = WebClient.builder()
-        .baseUrl(clientBaseUrl)
-        .clientConnector(new ReactorClientHttpConnector(HttpClient.from(tcpClient)))
-        .build();
+    webClient = webClientFactory.createWebClient(clientBaseUrl);
     moviesRestClient = new MoviesRestClient(webClient);
   }
 
+  @AfterEach
+  void tearDown() {
+    webClientFactory.close();
+  }
+
   @Test
   void retrieveAllMovies() {
     stubFor(get(retrieveAllMoviesStubUrl)
@@ -145,6 +152,21 @@ public class MoviesRestClientWireMockTest {
     verify(exactly(1), getRequestedFor(urlEqualTo(retrieveAllMoviesStubUrl)));
   }
 
+  @Test
+  void retrieveMovieCatalog() {
+    stubFor(get(retrieveAllMoviesStubUrl)
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-all-movies.json")
+        )
+    );
+
+    final MovieCatalog catalog = moviesRestClient.getMovieCatalog();
+    assertEquals(expectedMovies.size(), catalog.size());
+    expectedMovies.values().forEach(movie -> assertEquals(movie, catalog.get(movie.getMovie_id())));
+  }
+
   @Test
   void retrieveAllMoviesServerError() {
     stubFor(get(retrieveAllMoviesStubUrl).willReturn(serverError()));
@@ -210,6 +232,173 @@ public class MoviesRestClientWireMockTest {
     verify(exactly(requestCount), getRequestedFor(urlPathMatching(getByIdStubUrl)));
   }
 
+  @Test
+  void metricsAreRecordedPerOperation() {
+    stubFor(get(urlPathEqualTo(putMovieStubUrlPrefix + 1))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movie-by-id-template-parameterized.json")
+            .withTransformerParameter("name", "Example name")
+            .withTransformerParameter("release_date", "2005-06-15")
+            .withTransformerParameter("cast", "Example cast")
+            .withTransformerParameter("year", 2005)
+        )
+    );
+    stubFor(get(urlPathEqualTo(putMovieStubUrlPrefix + 2))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.NOT_FOUND.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movie-by-id-template-not-found.json")
+        )
+    );
+    stubFor(get(retrieveAllMoviesStubUrl).willReturn(aResponse().withFault(Fault.EMPTY_RESPONSE)));
+    final InMemoryMoviesClientMetrics metrics = new InMemoryMoviesClientMetrics();
+    final MoviesRestClient meteredClient = new MoviesRestClient(webClient,
+        MoviesRestClientOptions.builder().metrics(metrics).build());
+
+    assertNotNull(meteredClient.getMovieById(1L));
+    assertNotNull(meteredClient.getMovieById(1L));
+    assertThrows(MovieErrorResponse.class, () -> meteredClient.getMovieById(2L));
+    assertThrows(MovieErrorResponse.class, meteredClient::getAllMovies);
+
+    final InMemoryMoviesClientMetrics.OperationMetrics byId = metrics.operation("getMovieById");
+    assertEquals(2, byId.getStatusCount(HttpStatus.OK.value()));
+    assertEquals(1, byId.getStatusCount(HttpStatus.NOT_FOUND.value()));
+    assertEquals(0, byId.getFailureCount());
+    assertEquals(0, byId.getInFlight());
+    assertEquals(3, byId.getLatency().getCount());
+    assertTrue(byId.getLatency().percentile(0.5) > 0);
+    assertEquals(3, byId.getResponseSize().getCount());
+    assertTrue(byId.getResponseSize().getMax() > 0);
+
+    final InMemoryMoviesClientMetrics.OperationMetrics allMovies = metrics.operation("getAllMovies");
+    assertEquals(1, allMovies.getFailureCount());
+    assertEquals(0, allMovies.getInFlight());
+    assertEquals(Set.of("getMovieById", "getAllMovies"), metrics.getOperationNames());
+  }
+
+  @Test
+  void getMovieByIdCached() {
+    final LocalDate exampleDate = MoviesTestRandomUtils.getRandomLocalDateInYear(MoviesTestRandomUtils.getRandomMovieYear());
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movie-by-id-template-parameterized.json")
+            .withTransformerParameter("name", "Example name")
+            .withTransformerParameter("release_date", exampleDate.toString())
+            .withTransformerParameter("cast", "Example cast")
+            .withTransformerParameter("year", exampleDate.getYear())
+        )
+    );
+    stubFor(put(urlPathMatching(getByIdStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("put-movie-template.json")
+            .withTransformerParameter("cast", "Example cast")
+        )
+    );
+    stubFor(delete(urlPathMatching(getByIdStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withBodyFile("delete-movie-template.json")
+        )
+    );
+    final MovieCache movieCache = MovieCache.builder().maximumSize(10).build();
+    final MoviesRestClient cachingClient = new MoviesRestClient(webClient,
+        MoviesRestClientOptions.builder().movieCache(movieCache).build());
+    final String movieOneUrl = putMovieStubUrlPrefix + 1;
+
+    // only the first lookup goes over the wire
+    final Movie movie = cachingClient.getMovieById(1L);
+    assertEquals(movie, cachingClient.getMovieById(1L));
+    assertEquals(movie, cachingClient.getMovieById(1L));
+    verify(exactly(1), getRequestedFor(urlEqualTo(movieOneUrl)));
+
+    // updating the movie invalidates it
+    cachingClient.updateMovie(1L, movie);
+    cachingClient.getMovieById(1L);
+    verify(exactly(2), getRequestedFor(urlEqualTo(movieOneUrl)));
+
+    // as does deleting it
+    cachingClient.deleteMovie(1L);
+    cachingClient.getMovieById(1L);
+    verify(exactly(3), getRequestedFor(urlEqualTo(movieOneUrl)));
+
+    final MovieCacheStats stats = movieCache.stats();
+    assertEquals(2, stats.getHitCount());
+    assertEquals(3, stats.getMissCount());
+  }
+
+  @Test
+  void getMoviesByIds() {
+    final int delayMillis = 200;
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movie-by-id-template-parameterized.json")
+            .withTransformerParameter("name", "Example name")
+            .withTransformerParameter("release_date", "2005-06-15")
+            .withTransformerParameter("cast", "Example cast")
+            .withTransformerParameter("year", 2005)
+            .withFixedDelay(delayMillis)
+        )
+    );
+    final long notFoundId = 9_001L;
+    final long serverErrorId = 9_002L;
+    stubFor(get(urlEqualTo(putMovieStubUrlPrefix + notFoundId))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.NOT_FOUND.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movie-by-id-template-not-found.json")
+        )
+    );
+    stubFor(get(urlEqualTo(putMovieStubUrlPrefix + serverErrorId)).willReturn(serverError()));
+
+    // track how many requests are on the wire at once
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    final WebClient countingWebClient = webClient.mutate()
+        .filter((request, next) -> Mono.defer(() -> {
+              maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+              return next.exchange(request);
+            })
+            .doFinally(signal -> inFlight.decrementAndGet()))
+        .build();
+    final MoviesRestClient batchClient = new MoviesRestClient(countingWebClient);
+
+    final int concurrency = 4;
+    final List<Long> ids = LongStream.rangeClosed(1, 20).boxed().collect(Collectors.toList());
+    ids.add(5, notFoundId);
+    ids.add(12, serverErrorId);
+    final long start = System.nanoTime();
+    List<MovieBatchResult<Long>> results = batchClient.getMoviesByIds(ids, concurrency);
+    final long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+    assertEquals(concurrency, maxInFlight.get());
+    assertTrue(elapsedMillis >= (long) (ids.size() - 2) / concurrency * delayMillis,
+        "Batch finished in " + elapsedMillis + "ms, faster than the concurrency cap allows");
+    assertEquals(ids, results.stream().map(MovieBatchResult::getKey).collect(Collectors.toList()));
+    results.forEach(result -> {
+      if (result.getKey() == notFoundId) {
+        assertTrue(result.isNotFound());
+        assertFalse(result.isServerError());
+      } else if (result.getKey() == serverErrorId) {
+        assertTrue(result.isServerError());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), result.getError().getStatusCode());
+      } else {
+        assertTrue(result.isSuccess());
+        assertEquals(result.getKey(), result.getMovie().getMovie_id());
+      }
+    });
+    verify(exactly(ids.size()), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+    assertThrows(NullPointerException.class, () -> batchClient.getMoviesByIds(Arrays.asList(1L, null)));
+    assertThrows(IllegalArgumentException.class, () -> batchClient.getMoviesByIds(ids, 0));
+  }
+
   @Test
   void getMovieByIdNotFound() {
     stubFor(get(urlPathMatching(getByIdStubUrl))
@@ -462,6 +651,95 @@ public class MoviesRestClientWireMockTest {
     verify(exactly(1), postRequestedFor(urlEqualTo(postMovieStubUrl)));
   }
 
+  @Test
+  void createMoviesBulk() {
+    final int delayMillis = 100;
+    stubFor(post(urlEqualTo(postMovieStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("post-movie-template.json")
+            .withFixedDelay(delayMillis)
+        )
+    );
+    final Movie badMovie = MoviesTestRandomUtils.getRandomMovie();
+    stubFor(post(urlEqualTo(postMovieStubUrl))
+        .withRequestBody(matchingJsonPath("$.name", equalTo(badMovie.getName())))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.BAD_REQUEST.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("post-movie-template-bad-request.json")
+        )
+    );
+
+    final int movieCount = 40;
+    final List<Movie> movies = Stream.generate(MoviesTestRandomUtils::getRandomMovie)
+        .limit(movieCount - 1)
+        .collect(Collectors.toList());
+    movies.add(movieCount / 2, badMovie);
+
+    // track how many posts are on the wire at once, the fixed stub delay keeps them overlapping
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    final WebClient countingWebClient = webClient.mutate()
+        .filter((request, next) -> Mono.defer(() -> {
+              maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+              return next.exchange(request);
+            })
+            .doFinally(signal -> inFlight.decrementAndGet()))
+        .build();
+    final MoviesRestClient bulkClient = new MoviesRestClient(countingWebClient);
+
+    final int concurrency = 8;
+    final List<MovieBatchResult<Movie>> results = bulkClient.createMovies(movies, concurrency);
+
+    assertEquals(concurrency, maxInFlight.get());
+    assertEquals(movieCount, results.size());
+    results.forEach(result -> {
+      if (result.getKey() == badMovie) {
+        assertFalse(result.isSuccess());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), result.getError().getStatusCode());
+      } else {
+        assertTrue(result.isSuccess());
+        assertCreatedMovieIsAsExpected(result.getKey(), result.getMovie());
+      }
+    });
+    verify(exactly(movieCount), postRequestedFor(urlEqualTo(postMovieStubUrl)));
+  }
+
+  @Test
+  void updateMoviesBulk() {
+    stubFor(put(urlPathMatching(getByIdStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("put-movie-template.json")
+            .withTransformerParameter("cast", "Existing cast")
+        )
+    );
+    final List<Movie> movies = LongStream.rangeClosed(1, 10).mapToObj(id -> {
+      final Movie movie = MoviesTestRandomUtils.getRandomMovie();
+      movie.setMovie_id(id);
+      return movie;
+    }).collect(Collectors.toList());
+    final Movie movieWithoutId = MoviesTestRandomUtils.getRandomMovie();
+    movies.add(movieWithoutId);
+
+    final List<MovieBatchResult<Movie>> results = moviesRestClient.updateMovies(movies);
+
+    assertEquals(movies.size(), results.size());
+    results.forEach(result -> {
+      if (result.getKey() == movieWithoutId) {
+        assertTrue(result.getError().getCause() instanceof IllegalArgumentException);
+      } else {
+        assertTrue(result.isSuccess());
+        assertEquals(result.getKey().getMovie_id(), result.getMovie().getMovie_id());
+        assertEquals(result.getKey().getName(), result.getMovie().getName());
+      }
+    });
+    verify(exactly(10), putRequestedFor(urlPathMatching(getByIdStubUrl)));
+  }
+
   void assertCreatedMovieIsAsExpected(Movie expected, Movie actual) {
     assertEquals(expected.getName(), actual.getName());
     assertEquals(expected.getCast(), actual.getCast());
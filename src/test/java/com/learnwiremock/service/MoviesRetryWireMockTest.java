@@ -0,0 +1,194 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.MappingBuilder;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.metrics.InMemoryMoviesClientMetrics;
+import com.learnwiremock.resilience.RetryBudget;
+import com.learnwiremock.resilience.RetryPolicy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@ExtendWith(WireMockExtension.class)
+public class MoviesRetryWireMockTest {
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .notifier(new ConsoleNotifier(true))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  private static final String getByIdStubUrl = "/movieservice/v1/movie/\\d+";
+  private static final String retrieveAllMoviesStubUrl = "/" + MoviesAppConstants.V1_GET_ALL_MOVIES;
+
+  private InMemoryMoviesClientMetrics metrics;
+
+  @BeforeEach
+  void setUp() {
+    metrics = new InMemoryMoviesClientMetrics();
+  }
+
+  private ReactiveMoviesRestClient client(RetryPolicy retryPolicy) {
+    return new ReactiveMoviesRestClient(
+        WebClient.create(String.format("http://localhost:%s/", wireMockServer.port())),
+        MoviesRestClientOptions.builder().metrics(metrics).retryPolicy(retryPolicy).build());
+  }
+
+  private static RetryPolicy.RetryPolicyBuilder fastRetries() {
+    return RetryPolicy.builder().initialBackoff(Duration.ofMillis(10)).maxBackoff(Duration.ofMillis(50));
+  }
+
+  private static ResponseDefinitionBuilder movieResponse() {
+    return aResponse()
+        .withStatus(HttpStatus.OK.value())
+        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .withBodyFile("get-movie-by-id-template-parameterized.json")
+        .withTransformerParameter("name", "Batman Begins")
+        .withTransformerParameter("cast", "Christian Bale")
+        .withTransformerParameter("release_date", "2005-06-15")
+        .withTransformerParameter("year", 2005);
+  }
+
+  /* Each attempt is answered by the next response, the last one for every attempt after that */
+  private void stubScenario(MappingBuilder request, ResponseDefinitionBuilder... responses) {
+    String state = Scenario.STARTED;
+    for (int i = 0; i < responses.length; i++) {
+      final String nextState = i + 1 < responses.length ? "attempt " + (i + 2) : state;
+      stubFor(request
+          .inScenario("retries")
+          .whenScenarioStateIs(state)
+          .willReturn(responses[i])
+          .willSetStateTo(nextState));
+      state = nextState;
+    }
+  }
+
+  @Test
+  void getMovieByIdSucceedsAfterServerErrors() {
+    stubScenario(get(urlPathMatching(getByIdStubUrl)),
+        serverError(),
+        aResponse().withStatus(HttpStatus.SERVICE_UNAVAILABLE.value()),
+        movieResponse());
+
+    final Movie movie = client(fastRetries().build()).getMovieById(1L).block();
+
+    assertNotNull(movie);
+    assertEquals("Batman Begins", movie.getName());
+    verify(exactly(3), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+    assertEquals(2, metrics.operation("getMovieById").getRetryCount());
+  }
+
+  @Test
+  void getAllMoviesSucceedsAfterAConnectionFault() {
+    stubScenario(get(urlEqualTo(retrieveAllMoviesStubUrl)),
+        aResponse().withFault(Fault.EMPTY_RESPONSE),
+        aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-all-movies.json"));
+
+    final List<Movie> movies = client(fastRetries().build()).getAllMovies().collectList().block();
+
+    assertNotNull(movies);
+    assertEquals(10, movies.size());
+    verify(exactly(2), getRequestedFor(urlEqualTo(retrieveAllMoviesStubUrl)));
+  }
+
+  @Test
+  void givesUpAfterMaxAttempts() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(serverError()));
+
+    final MovieErrorResponse error = assertThrows(MovieErrorResponse.class,
+        () -> client(fastRetries().maxAttempts(4).build()).getMovieById(1L).block());
+
+    assertEquals(500, error.getStatusCode());
+    verify(exactly(4), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+  }
+
+  @Test
+  void clientErrorsAreNotRetried() {
+    stubScenario(get(urlPathMatching(getByIdStubUrl)), aResponse().withStatus(HttpStatus.NOT_FOUND.value()),
+        movieResponse());
+
+    assertThrows(MovieErrorResponse.class, () -> client(fastRetries().build()).getMovieById(1L).block());
+    verify(exactly(1), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+  }
+
+  @Test
+  void createMovieIsNotRetried() {
+    stubScenario(post(urlPathEqualTo("/" + MoviesAppConstants.V1_POST_MOVIE)), serverError(), movieResponse());
+    final Movie movie = new Movie("Christian Bale", "Batman Begins", LocalDate.of(2005, 6, 15), 2005);
+
+    assertThrows(MovieErrorResponse.class, () -> client(fastRetries().build()).createMovie(movie).block());
+    verify(exactly(1), postRequestedFor(urlPathEqualTo("/" + MoviesAppConstants.V1_POST_MOVIE)));
+  }
+
+  @Test
+  void updateAndDeleteAreRetried() {
+    final String movieUrl = "/movieservice/v1/movie/1";
+    stubScenario(put(urlPathEqualTo(movieUrl)), serverError(), movieResponse());
+    stubFor(delete(urlPathEqualTo(movieUrl))
+        .inScenario("delete retries")
+        .whenScenarioStateIs(Scenario.STARTED)
+        .willReturn(aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER))
+        .willSetStateTo("deleted"));
+    stubFor(delete(urlPathEqualTo(movieUrl))
+        .inScenario("delete retries")
+        .whenScenarioStateIs("deleted")
+        .willReturn(ok("Movie Deleted Successfully")));
+    final ReactiveMoviesRestClient client = client(fastRetries().build());
+    final Movie movie = new Movie("Christian Bale", 1L, "Batman Begins", LocalDate.of(2005, 6, 15), 2005);
+
+    assertNotNull(client.updateMovie(1L, movie).block());
+    assertEquals("Movie Deleted Successfully", client.deleteMovie(1L).block());
+    verify(exactly(2), putRequestedFor(urlPathEqualTo(movieUrl)));
+    verify(exactly(2), deleteRequestedFor(urlPathEqualTo(movieUrl)));
+  }
+
+  @Test
+  void retryBudgetStopsRetryStorms() {
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(serverError()));
+    final ReactiveMoviesRestClient client = client(fastRetries()
+        .maxAttempts(3)
+        .retryBudget(RetryBudget.builder().ratio(0.1).maxRetries(2).build())
+        .build());
+
+    for (long id = 1; id <= 10; id++) {
+      final long movieId = id;
+      assertThrows(MovieErrorResponse.class, () -> client.getMovieById(movieId).block());
+    }
+
+    // without a budget each call would have made 3 attempts, the 2 saved up retries are spent by the first call and
+    // the 9 calls after it earn less than one more
+    verify(exactly(12), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+    assertEquals(2, metrics.operation("getMovieById").getRetryCount());
+    assertTrue(metrics.operation("getMovieById").getRetryBudgetExhaustedCount() > 0);
+  }
+}
@@ -0,0 +1,131 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.learnwiremock.codec.MovieJson;
+import com.learnwiremock.codec.MovieSmile;
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@ExtendWith(WireMockExtension.class)
+public class MoviesSmileWireMockTest {
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .notifier(new ConsoleNotifier(false))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  private static final String allMoviesUrl = "/" + MoviesAppConstants.V1_GET_ALL_MOVIES;
+
+  private final List<Movie> catalogue = readCatalogue();
+
+  private static List<Movie> readCatalogue() {
+    try {
+      return Arrays.asList(MovieJson.objectMapper()
+          .readValue(Paths.get("src/test/resources/__files/get-all-movies.json").toFile(), Movie[].class));
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private MoviesRestClient client(boolean preferSmile) {
+    return new MoviesRestClient(
+        WebClient.create(String.format("http://localhost:%s/", wireMockServer.port())),
+        MoviesRestClientOptions.builder().preferSmile(preferSmile).build());
+  }
+
+  private void stubJson(String url) {
+    stubFor(get(urlPathMatching(url))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-all-movies.json")));
+  }
+
+  private void stubSmile(String url, Object body) throws Exception {
+    stubFor(get(urlPathMatching(url))
+        .atPriority(1)
+        .withHeader(HttpHeaders.ACCEPT, containing(MovieSmile.MEDIA_TYPE.toString()))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MovieSmile.MEDIA_TYPE.toString())
+            .withBody(MovieSmile.objectMapper().writeValueAsBytes(body))));
+  }
+
+  @Test
+  void smileIsNegotiatedForMovieLists() throws Exception {
+    //given
+    stubJson(allMoviesUrl);
+    stubSmile(allMoviesUrl, catalogue);
+
+    //when
+    final List<Movie> movies = client(true).getAllMovies();
+
+    //then
+    assertEquals(catalogue, movies);
+    verify(getRequestedFor(urlPathEqualTo(allMoviesUrl))
+        .withHeader(HttpHeaders.ACCEPT, equalTo("application/x-jackson-smile, application/json;q=0.9")));
+  }
+
+  @Test
+  void smileIsNegotiatedForSingleMovies() throws Exception {
+    //given
+    final String movieUrl = "/movieservice/v1/movie/\\d+";
+    stubSmile(movieUrl, catalogue.get(0));
+
+    //when
+    final Movie movie = client(true).getMovieById(1L);
+
+    //then
+    assertEquals(catalogue.get(0), movie);
+  }
+
+  @Test
+  void jsonServersAreStillUnderstood() {
+    //given
+    stubJson(allMoviesUrl);
+
+    //when
+    final List<Movie> movies = client(true).getAllMovies();
+
+    //then
+    assertEquals(catalogue, movies);
+  }
+
+  @Test
+  void smileIsNotRequestedByDefault() throws Exception {
+    //given
+    stubJson(allMoviesUrl);
+    stubSmile(allMoviesUrl, catalogue);
+
+    //when
+    final List<Movie> movies = client(false).getAllMovies();
+
+    //then
+    assertEquals(catalogue, movies);
+    verify(getRequestedFor(urlPathEqualTo(allMoviesUrl)).withHeader(HttpHeaders.ACCEPT, notMatching(".*smile.*")));
+  }
+}
@@ -0,0 +1,257 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.exception.MovieErrorResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@Slf4j
+@ExtendWith(WireMockExtension.class)
+public class MoviesVirtualThreadWireMockTest {
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .containerThreads(200)
+      .notifier(new ConsoleNotifier(false))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  private static final String getByIdStubUrl = "/movieservice/v1/movie/\\d+";
+  private static final int LOAD_TEST_CALLS = 10_000;
+  private static final int PLATFORM_THREADS = 200;
+  private static final int MAX_CONNECTIONS = 20;
+  private static final int MAX_PENDING_ACQUIRES = 30;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+
+  private final Movie batmanBegins =
+      new Movie("Christian Bale", 1L, "Batman Begins", LocalDate.of(2005, 6, 15), 2005);
+
+  private String baseUrl() {
+    return String.format("http://localhost:%s/", wireMockServer.port());
+  }
+
+  /* A client counting the requests it has in flight, including those waiting for a connection */
+  private MoviesRestClient countingClient(MoviesWebClientFactory factory) {
+    return new MoviesRestClient(factory.webClientBuilder()
+        .baseUrl(baseUrl())
+        .filter((request, next) -> Mono.defer(() -> {
+          maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+          return next.exchange(request).doFinally(signal -> inFlight.decrementAndGet());
+        }))
+        .build(), MoviesRestClientOptions.builder().coalesceReads(false).build());
+  }
+
+  private void stubGetMovieById(int delayMillis) {
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .willReturn(okForContentType(MediaType.APPLICATION_JSON_VALUE,
+            "{\"movie_id\":1,\"name\":\"Batman Begins\",\"cast\":\"Christian Bale\","
+                + "\"release_date\":\"2005-06-15\",\"year\":2005}")
+            .withFixedDelay(delayMillis)));
+  }
+
+  @Test
+  void burstsBeyondThePoolWaitInTheExecutor() throws Exception {
+    //given
+    stubGetMovieById(5);
+    try (MoviesWebClientFactory factory = MoviesWebClientFactory.builder().maxConnections(10).build()) {
+      final MoviesRestClient client = factory.createRestClient(baseUrl());
+      final ExecutorService executor = MoviesExecutors.newBlockingCallExecutor(factory);
+
+      //when
+      final List<Movie> movies = callConcurrently(client, executor, 1_000).movies;
+
+      //then
+      assertEquals(1_000, movies.size());
+      movies.forEach(movie -> assertEquals(batmanBegins, movie));
+    }
+  }
+
+  @Test
+  void concurrencyLimitedCallsOnPlatformThreadsStayWithinThePool() throws Exception {
+    //given
+    stubGetMovieById(10);
+    try (MoviesWebClientFactory factory = MoviesWebClientFactory.builder()
+        .maxConnections(MAX_CONNECTIONS)
+        .maxPendingAcquires(MAX_PENDING_ACQUIRES)
+        .build()) {
+      final MoviesRestClient client = countingClient(factory);
+      final ExecutorService executor = new MoviesExecutors.ConcurrencyLimitedExecutor(Executors.newCachedThreadPool(),
+          MAX_CONNECTIONS + MAX_PENDING_ACQUIRES);
+
+      //when
+      final LoadTestRun run = callConcurrently(client, executor, 2_000);
+
+      //then
+      log.info("2000 calls on platform threads limited to {}: {} calls/s, at most {} in flight",
+          MAX_CONNECTIONS + MAX_PENDING_ACQUIRES, run.callsPerSecond(), maxInFlight.get());
+      assertEquals(0, run.rejected);
+      assertEquals(2_000, run.movies.size());
+      assertTrue(maxInFlight.get() <= MAX_CONNECTIONS + MAX_PENDING_ACQUIRES, maxInFlight.get() + " in flight");
+    }
+  }
+
+  @Test
+  void tenThousandConcurrentCallsOnVirtualThreads() throws Exception {
+    assumeTrue(MoviesExecutors.virtualThreadsAvailable(), "Virtual threads need Java 21 or later");
+    //given
+    stubGetMovieById(20);
+    try (MoviesWebClientFactory factory = MoviesWebClientFactory.builder()
+        .maxConnections(PLATFORM_THREADS)
+        .maxPendingAcquires(PLATFORM_THREADS)
+        .build()) {
+      final MoviesRestClient client = countingClient(factory);
+      callConcurrently(client, MoviesExecutors.newBlockingCallExecutor(factory), PLATFORM_THREADS);
+
+      //when
+      final LoadTestRun virtual = callConcurrently(client, MoviesExecutors.newBlockingCallExecutor(factory),
+          LOAD_TEST_CALLS);
+
+      //then
+      log.info("{} calls on virtual threads: {} calls/s, {} MB heap in flight", LOAD_TEST_CALLS,
+          virtual.callsPerSecond(), virtual.heapInFlight >> 20);
+      assertEquals(0, virtual.rejected);
+      assertEquals(LOAD_TEST_CALLS, virtual.movies.size());
+      assertTrue(maxInFlight.get() <= 2 * PLATFORM_THREADS, maxInFlight.get() + " in flight");
+    }
+  }
+
+  @Test
+  void shutdownNowHandsBackTasksWaitingForAPermit() throws Exception {
+    //given
+    final ExecutorService executor = new MoviesExecutors.ConcurrencyLimitedExecutor(Executors.newCachedThreadPool(), 1);
+    final CountDownLatch running = new CountDownLatch(1);
+    executor.submit(() -> {
+      running.countDown();
+      Thread.sleep(60_000);
+      return null;
+    });
+    running.await();
+    final Future<Movie> first = executor.submit(() -> batmanBegins);
+    final Future<Movie> second = executor.submit(() -> batmanBegins);
+
+    //when
+    final List<Runnable> notStarted = executor.shutdownNow();
+
+    //then
+    assertEquals(Set.of(first, second), new HashSet<>(notStarted));
+    assertFalse(first.isDone());
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void tasksInterruptedWhileWaitingForAPermitAreCancelled() {
+    //given
+    final ExecutorService threads = Executors.newCachedThreadPool();
+    final ExecutorService executor = new MoviesExecutors.ConcurrencyLimitedExecutor(threads, 0);
+    final Future<Movie> movie = executor.submit(() -> batmanBegins);
+
+    //when
+    threads.shutdownNow();
+
+    //then
+    assertThrows(CancellationException.class, () -> movie.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void runnablesInterruptedWhileWaitingForAPermitRunWithoutTheInterrupt() throws Exception {
+    //given
+    final ExecutorService threads = Executors.newCachedThreadPool();
+    final ExecutorService executor = new MoviesExecutors.ConcurrencyLimitedExecutor(threads, 1);
+    final CountDownLatch running = new CountDownLatch(1);
+    executor.submit(() -> {
+      running.countDown();
+      Thread.sleep(60_000);
+      return null;
+    });
+    running.await();
+    final CompletableFuture<Boolean> interruptedWhileRunning = new CompletableFuture<>();
+    executor.execute(() -> interruptedWhileRunning.complete(Thread.currentThread().isInterrupted()));
+
+    //when
+    threads.shutdownNow();
+
+    //then
+    assertFalse(interruptedWhileRunning.get(5, TimeUnit.SECONDS));
+  }
+
+  private LoadTestRun callConcurrently(MoviesRestClient client, ExecutorService executor, int calls)
+      throws Exception {
+    final Runtime runtime = Runtime.getRuntime();
+    final long started = System.nanoTime();
+    final List<Future<Movie>> futures = new ArrayList<>(calls);
+    for (long id = 1; id <= calls; id++) {
+      final long movieId = id;
+      futures.add(executor.submit(() -> client.getMovieById(movieId)));
+    }
+    final long heapInFlight = runtime.totalMemory() - runtime.freeMemory();
+    final List<Movie> movies = new ArrayList<>(calls);
+    int rejected = 0;
+    for (Future<Movie> future : futures) {
+      try {
+        movies.add(future.get(60, TimeUnit.SECONDS));
+      } catch (ExecutionException e) {
+        if (!(e.getCause() instanceof MovieErrorResponse)) {
+          throw e;
+        }
+        rejected++;
+      }
+    }
+    final long elapsedNanos = System.nanoTime() - started;
+    executor.shutdown();
+    return new LoadTestRun(movies, rejected, elapsedNanos, heapInFlight);
+  }
+
+  private static final class LoadTestRun {
+
+    private final List<Movie> movies;
+    private final int rejected;
+    private final long elapsedNanos;
+    private final long heapInFlight;
+
+    private LoadTestRun(List<Movie> movies, int rejected, long elapsedNanos, long heapInFlight) {
+      this.movies = movies;
+      this.rejected = rejected;
+      this.elapsedNanos = elapsedNanos;
+      this.heapInFlight = heapInFlight;
+    }
+
+    private long callsPerSecond() {
+      return movies.size() * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.metrics.InMemoryMoviesClientMetrics;
+import java.time.Duration;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@Slf4j
+@ExtendWith(WireMockExtension.class)
+public class MoviesWebClientFactoryWireMockTest {
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .notifier(new ConsoleNotifier(true))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  private static final String getByIdStubUrl = "/movieservice/v1/movie/\\d+";
+
+  private String baseUrl() {
+    return String.format("http://localhost:%s/", wireMockServer.port());
+  }
+
+  private void stubGetMovieById(int delayMillis) {
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movie-by-id-template-parameterized.json")
+            .withTransformerParameter("name", "Batman Begins")
+            .withTransformerParameter("cast", "Christian Bale")
+            .withTransformerParameter("release_date", "2005-06-15")
+            .withTransformerParameter("year", 2005)
+            .withFixedDelay(delayMillis)
+        )
+    );
+  }
+
+  @Test
+  void connectionsAreReusedAcrossClients() {
+    stubGetMovieById(0);
+    try (MoviesWebClientFactory factory = MoviesWebClientFactory.builder().maxConnections(4).build()) {
+      final MoviesRestClient first = factory.createRestClient(baseUrl());
+      final MoviesRestClient second = factory.createRestClient(baseUrl());
+      for (long id = 1; id <= 20; id++) {
+        assertNotNull((id % 2 == 0 ? first : second).getMovieById(id));
+      }
+      assertEquals(1, factory.getOpenedConnectionCount());
+    }
+  }
+
+  @Test
+  void idleConnectionsAreEvicted() throws InterruptedException {
+    stubGetMovieById(0);
+    try (MoviesWebClientFactory factory = MoviesWebClientFactory.builder()
+        .maxIdleTime(Duration.ofMillis(200))
+        .build()) {
+      final MoviesRestClient moviesRestClient = factory.createRestClient(baseUrl());
+      assertNotNull(moviesRestClient.getMovieById(1L));
+      Thread.sleep(600);
+      assertEquals(1, factory.getIdleEvictionCount());
+      assertNotNull(moviesRestClient.getMovieById(2L));
+      assertEquals(2, factory.getOpenedConnectionCount());
+    }
+  }
+
+  @Test
+  void pendingAcquiresBeyondTheLimitAreRejected() {
+    stubGetMovieById(500);
+    try (MoviesWebClientFactory factory = MoviesWebClientFactory.builder()
+        .maxConnections(1)
+        .maxPendingAcquires(1)
+        .build()) {
+      final ReactiveMoviesRestClient reactiveClient = new ReactiveMoviesRestClient(factory.createWebClient(baseUrl()));
+      // the first request holds the only connection, the next one waits for it and the last is turned away
+      final List<Object> results = Flux.range(1, 3)
+          .delayElements(Duration.ofMillis(100))
+          .flatMap(id -> reactiveClient.getMovieById((long) id)
+              .cast(Object.class)
+              .onErrorResume(MovieErrorResponse.class, Mono::just))
+          .collectList()
+          .block();
+
+      assertEquals(3, results.size());
+      final long rejected = results.stream().filter(result -> result instanceof MovieErrorResponse).count();
+      assertEquals(1, rejected);
+      assertEquals(2, results.stream().filter(result -> result instanceof Movie).count());
+    }
+  }
+
+  @Test
+  void connectionAcquireTimeIsRecorded() {
+    stubGetMovieById(0);
+    final InMemoryMoviesClientMetrics metrics = new InMemoryMoviesClientMetrics();
+    try (MoviesWebClientFactory factory = MoviesWebClientFactory.builder().metrics(metrics).build()) {
+      final MoviesRestClient moviesRestClient = factory.createRestClient(baseUrl());
+      assertNotNull(moviesRestClient.getMovieById(1L));
+      assertNotNull(moviesRestClient.getMovieById(2L));
+      assertEquals(2, metrics.getConnectionAcquireTime().getCount());
+      // the clients created by the factory report to its metrics too
+      assertEquals(2, metrics.operation("getMovieById").getStatusCount(HttpStatus.OK.value()));
+    }
+  }
+
+  @Test
+  void invalidPoolSize() {
+    assertThrows(IllegalArgumentException.class, () -> MoviesWebClientFactory.builder().maxConnections(0).build());
+  }
+}
@@ -0,0 +1,318 @@
+package com.learnwiremock.service;
+
+import com.github.jenspiegsa.wiremockextension.ConfigureWireMock;
+import com.github.jenspiegsa.wiremockextension.InjectServer;
+import com.github.jenspiegsa.wiremockextension.WireMockExtension;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.learnwiremock.constants.MoviesAppConstants;
+import com.learnwiremock.dto.Movie;
+import com.learnwiremock.dto.MovieBatchResult;
+import com.learnwiremock.exception.MovieErrorResponse;
+import com.learnwiremock.utils.MoviesTestRandomUtils;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+@Slf4j
+@ExtendWith(WireMockExtension.class)
+public class ReactiveMoviesRestClientWireMockTest {
+
+  ReactiveMoviesRestClient reactiveClient;
+
+  @InjectServer
+  WireMockServer wireMockServer;
+
+  @ConfigureWireMock
+  Options options = WireMockConfiguration
+      .wireMockConfig()
+      .port(8088)
+      .notifier(new ConsoleNotifier(true))
+      .extensions(new ResponseTemplateTransformer(true));
+
+  private static final String wireMockBaseUrl = "http://localhost";
+
+  private static final String retrieveAllMoviesStubUrl = "/" + MoviesAppConstants.V1_GET_ALL_MOVIES;
+
+  private static final String getByIdStubUrl = "/movieservice/v1/movie/\\d+";
+
+  private static final String getByNameStubUrl = String.format(
+      "^/%s\\?%s=[\\w\\W\\s]+$",
+      MoviesAppConstants.V1_GET_MOVIE_BY_NAME,
+      MoviesAppConstants.V1_GET_MOVIE_BY_NAME_QUERY_PARAM_MOVIE_NAME
+  );
+
+  @BeforeEach
+  void setUp() {
+    final String clientBaseUrl = String.format(wireMockBaseUrl + ":%s/", wireMockServer.port());
+    reactiveClient = new ReactiveMoviesRestClient(WebClient.create(clientBaseUrl));
+  }
+
+  @Test
+  void retrieveAllMovies() {
+    stubFor(get(retrieveAllMoviesStubUrl)
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-all-movies.json")
+        )
+    );
+
+    Flux<Movie> movies = reactiveClient.getAllMovies();
+    // nothing is sent until the flux is subscribed to
+    verify(exactly(0), getRequestedFor(urlEqualTo(retrieveAllMoviesStubUrl)));
+
+    List<Movie> collected = movies.collectList().block();
+    assertNotNull(collected);
+    assertEquals(10, collected.size());
+    verify(exactly(1), getRequestedFor(urlEqualTo(retrieveAllMoviesStubUrl)));
+  }
+
+  @Test
+  void getMovieByIdConcurrently() {
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movie-by-id-template-parameterized.json")
+            .withTransformerParameter("name", "Example name")
+            .withTransformerParameter("release_date", "2005-06-15")
+            .withTransformerParameter("cast", "Example cast")
+            .withTransformerParameter("year", 2005)
+            .withFixedDelay(200)
+        )
+    );
+
+    final int requestCount = 10;
+    final long start = System.nanoTime();
+    List<Movie> movies = Flux.range(1, requestCount)
+        .flatMap(id -> reactiveClient.getMovieById((long) id))
+        .collectList()
+        .block();
+    final long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+    assertNotNull(movies);
+    assertEquals(requestCount, movies.size());
+    // requests are in flight together rather than paying the fixed delay one after another
+    assertTrue(elapsedMillis < requestCount * 200L, "Expected concurrent requests but took " + elapsedMillis + "ms");
+    verify(exactly(requestCount), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+  }
+
+  @Test
+  void concurrentIdenticalLookupsAreCoalesced() {
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movie-by-id-template-parameterized.json")
+            .withTransformerParameter("name", "Example name")
+            .withTransformerParameter("release_date", "2005-06-15")
+            .withTransformerParameter("cast", "Example cast")
+            .withTransformerParameter("year", 2005)
+            .withFixedDelay(500)
+        )
+    );
+    stubFor(get(urlMatching(getByNameStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movies-by-name-template-randomized.json")
+            .withFixedDelay(500)
+        )
+    );
+
+    final int callerCount = 50;
+    List<Movie> byId = Flux.range(0, callerCount)
+        .flatMap(it -> reactiveClient.getMovieById(1L))
+        .collectList()
+        .block();
+    List<List<Movie>> byName = Flux.range(0, callerCount)
+        .flatMap(it -> reactiveClient.getMoviesByName("Batman").collectList())
+        .collectList()
+        .block();
+
+    assertEquals(callerCount, byId.size());
+    assertTrue(byId.stream().allMatch(byId.get(0)::equals));
+    // every caller receives its own copy of the shared movie
+    assertNotSame(byId.get(0), byId.get(1));
+    assertEquals(callerCount, byName.size());
+    assertTrue(byName.stream().allMatch(byName.get(0)::equals));
+    verify(exactly(1), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+    verify(exactly(1), getRequestedFor(urlMatching(getByNameStubUrl)));
+    assertEquals(2L * (callerCount - 1), reactiveClient.getCoalescedRequestCount());
+
+    // once the shared request has completed the next lookup goes over the wire again
+    reactiveClient.getMovieById(1L).block();
+    verify(exactly(2), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+  }
+
+  @Test
+  void coalescedLookupsAreCancelledWithTheirLastCallerAndKeptApartByDeadline() throws InterruptedException {
+    //given
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movie-by-id-template-parameterized.json")
+            .withTransformerParameter("name", "Example name")
+            .withTransformerParameter("release_date", "2005-06-15")
+            .withTransformerParameter("cast", "Example cast")
+            .withTransformerParameter("year", 2005)
+            .withFixedDelay(500)
+        )
+    );
+    final Disposable first = reactiveClient.getMovieById(1L).subscribe();
+    final Disposable second = reactiveClient.getMovieById(1L).subscribe();
+    Thread.sleep(100);
+
+    //when
+    first.dispose();
+    second.dispose();
+    final Movie afterCancel = reactiveClient.getMovieById(1L).block();
+    final List<Movie> withDeadlines = Flux.merge(
+        reactiveClient.withDeadline(Duration.ofSeconds(5)).getMovieById(1L),
+        reactiveClient.withDeadline(Duration.ofSeconds(10)).getMovieById(1L))
+        .collectList()
+        .block();
+
+    //then
+    assertNotNull(afterCancel);
+    assertEquals(2, withDeadlines.size());
+    // the abandoned lookup is not joined, and lookups with different deadlines are not shared
+    verify(exactly(4), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+    assertEquals(1, reactiveClient.getCoalescedRequestCount());
+  }
+
+  @Test
+  void coalescingCanBeDisabled() {
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movie-by-id-template-parameterized.json")
+            .withTransformerParameter("name", "Example name")
+            .withTransformerParameter("release_date", "2005-06-15")
+            .withTransformerParameter("cast", "Example cast")
+            .withTransformerParameter("year", 2005)
+            .withFixedDelay(200)
+        )
+    );
+    final ReactiveMoviesRestClient uncoalescedClient = new ReactiveMoviesRestClient(
+        WebClient.create(String.format(wireMockBaseUrl + ":%s/", wireMockServer.port())),
+        MoviesRestClientOptions.builder().coalesceReads(false).build());
+
+    final int callerCount = 5;
+    Flux.range(0, callerCount).flatMap(it -> uncoalescedClient.getMovieById(1L)).blockLast();
+    verify(exactly(callerCount), getRequestedFor(urlPathMatching(getByIdStubUrl)));
+    assertEquals(0, uncoalescedClient.getCoalescedRequestCount());
+  }
+
+  @Test
+  void createMoviesAppliesBackpressureToTheSource() {
+    stubFor(post(urlEqualTo("/" + MoviesAppConstants.V1_POST_MOVIE))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.OK.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("post-movie-template.json")
+            .withFixedDelay(50)
+        )
+    );
+
+    final int concurrency = 4;
+    final int movieCount = 30;
+    final AtomicInteger emitted = new AtomicInteger();
+    final AtomicInteger completed = new AtomicInteger();
+    final AtomicInteger maxOutstanding = new AtomicInteger();
+    final Flux<Movie> source = Flux.range(0, movieCount)
+        .map(it -> MoviesTestRandomUtils.getRandomMovie())
+        .doOnNext(movie -> maxOutstanding.accumulateAndGet(emitted.incrementAndGet() - completed.get(), Math::max));
+
+    List<MovieBatchResult<Movie>> results = reactiveClient.createMovies(source, concurrency)
+        .doOnNext(result -> completed.incrementAndGet())
+        .collectList()
+        .block();
+
+    assertEquals(movieCount, results.size());
+    assertTrue(results.stream().allMatch(MovieBatchResult::isSuccess));
+    // the source is only asked for another movie once a request slot frees up
+    assertTrue(maxOutstanding.get() <= concurrency, "Source ran " + maxOutstanding.get() + " movies ahead");
+  }
+
+  @Test
+  void getMovieByIdNotFound() {
+    stubFor(get(urlPathMatching(getByIdStubUrl))
+        .willReturn(aResponse()
+            .withStatus(HttpStatus.NOT_FOUND.value())
+            .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .withBodyFile("get-movie-by-id-template-not-found.json")
+        )
+    );
+
+    Mono<Movie> movie = reactiveClient.getMovieById(1L);
+    MovieErrorResponse error = assertThrows(MovieErrorResponse.class, movie::block);
+    assertTrue(error.getCause() instanceof WebClientResponseException.NotFound);
+    assertThrows(NullPointerException.class, () -> reactiveClient.getMovieById(null));
+  }
+
+  @Test
+  void errorBodiesAreTruncated() {
+    final String errorBody = RandomStringUtils.randomAlphanumeric(4096);
+    stubFor(get(urlPathMatching(getByIdStubUrl)).willReturn(serverError().withBody(errorBody)));
+    final String clientBaseUrl = String.format(wireMockBaseUrl + ":%s/", wireMockServer.port());
+    final MoviesRestClientOptions.MoviesRestClientOptionsBuilder options = MoviesRestClientOptions.builder()
+        .coalesceReads(false)
+        .errorBodyCaptureLimit(16);
+
+    final ReactiveMoviesRestClient truncatingClient = new ReactiveMoviesRestClient(
+        WebClient.create(clientBaseUrl), options.build());
+    MovieErrorResponse error = assertThrows(MovieErrorResponse.class, () -> truncatingClient.getMovieById(1L).block());
+    assertTrue(error.getCause() instanceof WebClientResponseException.InternalServerError);
+    assertEquals(500, error.getStatusCode());
+    assertEquals(errorBody.substring(0, 16), error.getResponseBody());
+    assertTrue(error.getStackTrace().length > 0);
+    // the trace of the blocking caller
+    assertEquals(1, error.getSuppressed().length);
+
+    final ReactiveMoviesRestClient stacklessClient = new ReactiveMoviesRestClient(
+        WebClient.create(clientBaseUrl), options.stacklessErrors(true).build());
+    error = assertThrows(MovieErrorResponse.class, () -> stacklessClient.getMovieById(1L).block());
+    assertNull(error.getCause());
+    assertEquals(0, error.getStackTrace().length);
+    assertEquals(0, error.getSuppressed().length);
+    assertEquals(500, error.getStatusCode());
+    assertEquals(errorBody.substring(0, 16), error.getResponseBody());
+  }
+
+  @Test
+  void getMoviesByNameInvalidNameArgument() {
+    assertThrows(IllegalArgumentException.class, () -> reactiveClient.getMoviesByName(" "));
+    assertThrows(NullPointerException.class, () -> reactiveClient.getMoviesByName(null));
+  }
+
+  @Test
+  void deleteMovieFaultEmptyResponse() {
+    stubFor(delete(urlPathMatching(getByIdStubUrl)).willReturn(aResponse().withFault(Fault.EMPTY_RESPONSE)));
+    Mono<String> result = reactiveClient.deleteMovie(1L).onErrorResume(MovieErrorResponse.class, e -> Mono.just("mapped"));
+    assertEquals("mapped", result.block());
+  }
+}